@@ -14,6 +14,9 @@
  */
 package com.amazonaws;
 
+import com.amazonaws.retry.AdaptiveRateLimiter;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.util.VersionInfoUtils;
 /**
  * Client configuration options such as proxy settings, user agent string, max
@@ -24,6 +27,24 @@ public class ClientConfiguration {
     /** The default HTTP user agent header for AWS Java SDK clients. */
     public static final String DEFAULT_USER_AGENT = VersionInfoUtils.getUserAgent();
 
+    /**
+     * The default time, in milliseconds, a pooled connection may sit idle
+     * before it is closed.
+     */
+    public static final long DEFAULT_CONNECTION_MAX_IDLE_MILLIS = 30 * 1000;
+
+    /**
+     * The default expiration time, in milliseconds, for pooled connections. A
+     * negative value means pooled connections don't expire.
+     */
+    public static final long DEFAULT_CONNECTION_TTL = -1;
+
+    /**
+     * The default number of responses whose metadata is kept for diagnostic
+     * purposes.
+     */
+    public static final int DEFAULT_RESPONSE_METADATA_CACHE_SIZE = 50;
+
     /** The HTTP user agent header passed with all HTTP requests. */
     private String userAgent = DEFAULT_USER_AGENT;
 
@@ -33,6 +54,18 @@ public class ClientConfiguration {
      */
     private int maxErrorRetry = 3;
 
+    /**
+     * The retry policy deciding which failed requests are retried, and how
+     * long to wait before each retry.
+     */
+    private RetryPolicy retryPolicy = PredefinedRetryPolicies.DEFAULT;
+
+    /**
+     * Optional rate limiter that slows down requests to an endpoint and
+     * operation after the service throttles them.
+     */
+    private AdaptiveRateLimiter rateLimiter = null;
+
     /**
      * The protocol to use when connecting to Amazon Web Services.
      * <p>
@@ -90,6 +123,32 @@ public class ClientConfiguration {
      */
     private int socketReceiveBufferSizeHint = 0;
 
+    /**
+     * The time, in milliseconds, a pooled connection may sit idle before it
+     * is closed by the background connection reaper. A value of 0 or less
+     * disables the reaper for the client.
+     */
+    private long connectionMaxIdleMillis = DEFAULT_CONNECTION_MAX_IDLE_MILLIS;
+
+    /**
+     * The expiration time, in milliseconds, for pooled connections, measured
+     * from when they were opened. A negative value means pooled connections
+     * don't expire.
+     */
+    private long connectionTTL = DEFAULT_CONNECTION_TTL;
+
+    /**
+     * Whether a pooled connection is checked for staleness before it is
+     * reused for a request.
+     */
+    private boolean useStaleConnectionCheck = true;
+
+    /**
+     * The number of recent responses whose metadata is kept for diagnostic
+     * purposes. A value of 0 disables the cache.
+     */
+    private int responseMetadataCacheSize = DEFAULT_RESPONSE_METADATA_CACHE_SIZE;
+
     /**
      * Returns the protocol (i.e. HTTP or HTTPS) to use when connecting to
      * Amazon Web Services.
@@ -471,6 +530,91 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Returns the retry policy deciding which failed requests are retried,
+     * how long to wait before each retry, and whether retries are limited by a
+     * retry budget. The maximum number of retries for a single request is
+     * still controlled by {@link #getMaxErrorRetry()}.
+     *
+     * @return The retry policy for failed requests.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the retry policy deciding which failed requests are retried, how
+     * long to wait before each retry, and whether retries are limited by a
+     * retry budget. The maximum number of retries for a single request is
+     * still controlled by {@link #setMaxErrorRetry(int)}.
+     *
+     * @param retryPolicy
+     *            The retry policy for failed requests.
+     *
+     * @see PredefinedRetryPolicies
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Sets the retry policy deciding which failed requests are retried, how
+     * long to wait before each retry, and whether retries are limited by a
+     * retry budget, and returns the updated ClientConfiguration object.
+     *
+     * @param retryPolicy
+     *            The retry policy for failed requests.
+     *
+     * @return The updated ClientConfiguration object.
+     *
+     * @see PredefinedRetryPolicies
+     */
+    public ClientConfiguration withRetryPolicy(RetryPolicy retryPolicy) {
+        setRetryPolicy(retryPolicy);
+        return this;
+    }
+
+    /**
+     * Returns the optional rate limiter that slows down requests to an
+     * endpoint and operation after the service throttles them, or null if
+     * requests are not rate limited.
+     *
+     * @return The optional adaptive rate limiter.
+     */
+    public AdaptiveRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Sets the optional rate limiter that slows down requests to an endpoint
+     * and operation after the service throttles them. All clients configured
+     * with the same rate limiter back off together when any of their requests
+     * are throttled. By default, requests are not rate limited.
+     *
+     * @param rateLimiter
+     *            The adaptive rate limiter to use, or null to disable rate
+     *            limiting.
+     */
+    public void setRateLimiter(AdaptiveRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Sets the optional rate limiter that slows down requests to an endpoint
+     * and operation after the service throttles them, and returns the updated
+     * ClientConfiguration object.
+     *
+     * @param rateLimiter
+     *            The adaptive rate limiter to use, or null to disable rate
+     *            limiting.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withRateLimiter(AdaptiveRateLimiter rateLimiter) {
+        setRateLimiter(rateLimiter);
+        return this;
+    }
+
     /**
      * Returns the amount of time to wait (in milliseconds) for data to be
      * transfered over an established, open connection before the connection
@@ -683,4 +827,168 @@ public class ClientConfiguration {
         return this;
     }
 
+
+    /**
+     * Returns the time, in milliseconds, a pooled connection may sit idle
+     * before it is closed. Idle connections are closed by a background
+     * connection reaper thread shared by all clients, not on the request
+     * path. A value of 0 or less means idle connections are never closed.
+     *
+     * @return The maximum idle time, in milliseconds, for pooled connections.
+     */
+    public long getConnectionMaxIdleMillis() {
+        return connectionMaxIdleMillis;
+    }
+
+    /**
+     * Sets the time, in milliseconds, a pooled connection may sit idle before
+     * it is closed. Idle connections are closed by a background connection
+     * reaper thread shared by all clients, not on the request path. A value of
+     * 0 or less means idle connections are never closed.
+     *
+     * @param connectionMaxIdleMillis
+     *            The maximum idle time, in milliseconds, for pooled
+     *            connections.
+     */
+    public void setConnectionMaxIdleMillis(long connectionMaxIdleMillis) {
+        this.connectionMaxIdleMillis = connectionMaxIdleMillis;
+    }
+
+    /**
+     * Sets the time, in milliseconds, a pooled connection may sit idle before
+     * it is closed, and returns the updated ClientConfiguration object.
+     *
+     * @param connectionMaxIdleMillis
+     *            The maximum idle time, in milliseconds, for pooled
+     *            connections.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withConnectionMaxIdleMillis(long connectionMaxIdleMillis) {
+        setConnectionMaxIdleMillis(connectionMaxIdleMillis);
+        return this;
+    }
+
+    /**
+     * Returns the expiration time, in milliseconds, for pooled connections,
+     * measured from when they were opened. Expired connections are not reused.
+     * A negative value means pooled connections don't expire.
+     *
+     * @return The expiration time, in milliseconds, for pooled connections.
+     */
+    public long getConnectionTTL() {
+        return connectionTTL;
+    }
+
+    /**
+     * Sets the expiration time, in milliseconds, for pooled connections,
+     * measured from when they were opened. Expired connections are not reused,
+     * which lets long running clients pick up DNS changes for an endpoint. A
+     * negative value means pooled connections don't expire.
+     *
+     * @param connectionTTL
+     *            The expiration time, in milliseconds, for pooled connections.
+     */
+    public void setConnectionTTL(long connectionTTL) {
+        this.connectionTTL = connectionTTL;
+    }
+
+    /**
+     * Sets the expiration time, in milliseconds, for pooled connections, and
+     * returns the updated ClientConfiguration object.
+     *
+     * @param connectionTTL
+     *            The expiration time, in milliseconds, for pooled connections.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withConnectionTTL(long connectionTTL) {
+        setConnectionTTL(connectionTTL);
+        return this;
+    }
+
+    /**
+     * Returns whether a pooled connection is checked for staleness before it
+     * is reused for a request. The check catches connections closed by the
+     * remote side, but costs a blocking read of up to a millisecond on every
+     * reused connection.
+     *
+     * @return True if pooled connections are checked for staleness before
+     *         reuse.
+     */
+    public boolean useStaleConnectionCheck() {
+        return useStaleConnectionCheck;
+    }
+
+    /**
+     * Sets whether a pooled connection is checked for staleness before it is
+     * reused for a request. The check catches connections closed by the remote
+     * side, but costs a blocking read of up to a millisecond on every reused
+     * connection. With the check disabled, a request sent on a stale
+     * connection fails with an I/O error and is retried according to the
+     * retry policy, so keep the maximum idle time below the service's idle
+     * timeout when disabling it.
+     *
+     * @param useStaleConnectionCheck
+     *            Whether pooled connections should be checked for staleness
+     *            before reuse.
+     */
+    public void setUseStaleConnectionCheck(boolean useStaleConnectionCheck) {
+        this.useStaleConnectionCheck = useStaleConnectionCheck;
+    }
+
+    /**
+     * Sets whether a pooled connection is checked for staleness before it is
+     * reused for a request, and returns the updated ClientConfiguration
+     * object.
+     *
+     * @param useStaleConnectionCheck
+     *            Whether pooled connections should be checked for staleness
+     *            before reuse.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withStaleConnectionCheck(boolean useStaleConnectionCheck) {
+        setUseStaleConnectionCheck(useStaleConnectionCheck);
+        return this;
+    }
+
+    /**
+     * Returns the number of recent responses whose metadata is kept by the
+     * client for diagnostic purposes, such as looking up the AWS request ID
+     * of a request through a service client's getCachedResponseMetadata
+     * method. A value of 0 means the cache is disabled.
+     *
+     * @return The size of the response metadata cache.
+     */
+    public int getResponseMetadataCacheSize() {
+        return responseMetadataCacheSize;
+    }
+
+    /**
+     * Sets the number of recent responses whose metadata is kept by the client
+     * for diagnostic purposes. Set this to 0 to disable the cache entirely for
+     * clients that never look up response metadata.
+     *
+     * @param responseMetadataCacheSize
+     *            The size of the response metadata cache, or 0 to disable it.
+     */
+    public void setResponseMetadataCacheSize(int responseMetadataCacheSize) {
+        this.responseMetadataCacheSize = responseMetadataCacheSize;
+    }
+
+    /**
+     * Sets the number of recent responses whose metadata is kept by the client
+     * for diagnostic purposes, and returns the updated ClientConfiguration
+     * object.
+     *
+     * @param responseMetadataCacheSize
+     *            The size of the response metadata cache, or 0 to disable it.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withResponseMetadataCacheSize(int responseMetadataCacheSize) {
+        setResponseMetadataCacheSize(responseMetadataCacheSize);
+        return this;
+    }
 }
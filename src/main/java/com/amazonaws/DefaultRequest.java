@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.amazonaws.http.HttpMethodName;
+import com.amazonaws.util.EncodedParameterMap;
 
 /**
  * Default implementation of the {@linkplain com.amazonaws.Request} interface.
@@ -32,8 +33,11 @@ public class DefaultRequest<T> implements Request<T> {
     /** The resource path being requested */
     private String resourcePath;
 
-    /** Map of the parameters being sent as part of this request */
-    private Map<String, String> parameters = new HashMap<String, String>();
+    /**
+     * Map of the parameters being sent as part of this request, sorted by name
+     * and encoded once for both signing and sending the request
+     */
+    private Map<String, String> parameters = new EncodedParameterMap();
 
     /** Map of the headers included in this request */
     private Map<String, String> headers = new HashMap<String, String>();
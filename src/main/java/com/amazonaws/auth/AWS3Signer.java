@@ -60,6 +60,7 @@ public class AWS3Signer extends AbstractAWSSigner {
      *            The request to sign.
      */
     public void sign(Request<?> request, AWSCredentials credentials) throws AmazonClientException {
+        long startNanos = System.nanoTime();
 
         AWSCredentials sanitizedCredentials = sanitizeCredentials(credentials);
 
@@ -113,6 +114,7 @@ public class AWS3Signer extends AbstractAWSSigner {
 
         builder.append("Signature=" + signature);
         request.addHeader(AUTHORIZATION_HEADER, builder.toString());
+        recordSigningLatency(request, startNanos);
     }
 
     private String getRequestPayload(Request<?> request) {
@@ -16,10 +16,8 @@ package com.amazonaws.auth;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
-import java.util.Iterator;
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -28,6 +26,9 @@ import org.apache.commons.codec.binary.Base64;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.Request;
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.OperationMetrics;
+import com.amazonaws.metrics.RequestPhase;
 import com.amazonaws.util.HttpUtils;
 
 /**
@@ -42,6 +43,30 @@ public abstract class AbstractAWSSigner implements Signer {
     /** The default encoding to use when URL encoding */
     private static final String DEFAULT_ENCODING = "UTF-8";
 
+    /**
+     * Each thread's Mac instances, by algorithm, already initialized with the
+     * key they were last used with. Looking up a Mac and deriving its key
+     * costs far more than signing a typical request, so they're reused for as
+     * long as the key stays the same, and re-initialized when it changes.
+     */
+    private static final ThreadLocal<Map<SigningAlgorithm, KeyedMac>> macs =
+        new ThreadLocal<Map<SigningAlgorithm, KeyedMac>>() {
+            @Override
+            protected Map<SigningAlgorithm, KeyedMac> initialValue() {
+                return new EnumMap<SigningAlgorithm, KeyedMac>(SigningAlgorithm.class);
+            }
+        };
+
+    /** A Mac and the key it's been initialized with. */
+    private static final class KeyedMac {
+        private final Mac mac;
+        private String key;
+
+        KeyedMac(Mac mac) {
+            this.mac = mac;
+        }
+    }
+
     /**
      * Computes an RFC 2104-compliant HMAC signature.
      */
@@ -60,34 +85,55 @@ public abstract class AbstractAWSSigner implements Signer {
     protected String sign(byte[] data, String key, SigningAlgorithm algorithm)
     		throws AmazonClientException {
     	try {
-    		Mac mac = Mac.getInstance(algorithm.toString());
-    		mac.init(new SecretKeySpec(key.getBytes(), algorithm.toString()));
-    		byte[] signature = Base64.encodeBase64(mac.doFinal(data));
+    		byte[] signature = Base64.encodeBase64(getMac(key, algorithm).doFinal(data));
     		return new String(signature);
     	} catch (Exception e) {
     		throw new AmazonClientException("Unable to calculate a request signature: " + e.getMessage(), e);
     	}
     }
 
-    protected String getCanonicalizedQueryString(Map<String, String> parameters) {
-        SortedMap<String, String> sorted = new TreeMap<String, String>();
-        sorted.putAll(parameters);
-
-        StringBuilder builder = new StringBuilder();
-        Iterator<Map.Entry<String, String>> pairs = sorted.entrySet().iterator();
-        while (pairs.hasNext()) {
-            Map.Entry<String, String> pair = pairs.next();
-            String key = pair.getKey();
-            String value = pair.getValue();
-            builder.append(HttpUtils.urlEncode(key, false));
-            builder.append("=");
-            builder.append(HttpUtils.urlEncode(value, false));
-            if (pairs.hasNext()) {
-                builder.append("&");
-            }
+    /**
+     * Returns this thread's Mac for the specified algorithm, initialized with
+     * the specified key. Doing a final operation on the Mac resets it to the
+     * same initialized state, ready for the next signature.
+     */
+    private static Mac getMac(String key, SigningAlgorithm algorithm) throws Exception {
+        Map<SigningAlgorithm, KeyedMac> threadMacs = macs.get();
+        KeyedMac keyedMac = threadMacs.get(algorithm);
+        if (keyedMac == null) {
+            keyedMac = new KeyedMac(Mac.getInstance(algorithm.toString()));
+            threadMacs.put(algorithm, keyedMac);
         }
 
-        return builder.toString();
+        if (!key.equals(keyedMac.key)) {
+            // Clear the key first, so a failed init can't leave the Mac
+            // looking initialized with the new key
+            keyedMac.key = null;
+            keyedMac.mac.init(new SecretKeySpec(key.getBytes(), algorithm.toString()));
+            keyedMac.key = key;
+        }
+        return keyedMac.mac;
+    }
+
+    /**
+     * Records the time taken to sign the specified request in the metrics for
+     * its operation, if metrics are enabled.
+     *
+     * @param request
+     *            The request that was signed.
+     * @param startNanos
+     *            When signing started, from System.nanoTime.
+     */
+    protected void recordSigningLatency(Request<?> request, long startNanos) {
+        OperationMetrics metrics = AwsSdkMetrics.getOperationMetrics(
+                request.getServiceName(), request.getOriginalRequest());
+        if (metrics != null) {
+            metrics.recordLatency(RequestPhase.Sign, System.nanoTime() - startNanos);
+        }
+    }
+
+    protected String getCanonicalizedQueryString(Map<String, String> parameters) {
+        return HttpUtils.encodeParameters(parameters);
     }
 
     protected String getCanonicalizedResourcePath(URI endpoint) {
@@ -125,9 +171,26 @@ public abstract class AbstractAWSSigner implements Signer {
      * {@link BasicAWSCredentials} object, depending on the input type.
      * 
      * @param credentials
-     * @return A new credentials object with the sanitized credentials.
+     * @return The sanitized credentials, which are the given credentials
+     *         themselves if they're one of the immutable basic credentials
+     *         classes and don't need trimming.
      */
     protected AWSCredentials sanitizeCredentials(AWSCredentials credentials) {        
+        /*
+         * The basic credentials classes are immutable, so there's nothing to
+         * synchronize on, and if they don't need trimming they can be used
+         * as they are.
+         */
+        if (credentials.getClass() == BasicAWSCredentials.class
+                || credentials.getClass() == BasicSessionCredentials.class) {
+            if (!needsTrimming(credentials.getAWSAccessKeyId())
+                    && !needsTrimming(credentials.getAWSSecretKey())
+                    && !(credentials instanceof AWSSessionCredentials
+                        && needsTrimming(((AWSSessionCredentials)credentials).getSessionToken()))) {
+                return credentials;
+            }
+        }
+
         String accessKeyId = null;
         String secretKey   = null;
         String token = null;
@@ -149,6 +212,11 @@ public abstract class AbstractAWSSigner implements Signer {
         return new BasicAWSCredentials(accessKeyId, secretKey);
     }
     
+    private static boolean needsTrimming(String s) {
+        if (s == null || s.length() == 0) return false;
+        return s.charAt(0) <= ' ' || s.charAt(s.length() - 1) <= ' ';
+    }
+
     /**
      * Adds session credentials to the request given.
      * 
@@ -15,15 +15,14 @@
 package com.amazonaws.auth;
 
 import java.net.URI;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
 import java.util.SortedMap;
-import java.util.TimeZone;
 import java.util.TreeMap;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.Request;
+import com.amazonaws.util.DateUtils;
 
 /**
  * Signer implementation responsible for signing an AWS query string request
@@ -31,6 +30,9 @@ import com.amazonaws.Request;
  */
 public class QueryStringSigner extends AbstractAWSSigner implements Signer {
 
+    /** Shared DateUtils object for formatting request timestamps */
+    private static final DateUtils dateUtils = new DateUtils();
+
 	/**
 	 * This signer will add "Signature" parameter to the request. Default
 	 * signature version is "2" and default signing algorithm is "HmacSHA256".
@@ -61,6 +63,7 @@ public class QueryStringSigner extends AbstractAWSSigner implements Signer {
      *            signature algorithm. "HmacSHA256" is recommended.
      */
     public void sign(Request<?> request, SignatureVersion version, SigningAlgorithm algorithm, AWSCredentials credentials) throws AmazonClientException {
+        long startNanos = System.nanoTime();
     	AWSCredentials sanitizedCredentials = sanitizeCredentials(credentials);
         request.addParameter("AWSAccessKeyId", sanitizedCredentials.getAWSAccessKeyId());
         request.addParameter("SignatureVersion", version.toString());
@@ -82,6 +85,7 @@ public class QueryStringSigner extends AbstractAWSSigner implements Signer {
 
         String signatureValue = sign(stringToSign, sanitizedCredentials.getAWSSecretKey(), algorithm);
         request.addParameter("Signature", signatureValue);
+        recordSigningLatency(request, startNanos);
     }
 
     /**
@@ -134,10 +138,7 @@ public class QueryStringSigner extends AbstractAWSSigner implements Signer {
      * Formats date as ISO 8601 timestamp
      */
     private String getFormattedTimestamp() {
-        SimpleDateFormat df = new SimpleDateFormat(
-                "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-        df.setTimeZone(TimeZone.getTimeZone("UTC"));
-        return df.format(new Date());
+        return dateUtils.formatIso8601Date(new Date());
     }
 
     @Override
@@ -15,13 +15,17 @@
 package com.amazonaws.http;
 
 import java.io.IOException;
-import java.net.SocketException;
-import java.net.SocketTimeoutException;
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
@@ -30,7 +34,6 @@ import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpStatus;
-import org.apache.http.NoHttpResponseException;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpRequestBase;
@@ -43,6 +46,15 @@ import com.amazonaws.ClientConfiguration;
 import com.amazonaws.Request;
 import com.amazonaws.ResponseMetadata;
 import com.amazonaws.handlers.RequestHandler;
+import com.amazonaws.http.PhaseTimingRequestExecutor.PhaseTimes;
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.OperationMetrics;
+import com.amazonaws.metrics.RequestPhase;
+import com.amazonaws.retry.AdaptiveRateLimiter;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.retry.RetryBudget;
+import com.amazonaws.retry.RetryPolicy;
+import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.util.CountingInputStream;
 import com.amazonaws.util.ResponseMetadataCache;
 import com.amazonaws.util.TimingInfo;
@@ -68,16 +80,17 @@ public class AmazonHttpClient {
 	private static final String BYTES_PROCESSED_COUNTER = "bytes-processed";
 	private static final String RESPONSE_PROCESSING_SUBMEASUREMENT = "response-processing";
 
-    /** Maximum exponential back-off time before retrying a request */
-    private static final int MAX_BACKOFF_IN_MILLISECONDS = 20 * 1000;
-
     /** Client configuration options, such as proxy settings, max retries, etc. */
     private final ClientConfiguration config;
 
     /** Cache of metadata for recently executed requests for diagnostic purposes */
-    private ResponseMetadataCache responseMetadataCache = new ResponseMetadataCache(50);
+    private final ResponseMetadataCache responseMetadataCache;
 
-    private static final Random random = new Random();
+    /**
+     * Budget limiting the retries made by all requests sent through this
+     * client, sized from the configured retry policy.
+     */
+    private final RetryBudget retryBudget;
 
     private static HttpRequestFactory httpRequestFactory = new HttpRequestFactory();
     private static HttpClientFactory httpClientFactory = new HttpClientFactory();
@@ -109,6 +122,15 @@ public class AmazonHttpClient {
     public AmazonHttpClient(ClientConfiguration clientConfiguration) {
         this.config = clientConfiguration;
         this.httpClient = httpClientFactory.createHttpClient(config);
+        this.retryBudget = new RetryBudget(getRetryPolicy().getRetryBudgetCapacity());
+        this.responseMetadataCache = new ResponseMetadataCache(config.getResponseMetadataCacheSize());
+
+        // Idle connections are closed out by a background reaper instead of
+        // on every request, so the pool isn't locked and walked per request.
+        if (config.getConnectionMaxIdleMillis() > 0) {
+            IdleConnectionReaper.registerConnectionManager(
+                    httpClient.getConnectionManager(), config.getConnectionMaxIdleMillis());
+        }
     }
 
     /**
@@ -157,29 +179,89 @@ public class AmazonHttpClient {
     	 */
 
     	if (executionContext == null) throw new AmazonClientException("Internal SDK Error: No execution context parameter specified.");
-    	List<RequestHandler> requestHandlers = executionContext.getRequestHandlers();
-    	if (requestHandlers == null) requestHandlers = new ArrayList<RequestHandler>();
 
     	try {
     		TimingInfo timingInfo = new TimingInfo(startTime);
     		executionContext.setTimingInfo(timingInfo);
     		T t = executeHelper(request, responseHandler, errorResponseHandler, executionContext);
-    		timingInfo.setEndTime(System.currentTimeMillis());
-
-			for (RequestHandler handler : requestHandlers) {
-				try {
-					handler.afterResponse(request, t, timingInfo);
-				} catch (ClassCastException cce) {}
-        	}
+    		afterResponse(request, t, executionContext);
     		return t;
     	} catch (AmazonClientException e) {
-			for (RequestHandler handler : requestHandlers) {
-        		handler.afterError(request, e);
-        	}
+    		afterError(request, e, executionContext);
         	throw e;
     	}
     }
 
+    /**
+     * Executes the request asynchronously and returns a Future for the result.
+     * <p>
+     * Each attempt to send the request is run on the specified executor. When
+     * a failed attempt needs to be retried, the back-off pause is scheduled on
+     * a shared timer instead of sleeping on an executor thread, so a small pool
+     * of threads can keep a large number of requests in flight. Signing,
+     * retries and unmarshalling behave exactly as they do for
+     * {@link #execute(Request, HttpResponseHandler, HttpResponseHandler, ExecutionContext)}.
+     *
+     * @param request
+     *            The AmazonWebServices request to send to the remote server
+     * @param responseHandler
+     *            A response handler to accept a successful response from the
+     *            remote server
+     * @param errorResponseHandler
+     *            A response handler to accept an unsuccessful response from the
+     *            remote server
+     * @param executionContext
+     *            Additional information about the context of this web service
+     *            call
+     * @param executor
+     *            The executor on which each attempt of the request is run.
+     *
+     * @return A Future that completes with the result of the request, or with
+     *         the AmazonClientException (or AmazonServiceException) that
+     *         caused it to fail.
+     */
+    public <T> Future<T> executeAsync(Request<?> request,
+            HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            ExecutionContext executionContext, Executor executor) {
+        if (executionContext == null) throw new AmazonClientException("Internal SDK Error: No execution context parameter specified.");
+        if (executor == null) throw new AmazonClientException("Internal SDK Error: No executor specified for asynchronous execution.");
+
+        executionContext.setTimingInfo(new TimingInfo(System.currentTimeMillis()));
+        AsyncExecution<T> execution = new AsyncExecution<T>(request, responseHandler, errorResponseHandler, executionContext, executor);
+        execution.submit();
+        return execution.future;
+    }
+
+    /**
+     * Runs the afterResponse callbacks of the request handlers in the
+     * specified execution context for a successfully executed request.
+     */
+    private void afterResponse(Request<?> request, Object response, ExecutionContext executionContext) {
+        TimingInfo timingInfo = executionContext.getTimingInfo();
+        timingInfo.setEndTime(System.currentTimeMillis());
+
+        List<RequestHandler> requestHandlers = executionContext.getRequestHandlers();
+        if (requestHandlers == null) return;
+        for (RequestHandler handler : requestHandlers) {
+            try {
+                handler.afterResponse(request, response, timingInfo);
+            } catch (ClassCastException cce) {}
+        }
+    }
+
+    /**
+     * Runs the afterError callbacks of the request handlers in the specified
+     * execution context for a request that failed.
+     */
+    private void afterError(Request<?> request, AmazonClientException e, ExecutionContext executionContext) {
+        List<RequestHandler> requestHandlers = executionContext.getRequestHandlers();
+        if (requestHandlers == null) return;
+        for (RequestHandler handler : requestHandlers) {
+            handler.afterError(request, e);
+        }
+    }
+
 	/**
      * Internal method to execute the HTTP method given.
      *
@@ -192,6 +274,95 @@ public class AmazonHttpClient {
             ExecutionContext executionContext)
             throws AmazonClientException, AmazonServiceException {
 
+        ExecutionState<T> state = new ExecutionState<T>();
+        prepareRequest(request, state);
+
+        try {
+            while (true) {
+                if (state.retries > 0) pauseBeforeRetry(request, state);
+
+                long rateLimitDelay = reserveRateLimit(request, state);
+                if (rateLimitDelay > 0) sleep(rateLimitDelay);
+
+                if (executeAttempt(request, responseHandler, errorResponseHandler, executionContext, state)) {
+                    recordCompletion(state, true);
+                    return state.result;
+                }
+            }
+        } catch (AmazonClientException e) {
+            recordCompletion(state, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Performs the one-time work needed before the first attempt to send a
+     * request.
+     */
+    private void prepareRequest(Request<?> request, ExecutionState<?> state) {
+        state.metrics = AwsSdkMetrics.getOperationMetrics(request.getServiceName(), request.getOriginalRequest());
+        state.startNanos = System.nanoTime();
+
+        requestLog.info("Sending Request: " + request.toString());
+
+        // Apply whatever request options we know how to handle, such as user-agent.
+        applyRequestData(request);
+    }
+
+    /**
+     * Records the outcome and total latency of a completed request in its
+     * operation's metrics, if metrics are enabled.
+     */
+    private void recordCompletion(ExecutionState<?> state, boolean success) {
+        if (state.metrics != null) {
+            state.metrics.recordRequest(success, System.nanoTime() - state.startNanos);
+        }
+    }
+
+    /**
+     * Records how long the phases of sending an attempt took, and the size of
+     * its payloads, in the request's operation metrics.
+     */
+    private void recordHttpMetrics(OperationMetrics metrics, PhaseTimes times, long executeStart,
+            HttpRequestBase httpRequest, org.apache.http.HttpResponse response) {
+        if (times.sendStart > 0) {
+            metrics.recordLatency(RequestPhase.ConnectWait, times.sendStart - executeStart);
+            if (times.sendEnd > 0) {
+                metrics.recordLatency(RequestPhase.Send, times.sendEnd - times.sendStart);
+                if (times.responseStart > 0) {
+                    metrics.recordLatency(RequestPhase.FirstByte, times.responseStart - times.sendEnd);
+                }
+            }
+        }
+
+        if (httpRequest instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest)httpRequest).getEntity();
+            if (entity != null && entity.getContentLength() > 0) {
+                metrics.recordBytesSent(entity.getContentLength());
+            }
+        }
+        if (response.getEntity() != null && response.getEntity().getContentLength() > 0) {
+            metrics.recordBytesReceived(response.getEntity().getContentLength());
+        }
+    }
+
+    /**
+     * Makes a single attempt at sending the specified request and handling its
+     * response.
+     *
+     * @return True if the attempt completed the request, in which case the
+     *         result is available from the execution state, or false if the
+     *         request should be attempted again.
+     *
+     * @throws AmazonClientException
+     *             If the request failed and should not be retried.
+     */
+    private <T> boolean executeAttempt(Request<?> request,
+            HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            ExecutionContext executionContext, ExecutionState<T> state)
+            throws AmazonClientException, AmazonServiceException {
+
         /*
          * Depending on which response handler we end up choosing to handle the
          * HTTP response, it might require us to leave the underlying HTTP
@@ -201,91 +372,260 @@ public class AmazonHttpClient {
          */
         boolean leaveHttpConnectionOpen = false;
 
-        // When we release connections, the connection manager leaves them
-        // open so they can be reused.  We want to close out any idle
-        // connections so that they don't sit around in CLOSE_WAIT.
-        httpClient.getConnectionManager().closeIdleConnections(30, TimeUnit.SECONDS);
+        OperationMetrics metrics = state.metrics;
+        if (metrics != null && state.retries > 0) metrics.recordRetry();
 
-        requestLog.info("Sending Request: " + request.toString());
+        // Sign the request if a signer was provided
+        if (executionContext.getSigner() != null && executionContext.getCredentials() != null) {
+            executionContext.getSigner().sign(request, executionContext.getCredentials());
+        }
 
-        // Apply whatever request options we know how to handle, such as user-agent.
-        applyRequestData(request);
-        
-        int retries = 0;
-        URI redirectedURI = null;
-        HttpEntity entity = null;
-        AmazonServiceException exception = null;
-        while (true) {
-        	// Sign the request if a signer was provided
-        	if (executionContext.getSigner() != null && executionContext.getCredentials() != null) {
-        		executionContext.getSigner().sign(request, executionContext.getCredentials());
-        	}
+        HttpRequestBase httpRequest = httpRequestFactory.createHttpRequest(request, config, state.entity, executionContext);
+
+        if (httpRequest instanceof HttpEntityEnclosingRequest) {
+            state.entity = ((HttpEntityEnclosingRequest)httpRequest).getEntity();
+        }
+
+        if (state.redirectedURI != null) {
+            httpRequest.setURI(state.redirectedURI);
+        }
 
-            HttpRequestBase httpRequest = httpRequestFactory.createHttpRequest(request, config, entity, executionContext);
+        org.apache.http.HttpResponse response = null;
+        try {
+            state.exception = null;
+            state.retries++;
+            state.rateLimitReserved = false;
 
-            if (httpRequest instanceof HttpEntityEnclosingRequest) {
-            	entity = ((HttpEntityEnclosingRequest)httpRequest).getEntity();
+            if (metrics != null) {
+                PhaseTimes times = PhaseTimingRequestExecutor.startTiming();
+                long executeStart = System.nanoTime();
+                response = httpClient.execute(httpRequest);
+                recordHttpMetrics(metrics, times, executeStart, httpRequest, response);
+            } else {
+                response = httpClient.execute(httpRequest);
             }
 
-            if (redirectedURI != null) {
-            	httpRequest.setURI(redirectedURI);
+            if (isRequestSuccessful(response)) {
+                /*
+                 * If we get back any 2xx status code, then we know we should
+                 * treat the service call as successful.
+                 */
+                leaveHttpConnectionOpen = responseHandler.needsConnectionLeftOpen();
+                long unmarshallStart = (metrics != null) ? System.nanoTime() : 0;
+                state.result = handleResponse(request, responseHandler, httpRequest, response, executionContext);
+                if (metrics != null) metrics.recordLatency(RequestPhase.Unmarshall, System.nanoTime() - unmarshallStart);
+                retryBudget.releaseOnSuccess(state.retries - 1);
+                recordRateLimitOutcome(request, null);
+                return true;
+            } else if (isTemporaryRedirect(response)) {
+                /*
+                 * S3 sends 307 Temporary Redirects if you try to delete an
+                 * EU bucket from the US endpoint. If we get a 307, we'll
+                 * point the HTTP method to the redirected location, and let
+                 * the next retry deliver the request to the right location.
+                 */
+                Header[] locationHeaders = response.getHeaders("location");
+                String redirectedLocation = locationHeaders[0].getValue();
+                log.debug("Redirecting to: " + redirectedLocation);
+                state.redirectedURI = URI.create(redirectedLocation);
+                httpRequest.setURI(state.redirectedURI);
+            } else {
+                leaveHttpConnectionOpen = errorResponseHandler.needsConnectionLeftOpen();
+                AmazonServiceException ase = handleErrorResponse(request, errorResponseHandler, httpRequest, response);
+                recordRateLimitOutcome(request, ase);
+                if (metrics != null && RetryUtils.isThrottlingException(ase)) metrics.recordThrottle();
+                state.exception = ase;
+
+                if (!shouldRetry(request, state.exception, state.retries)) {
+                    throw state.exception;
+                }
             }
+        } catch (IOException ioe) {
+            log.warn("Unable to execute HTTP request: " + ioe.getMessage());
 
-            org.apache.http.HttpResponse response = null;
+            state.exception = new AmazonClientException("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
+            if (!shouldRetry(request, state.exception, state.retries)) {
+                throw state.exception;
+            }
+        } finally {
+            /*
+             * Some response handlers need to manually manage the HTTP
+             * connection and will take care of releasing the connection on
+             * their own, but if this response handler doesn't need the
+             * connection left open, we go ahead and release the it to free
+             * up resources.
+             */
+            if (!leaveHttpConnectionOpen) {
+                try {response.getEntity().getContent().close();} catch (Throwable t) {}
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mutable state carried between the attempts made while executing a
+     * single request.
+     */
+    private static class ExecutionState<T> {
+        /** The number of attempts made so far. */
+        int retries = 0;
+
+        /** The location to send the next attempt to, if redirected. */
+        URI redirectedURI;
+
+        /** The request entity, reused across attempts. */
+        HttpEntity entity;
+
+        /** The error from the last attempt, if any. */
+        AmazonClientException exception;
+
+        /** The back-off delay used before the last retry, if any. */
+        long lastBackoffDelay;
+
+        /** Whether the next attempt has already been cleared by the rate limiter. */
+        boolean rateLimitReserved;
+
+        /** The result of the request, once an attempt has completed it. */
+        T result;
+
+        /** The metrics of the request's operation, or null if metrics are disabled. */
+        OperationMetrics metrics;
+
+        /** When execution of the request started, from System.nanoTime. */
+        long startNanos;
+    }
+
+    /**
+     * Drives the attempts of an asynchronously executed request, running each
+     * attempt on the caller supplied executor and scheduling the back-off
+     * pause between attempts on the shared retry timer.
+     */
+    private class AsyncExecution<T> implements Runnable {
+        private final Request<?> request;
+        private final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler;
+        private final HttpResponseHandler<AmazonServiceException> errorResponseHandler;
+        private final ExecutionContext executionContext;
+        private final Executor executor;
+        private final ExecutionState<T> state = new ExecutionState<T>();
+        private final ResultFuture<T> future = new ResultFuture<T>();
+        private boolean prepared;
+
+        AsyncExecution(Request<?> request,
+                HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+                HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+                ExecutionContext executionContext, Executor executor) {
+            this.request = request;
+            this.responseHandler = responseHandler;
+            this.errorResponseHandler = errorResponseHandler;
+            this.executionContext = executionContext;
+            this.executor = executor;
+        }
+
+        void submit() {
             try {
-                if (retries > 0) pauseExponentially(retries, exception);
-                exception = null;
-                retries++;
+                executor.execute(this);
+            } catch (RejectedExecutionException ree) {
+                fail(new AmazonClientException("Unable to submit request for execution: " + ree.getMessage(), ree));
+            }
+        }
 
-                response = httpClient.execute(httpRequest);
-                if (isRequestSuccessful(response)) {
-                    /*
-                     * If we get back any 2xx status code, then we know we should
-                     * treat the service call as successful.
-                     */
-                    leaveHttpConnectionOpen = responseHandler.needsConnectionLeftOpen();
-                    return handleResponse(request, responseHandler, httpRequest, response, executionContext);
-                } else if (isTemporaryRedirect(response)) {
-                    /*
-                     * S3 sends 307 Temporary Redirects if you try to delete an
-                     * EU bucket from the US endpoint. If we get a 307, we'll
-                     * point the HTTP method to the redirected location, and let
-                     * the next retry deliver the request to the right location.
-                     */
-                    Header[] locationHeaders = response.getHeaders("location");
-                    String redirectedLocation = locationHeaders[0].getValue();
-                    log.debug("Redirecting to: " + redirectedLocation);
-                    redirectedURI = URI.create(redirectedLocation);
-                    httpRequest.setURI(redirectedURI);
-                } else {
-                    leaveHttpConnectionOpen = errorResponseHandler.needsConnectionLeftOpen();
-                    exception = handleErrorResponse(request, errorResponseHandler, httpRequest, response);
-
-                    if (!shouldRetry(httpRequest, exception, retries)) {
-                        throw exception;
+        public void run() {
+            if (future.isDone()) return;
+
+            try {
+                if (!prepared) {
+                    prepareRequest(request, state);
+                    prepared = true;
+                }
+
+                if (!state.rateLimitReserved) {
+                    long rateLimitDelay = reserveRateLimit(request, state);
+                    if (rateLimitDelay > 0) {
+                        scheduleSubmit(rateLimitDelay);
+                        return;
                     }
                 }
-            } catch (IOException ioe) {
-                log.warn("Unable to execute HTTP request: " + ioe.getMessage());
 
-                if (!shouldRetry(httpRequest, ioe, retries)) {
-                    throw new AmazonClientException("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
+                if (executeAttempt(request, responseHandler, errorResponseHandler, executionContext, state)) {
+                    recordCompletion(state, true);
+                    afterResponse(request, state.result, executionContext);
+                    future.setResult(state.result);
+                    return;
                 }
-            } finally {
-                /*
-                 * Some response handlers need to manually manage the HTTP
-                 * connection and will take care of releasing the connection on
-                 * their own, but if this response handler doesn't need the
-                 * connection left open, we go ahead and release the it to free
-                 * up resources.
-                 */
-                if (!leaveHttpConnectionOpen) {
-                	try {response.getEntity().getContent().close();} catch (Throwable t) {}
+
+                long delay = computeBackoffDelay(request, state);
+                log.debug("Retriable error detected, will retry in " + delay + "ms, attempt number: " + state.retries);
+                scheduleSubmit(delay);
+            } catch (AmazonClientException ace) {
+                fail(ace);
+            } catch (Throwable t) {
+                fail(new AmazonClientException("Unable to execute HTTP request: " + t.getMessage(), t));
+            }
+        }
+
+        private void scheduleSubmit(long delay) {
+            getRetryTimer().schedule(new Runnable() {
+                public void run() {
+                    submit();
                 }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private void fail(AmazonClientException e) {
+            recordCompletion(state, false);
+            try {
+                afterError(request, e, executionContext);
+            } finally {
+                future.setFailure(e);
             }
         }
     }
-    
+
+    /**
+     * Future whose result is set explicitly by an asynchronous request
+     * execution rather than computed by a wrapped task.
+     */
+    private static class ResultFuture<T> extends FutureTask<T> {
+        private static final Callable<Object> NO_OP = new Callable<Object>() {
+            public Object call() {
+                return null;
+            }
+        };
+
+        @SuppressWarnings("unchecked")
+        ResultFuture() {
+            super((Callable<T>)NO_OP);
+        }
+
+        void setResult(T result) {
+            set(result);
+        }
+
+        void setFailure(Throwable t) {
+            setException(t);
+        }
+    }
+
+    /**
+     * Returns the timer shared by all clients for scheduling retries of
+     * asynchronously executed requests.
+     */
+    private static ScheduledExecutorService getRetryTimer() {
+        return RetryTimerHolder.RETRY_TIMER;
+    }
+
+    /** Lazily creates the shared retry timer on first use. */
+    private static class RetryTimerHolder {
+        static final ScheduledExecutorService RETRY_TIMER =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "aws-sdk-retry-timer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    }
+
     /**
      * Applies any additional options set in the request.
      */
@@ -317,14 +657,18 @@ public class AmazonHttpClient {
      * Once a client has been shutdown, it cannot be used to make more requests.
      */
     public void shutdown() {
+        IdleConnectionReaper.removeConnectionManager(httpClient.getConnectionManager());
         httpClient.getConnectionManager().shutdown();
     }
 
     /**
-     * Returns true if a failed request should be retried.
+     * Returns true if a failed request should be retried. A request is retried
+     * if it hasn't reached the configured maximum retry count, the retry
+     * policy's condition accepts the failure, and the client's retry budget
+     * has enough tokens left for another retry.
      *
-     * @param method
-     *            The current HTTP method being executed.
+     * @param request
+     *            The request being executed.
      * @param exception
      *            The exception from the failed request.
      * @param retries
@@ -332,43 +676,31 @@ public class AmazonHttpClient {
      *
      * @return True if the failed request should be retried.
      */
-    private boolean shouldRetry(HttpRequestBase method, Exception exception, int retries) {
+    private boolean shouldRetry(Request<?> request, AmazonClientException exception, int retries) {
         if (retries > config.getMaxErrorRetry()) return false;
 
-        if (exception instanceof NoHttpResponseException
-            || exception instanceof SocketException
-            || exception instanceof SocketTimeoutException) {
-            log.debug("Retrying on " + exception.getClass().getName()
-                    + ": " + exception.getMessage());
-            return true;
+        RetryPolicy retryPolicy = getRetryPolicy();
+        if (!retryPolicy.getRetryCondition().shouldRetry(request.getOriginalRequest(), exception, retries)) {
+            return false;
         }
 
-        if (exception instanceof AmazonServiceException) {
-            AmazonServiceException ase = (AmazonServiceException)exception;
-
-            /*
-             * For 500 internal server errors and 503 service
-             * unavailable errors, we want to retry, but we need to use
-             * an exponential back-off strategy so that we don't overload
-             * a server with a flood of retries. If we've surpassed our
-             * retry limit we handle the error response as a non-retryable
-             * error and go ahead and throw it back to the user as an exception.
-             */
-            if (ase.getStatusCode() == HttpStatus.SC_INTERNAL_SERVER_ERROR
-                || ase.getStatusCode() == HttpStatus.SC_SERVICE_UNAVAILABLE) {
-                return true;
-            }
-
-            /*
-             * Throttling is reported as a 400 error from newer services. To try
-             * and smooth out an occasional throttling error, we'll pause and
-             * retry, hoping that the pause is long enough for the request to
-             * get through the next time.
-             */
-            if (isThrottlingException(ase)) return true;
+        if (!retryBudget.tryAcquireRetry()) {
+            log.debug("Retry budget exhausted, not retrying on " + exception.getClass().getName()
+                    + ": " + exception.getMessage());
+            return false;
         }
 
-        return false;
+        log.debug("Retrying on " + exception.getClass().getName() + ": " + exception.getMessage());
+        return true;
+    }
+
+    /**
+     * Returns the configured retry policy, or the default policy if none is
+     * configured.
+     */
+    private RetryPolicy getRetryPolicy() {
+        RetryPolicy retryPolicy = config.getRetryPolicy();
+        return (retryPolicy == null) ? PredefinedRetryPolicies.DEFAULT : retryPolicy;
     }
 
     private boolean isTemporaryRedirect(org.apache.http.HttpResponse response) {
@@ -534,24 +866,70 @@ public class AmazonHttpClient {
     }
 
     /**
-     * Exponential sleep on failed request to avoid flooding a service with
-     * retries.
+     * Reserves permission from the configured rate limiter, if any, to send
+     * the next attempt of a request.
      *
-     * @param retries
-     *            Current retry count.
-     * @param previousException
-     *            Exception information for the previous attempt, if any.
+     * @return The time, in milliseconds, to wait before sending the attempt.
      */
-    private void pauseExponentially(int retries, AmazonServiceException previousException) {
-        long scaleFactor = 300;
-        if ( isThrottlingException(previousException) ) {
-            scaleFactor = 500 + random.nextInt(100);
+    private long reserveRateLimit(Request<?> request, ExecutionState<?> state) {
+        state.rateLimitReserved = true;
+
+        AdaptiveRateLimiter rateLimiter = config.getRateLimiter();
+        if (rateLimiter == null) return 0;
+        return rateLimiter.reserve(getRateLimitKey(request));
+    }
+
+    /**
+     * Reports the outcome of an attempt to the configured rate limiter, if
+     * any, so that throttling slows down other requests to the same endpoint
+     * and operation, and successes let them speed up again.
+     *
+     * @param request
+     *            The request that was attempted.
+     * @param ase
+     *            The error returned by the service, or null if the attempt
+     *            succeeded.
+     */
+    private void recordRateLimitOutcome(Request<?> request, AmazonServiceException ase) {
+        AdaptiveRateLimiter rateLimiter = config.getRateLimiter();
+        if (rateLimiter == null) return;
+
+        if (ase == null) {
+            rateLimiter.onSuccess(getRateLimitKey(request));
+        } else if (RetryUtils.isRateLimitingException(ase)
+                || ase.getStatusCode() == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+            rateLimiter.onThrottle(getRateLimitKey(request));
         }
-        long delay = (long) (Math.pow(2, retries) * scaleFactor);
+    }
 
-        delay = Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
-        log.debug("Retriable error detected, will retry in " + delay + "ms, attempt number: " + retries);
+    /**
+     * Returns the key grouping a request with others sent to the same
+     * endpoint and operation for rate limiting.
+     */
+    private static String getRateLimitKey(Request<?> request) {
+        String operation = request.getParameters().get("Action");
+        if (operation == null && request.getOriginalRequest() != null) {
+            operation = request.getOriginalRequest().getClass().getSimpleName();
+        }
+        return request.getEndpoint().getHost() + "/" + operation;
+    }
+
+    /**
+     * Sleeps before retrying a failed request, to avoid flooding a service
+     * with retries.
+     *
+     * @param request
+     *            The request being retried.
+     * @param state
+     *            The execution state of the request being retried.
+     */
+    private void pauseBeforeRetry(Request<?> request, ExecutionState<?> state) {
+        long delay = computeBackoffDelay(request, state);
+        log.debug("Retriable error detected, will retry in " + delay + "ms, attempt number: " + state.retries);
+        sleep(delay);
+    }
 
+    private static void sleep(long delay) {
         try {
             Thread.sleep(delay);
         } catch (InterruptedException e) {
@@ -560,17 +938,20 @@ public class AmazonHttpClient {
     }
 
     /**
-     * Returns true if the specified exception is a throttling error.
+     * Returns the delay, in milliseconds, to wait before retrying a failed
+     * request, as decided by the configured retry policy.
      *
-     * @param ase
-     *            The exception to test.
-     *
-     * @return True if the exception resulted from a throttling error message
-     *         from a service, otherwise false.
+     * @param request
+     *            The request being retried.
+     * @param state
+     *            The execution state of the request being retried.
      */
-    private boolean isThrottlingException(AmazonServiceException ase) {
-        if (ase == null) return false;
-        return "Throttling".equals(ase.getErrorCode());
+    private long computeBackoffDelay(Request<?> request, ExecutionState<?> state) {
+        long delay = getRetryPolicy().getBackoffStrategy().delayBeforeNextRetry(
+                request.getOriginalRequest(), state.exception, state.retries, state.lastBackoffDelay);
+        delay = Math.max(0, delay);
+        state.lastBackoffDelay = delay;
+        return delay;
     }
 
     @Override
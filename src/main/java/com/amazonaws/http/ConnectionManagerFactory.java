@@ -14,6 +14,9 @@
  */
 package com.amazonaws.http;
 
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.conn.SchemeRegistryFactory;
 import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
 
 import org.apache.http.params.HttpParams;
@@ -23,7 +26,8 @@ import com.amazonaws.ClientConfiguration;
 class ConnectionManagerFactory {
 
     public static ThreadSafeClientConnManager createThreadSafeClientConnManager( ClientConfiguration config, HttpParams httpClientParams ) {
-        ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager();
+        ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager(
+                SchemeRegistryFactory.createDefault(), config.getConnectionTTL(), TimeUnit.MILLISECONDS);
         connectionManager.setDefaultMaxPerRoute(config.getMaxConnections());
         connectionManager.setMaxTotal(config.getMaxConnections());
 
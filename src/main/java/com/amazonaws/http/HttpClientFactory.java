@@ -41,6 +41,7 @@ import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 import org.apache.http.params.HttpProtocolParams;
+import org.apache.http.protocol.HttpRequestExecutor;
 
 import com.amazonaws.ClientConfiguration;
 
@@ -69,7 +70,7 @@ class HttpClientFactory {
         HttpProtocolParams.setUserAgent(httpClientParams, userAgent);
         HttpConnectionParams.setConnectionTimeout(httpClientParams, config.getConnectionTimeout());
         HttpConnectionParams.setSoTimeout(httpClientParams, config.getSocketTimeout());
-        HttpConnectionParams.setStaleCheckingEnabled(httpClientParams, true);
+        HttpConnectionParams.setStaleCheckingEnabled(httpClientParams, config.useStaleConnectionCheck());
         HttpConnectionParams.setTcpNoDelay(httpClientParams, true);
 
         int socketSendBufferSizeHint = config.getSocketBufferSizeHints()[0];
@@ -81,7 +82,12 @@ class HttpClientFactory {
 
         /* Set connection manager */
         ThreadSafeClientConnManager connectionManager = ConnectionManagerFactory.createThreadSafeClientConnManager( config, httpClientParams );
-        DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager, httpClientParams);
+        DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager, httpClientParams) {
+            @Override
+            protected HttpRequestExecutor createRequestExecutor() {
+                return new PhaseTimingRequestExecutor();
+            }
+        };
 
 		/*
 		 * If SSL cert checking for endpoints has been explicitly disabled,
@@ -17,22 +17,17 @@ package com.amazonaws.http;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map.Entry;
 
 import org.apache.http.HttpEntity;
-import org.apache.http.NameValuePair;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
-import org.apache.http.client.utils.URLEncodedUtils;
 import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.params.CoreProtocolPNames;
 
 import com.amazonaws.AmazonClientException;
@@ -190,20 +185,9 @@ class HttpRequestFactory {
 	 *         string for the parameters present in the specified request.
 	 */
 	private String encodeParameters(Request<?> request) {
-		List<NameValuePair> nameValuePairs = null;
-		if (request.getParameters().size() > 0) {
-			nameValuePairs = new ArrayList<NameValuePair>(request.getParameters().size());
-			for (Entry<String, String> entry : request.getParameters().entrySet()) {
-				nameValuePairs.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
-			}
-		}
+		if (request.getParameters().isEmpty()) return null;
 
-		String encodedParams = null;
-		if (nameValuePairs != null) {
-			encodedParams = URLEncodedUtils.format(nameValuePairs, DEFAULT_ENCODING);
-		}
-		
-		return encodedParams;
+		return HttpUtils.encodeParameters(request.getParameters());
 	}
         
 	/** Appends the given user-agent string to the client's existing one and returns it. */
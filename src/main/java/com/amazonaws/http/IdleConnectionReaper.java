@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.conn.ClientConnectionManager;
+
+/**
+ * Daemon thread that periodically closes expired and idle connections in the
+ * connection managers of all registered HTTP clients.
+ * <p>
+ * When connections are released, the connection manager leaves them open so
+ * they can be reused. Connections that sit idle for too long end up in
+ * CLOSE_WAIT once the remote side drops them, so they need to be closed out.
+ * Doing that from a single background thread keeps the sweep, which locks and
+ * walks the connection pool, off the request path.
+ */
+public final class IdleConnectionReaper extends Thread {
+
+    /** How often the reaper sweeps the registered connection managers. */
+    private static final int PERIOD_MILLISECONDS = 5 * 1000;
+
+    private static final Log log = LogFactory.getLog(IdleConnectionReaper.class);
+
+    /** Registered connection managers, mapped to their max idle time in milliseconds. */
+    private static final Map<ClientConnectionManager, Long> connectionManagers =
+        new ConcurrentHashMap<ClientConnectionManager, Long>();
+
+    /** The shared reaper thread, started when the first manager is registered. */
+    private static IdleConnectionReaper instance;
+
+    private volatile boolean shuttingDown;
+
+    private IdleConnectionReaper() {
+        super("java-sdk-http-connection-reaper");
+        setDaemon(true);
+    }
+
+    /**
+     * Registers the specified connection manager with the reaper, starting the
+     * reaper thread if it isn't already running.
+     *
+     * @param connectionManager
+     *            The connection manager to periodically sweep.
+     * @param maxIdleMillis
+     *            The time, in milliseconds, a connection may sit idle in the
+     *            pool before being closed.
+     */
+    static synchronized void registerConnectionManager(ClientConnectionManager connectionManager, long maxIdleMillis) {
+        if (instance == null) {
+            instance = new IdleConnectionReaper();
+            instance.start();
+        }
+        connectionManagers.put(connectionManager, maxIdleMillis);
+    }
+
+    /**
+     * Removes the specified connection manager from the reaper.
+     *
+     * @param connectionManager
+     *            The connection manager to stop sweeping.
+     */
+    static synchronized void removeConnectionManager(ClientConnectionManager connectionManager) {
+        connectionManagers.remove(connectionManager);
+    }
+
+    /**
+     * Stops the reaper thread. Connection managers registered afterwards start
+     * a new reaper thread. Intended for environments, such as application
+     * containers, where lingering threads must be cleaned up explicitly.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.shuttingDown = true;
+            instance.interrupt();
+            instance = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (!shuttingDown) {
+            try {
+                Thread.sleep(PERIOD_MILLISECONDS);
+
+                for (Map.Entry<ClientConnectionManager, Long> entry : connectionManagers.entrySet()) {
+                    try {
+                        ClientConnectionManager connectionManager = entry.getKey();
+                        connectionManager.closeExpiredConnections();
+                        connectionManager.closeIdleConnections(entry.getValue(), TimeUnit.MILLISECONDS);
+                    } catch (Exception e) {
+                        log.warn("Unable to close idle connections", e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Either shutting down, or spuriously woken; the loop condition decides
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import com.amazonaws.metrics.AwsSdkMetrics;
+
+/**
+ * HttpRequestExecutor that notes when a request starts and finishes being
+ * sent, and when its response headers arrive, so the time spent in each of
+ * those phases can be recorded in the SDK's metrics. HttpClient runs the
+ * executor on the thread calling HttpClient.execute, so the times are kept in
+ * a reusable, per-thread {@link PhaseTimes} object that the caller reads once
+ * execute returns.
+ */
+class PhaseTimingRequestExecutor extends HttpRequestExecutor {
+
+    private static final ThreadLocal<PhaseTimes> phaseTimes = new ThreadLocal<PhaseTimes>() {
+        @Override
+        protected PhaseTimes initialValue() {
+            return new PhaseTimes();
+        }
+    };
+
+    /**
+     * Clears and returns the calling thread's phase times, ready for the
+     * thread to execute a request.
+     */
+    static PhaseTimes startTiming() {
+        PhaseTimes times = phaseTimes.get();
+        times.sendStart = 0;
+        times.sendEnd = 0;
+        times.responseStart = 0;
+        return times;
+    }
+
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context)
+            throws IOException, HttpException {
+        if (!AwsSdkMetrics.isEnabled()) return super.doSendRequest(request, conn, context);
+
+        PhaseTimes times = phaseTimes.get();
+        times.sendStart = System.nanoTime();
+        try {
+            return super.doSendRequest(request, conn, context);
+        } finally {
+            times.sendEnd = System.nanoTime();
+        }
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context)
+            throws HttpException, IOException {
+        HttpResponse response = super.doReceiveResponse(request, conn, context);
+        if (AwsSdkMetrics.isEnabled()) phaseTimes.get().responseStart = System.nanoTime();
+        return response;
+    }
+
+    /**
+     * Times, from System.nanoTime, at which the phases of the last request
+     * executed by a thread ended. A time of 0 means the phase wasn't reached.
+     */
+    static class PhaseTimes {
+        /** When a connection was ready and the request started being sent */
+        long sendStart;
+
+        /** When the request had been sent */
+        long sendEnd;
+
+        /** When the response status line and headers had been read */
+        long responseStart;
+    }
+}
@@ -43,6 +43,13 @@ class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
     /** The InputStream containing the content to write out */
     private InputStream content;
 
+    /**
+     * The size of the buffer used to copy content to the connection. Large
+     * writes bypass the connection's own small buffer and go straight to the
+     * socket, instead of being copied through it a couple of KB at a time.
+     */
+    private static final int BUFFER_SIZE = 128 * 1024;
+
     /** Shared logger for more debugging information */
     private static final Log log = LogFactory.getLog(AmazonHttpClient.class);
 
@@ -113,8 +120,8 @@ class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
 
     /**
      * Resets the underlying InputStream if this isn't the first attempt to
-     * write out the request, otherwise simply delegates to
-     * InputStreamRequestEntity to write out the data.
+     * write out the request, then copies the content to the output, stopping
+     * at the content length if one was specified.
      *
      * @see org.apache.commons.httpclient.methods.RequestEntity#writeRequest(java.io.OutputStream)
      */
@@ -123,7 +130,17 @@ class RepeatableInputStreamRequestEntity extends BasicHttpEntity {
         if (!firstAttempt && isRepeatable()) content.reset();
 
         firstAttempt = false;
-        inputStreamRequestEntity.writeTo(output);
+
+        long remaining = getContentLength();
+        byte[] buffer = new byte[(int)Math.min(BUFFER_SIZE, (remaining < 0) ? BUFFER_SIZE : Math.max(remaining, 1))];
+        while (remaining != 0) {
+            int length = (remaining < 0) ? buffer.length : (int)Math.min(buffer.length, remaining);
+            int bytesRead = content.read(buffer, 0, length);
+            if (bytesRead == -1) break;
+            output.write(buffer, 0, bytesRead);
+            if (remaining > 0) remaining -= bytesRead;
+        }
+        output.flush();
     }
 
 }
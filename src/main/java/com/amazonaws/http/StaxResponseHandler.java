@@ -16,8 +16,8 @@ package com.amazonaws.http;
 
 import java.util.Map;
 
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -44,20 +44,13 @@ public class StaxResponseHandler<T> implements HttpResponseHandler<AmazonWebServ
     /** Shared logger for profiling information */
     private static final Log log = LogFactory.getLog("com.amazonaws.request");
 
-    /** Shared factory for creating XML event readers */
+    /**
+     * Shared factory for creating XML stream readers. Character coalescing
+     * isn't needed, since element text is read in one piece with
+     * XMLStreamReader.getElementText.
+     */
     private static XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
 
-    static {
-        /**
-         * It's important that character event coalescing is enabled so that
-         * when we pull character data out of an element, we get all of it in
-         * one event and don't miss any. Without coalescing turned on, some
-         * values (ex: newlines) can cause the data to be split into multiple
-         * character events.
-         */
-        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
-    }
-
 
     /**
      * Constructs a new response handler that will use the specified StAX
@@ -89,10 +82,10 @@ public class StaxResponseHandler<T> implements HttpResponseHandler<AmazonWebServ
      */
     public AmazonWebServiceResponse<T> handle(HttpResponse response) throws Exception {
         log.trace("Parsing service response XML");
-        XMLEventReader eventReader = xmlInputFactory.createXMLEventReader(response.getContent());
+        XMLStreamReader streamReader = xmlInputFactory.createXMLStreamReader(response.getContent());
         try {
             AmazonWebServiceResponse<T> awsResponse = new AmazonWebServiceResponse<T>();
-            StaxUnmarshallerContext unmarshallerContext = new StaxUnmarshallerContext(eventReader);
+            StaxUnmarshallerContext unmarshallerContext = new StaxUnmarshallerContext(streamReader);
             unmarshallerContext.registerMetadataExpression("ResponseMetadata/RequestId", 2, ResponseMetadata.AWS_REQUEST_ID);
             unmarshallerContext.registerMetadataExpression("requestId", 2, ResponseMetadata.AWS_REQUEST_ID);
             registerAdditionalMetadataExpressions(unmarshallerContext);
@@ -106,7 +99,7 @@ public class StaxResponseHandler<T> implements HttpResponseHandler<AmazonWebServ
             log.trace("Done parsing service response");
             return awsResponse;
         } finally {
-            try {eventReader.close();} catch (Exception e) {}
+            try {streamReader.close();} catch (Exception e) {}
         }
     }
 
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.amazonaws.AmazonWebServiceRequest;
+
+/**
+ * Entry point to the per-operation metrics recorded by the AWS client
+ * libraries. For every service and operation, the clients record request,
+ * failure, retry and throttle counts, bytes sent and received, and latency
+ * histograms for each {@link RequestPhase} of a request.
+ * <p>
+ * Metrics are disabled by default, and can be enabled either by calling
+ * {@link #enable()} or by setting the {@value #ENABLE_METRICS_SYSTEM_PROPERTY}
+ * system property. Recorded metrics can be read directly through
+ * {@link #getAllOperationMetrics()}, or exported by registering a
+ * {@link MetricsExporter} such as {@link JmxMetricsExporter}.
+ */
+public final class AwsSdkMetrics {
+
+    /** System property that enables metrics when the SDK is loaded. */
+    public static final String ENABLE_METRICS_SYSTEM_PROPERTY = "com.amazonaws.sdk.enableMetrics";
+
+    /** Service name used for requests without a service name. */
+    private static final String UNKNOWN_SERVICE = "Unknown";
+
+    /** Operation name used for requests without an original request object. */
+    private static final String UNKNOWN_OPERATION = "Unknown";
+
+    private static volatile boolean enabled =
+        System.getProperty(ENABLE_METRICS_SYSTEM_PROPERTY) != null;
+
+    /**
+     * Metrics by service name and original request class. Keying on the class
+     * means looking up an existing operation doesn't build any strings.
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<Class<?>, OperationMetrics>> metrics =
+        new ConcurrentHashMap<String, ConcurrentMap<Class<?>, OperationMetrics>>();
+
+    private static final List<MetricsExporter> exporters = new CopyOnWriteArrayList<MetricsExporter>();
+
+    private AwsSdkMetrics() {}
+
+    /**
+     * Returns true if the AWS client libraries are recording metrics.
+     *
+     * @return True if metrics are being recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts recording metrics for requests sent after this call.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Stops recording metrics. Metrics already recorded are kept.
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Returns the metrics recorded for every operation so far.
+     *
+     * @return The metrics recorded for every operation so far.
+     */
+    public static List<OperationMetrics> getAllOperationMetrics() {
+        List<OperationMetrics> all = new ArrayList<OperationMetrics>();
+        for (ConcurrentMap<Class<?>, OperationMetrics> operations : metrics.values()) {
+            all.addAll(operations.values());
+        }
+        return all;
+    }
+
+    /**
+     * Registers an exporter, and immediately tells it about the metrics of
+     * every operation recorded so far.
+     *
+     * @param exporter
+     *            The exporter to register.
+     */
+    public static synchronized void addExporter(MetricsExporter exporter) {
+        exporters.add(exporter);
+        for (OperationMetrics operationMetrics : getAllOperationMetrics()) {
+            exporter.operationMetricsAdded(operationMetrics);
+        }
+    }
+
+    /**
+     * Removes a previously registered exporter and shuts it down.
+     *
+     * @param exporter
+     *            The exporter to remove.
+     */
+    public static synchronized void removeExporter(MetricsExporter exporter) {
+        if (exporters.remove(exporter)) exporter.shutdown();
+    }
+
+    /**
+     * Returns the metrics to update for a request, creating them the first
+     * time a request for an operation is seen. This method is only intended
+     * for internal use inside the AWS client libraries.
+     *
+     * @param serviceName
+     *            The name of the service the request is sent to.
+     * @param originalRequest
+     *            The original, user facing request object, whose class
+     *            identifies the operation. May be null.
+     *
+     * @return The metrics for the request's operation, or null if metrics
+     *         are disabled.
+     */
+    public static OperationMetrics getOperationMetrics(String serviceName, AmazonWebServiceRequest originalRequest) {
+        if (!enabled) return null;
+        if (serviceName == null) serviceName = UNKNOWN_SERVICE;
+
+        Class<?> requestClass = (originalRequest == null) ? AmazonWebServiceRequest.class : originalRequest.getClass();
+        ConcurrentMap<Class<?>, OperationMetrics> operations = metrics.get(serviceName);
+        if (operations != null) {
+            OperationMetrics operationMetrics = operations.get(requestClass);
+            if (operationMetrics != null) return operationMetrics;
+        }
+        return createOperationMetrics(serviceName, requestClass);
+    }
+
+    private static synchronized OperationMetrics createOperationMetrics(String serviceName, Class<?> requestClass) {
+        ConcurrentMap<Class<?>, OperationMetrics> operations = metrics.get(serviceName);
+        if (operations == null) {
+            operations = new ConcurrentHashMap<Class<?>, OperationMetrics>();
+            metrics.put(serviceName, operations);
+        }
+
+        OperationMetrics operationMetrics = operations.get(requestClass);
+        if (operationMetrics == null) {
+            operationMetrics = new OperationMetrics(serviceName, getOperationName(requestClass));
+            operations.put(requestClass, operationMetrics);
+            for (MetricsExporter exporter : exporters) {
+                exporter.operationMetricsAdded(operationMetrics);
+            }
+        }
+        return operationMetrics;
+    }
+
+    /**
+     * Returns the operation name for a request class, such as
+     * DescribeInstances for DescribeInstancesRequest.
+     */
+    private static String getOperationName(Class<?> requestClass) {
+        if (requestClass == AmazonWebServiceRequest.class) return UNKNOWN_OPERATION;
+
+        String name = requestClass.getSimpleName();
+        if (name.endsWith("Request") && name.length() > "Request".length()) {
+            name = name.substring(0, name.length() - "Request".length());
+        }
+        return name;
+    }
+}
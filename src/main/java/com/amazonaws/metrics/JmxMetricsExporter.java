@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Exports the metrics of each operation as an MBean, named
+ * <code>com.amazonaws.metrics:type=Operation,service=...,operation=...</code>,
+ * so they can be watched with JConsole or any other JMX client. See
+ * {@link OperationMetricsMBean} for the attributes of each MBean.
+ */
+public class JmxMetricsExporter implements MetricsExporter {
+
+    private static final Log log = LogFactory.getLog(JmxMetricsExporter.class);
+
+    /** The domain of the names of the exported MBeans. */
+    public static final String DOMAIN = "com.amazonaws.metrics";
+
+    private final MBeanServer mbeanServer;
+
+    private final List<ObjectName> registeredNames = new ArrayList<ObjectName>();
+
+    /**
+     * Constructs a new exporter that registers MBeans with the platform MBean
+     * server.
+     */
+    public JmxMetricsExporter() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Constructs a new exporter that registers MBeans with the specified MBean
+     * server.
+     *
+     * @param mbeanServer
+     *            The MBean server to register MBeans with.
+     */
+    public JmxMetricsExporter(MBeanServer mbeanServer) {
+        this.mbeanServer = mbeanServer;
+    }
+
+    public synchronized void operationMetricsAdded(OperationMetrics metrics) {
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=Operation"
+                    + ",service=" + ObjectName.quote(metrics.getServiceName())
+                    + ",operation=" + ObjectName.quote(metrics.getOperationName()));
+            mbeanServer.registerMBean(new OperationMetricsMBean(metrics), name);
+            registeredNames.add(name);
+        } catch (Exception e) {
+            log.warn("Unable to register metrics MBean for " + metrics.getServiceName()
+                    + " " + metrics.getOperationName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    public synchronized void shutdown() {
+        for (ObjectName name : registeredNames) {
+            try {
+                mbeanServer.unregisterMBean(name);
+            } catch (Exception e) {
+                log.debug("Unable to unregister metrics MBean " + name + ": " + e.getMessage());
+            }
+        }
+        registeredNames.clear();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies with log-linear buckets, in the style of HdrHistogram.
+ * Latencies are recorded with microsecond resolution, and every power of two
+ * is split into 32 equally sized buckets, so any reported percentile is within
+ * about 3% of the true value. Latencies up to about 19 hours are tracked;
+ * longer ones are counted in the last bucket.
+ * <p>
+ * Recording a latency is a few atomic operations on preallocated counters,
+ * without locking or allocating any objects, so histograms can be updated
+ * from any number of threads. Reads aren't synchronized with recording, so a
+ * percentile read while latencies are being recorded may not reflect the very
+ * latest values.
+ */
+public class LatencyHistogram {
+
+    /** The number of bits of precision kept for each recorded value */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** The number of bits in the largest tracked value, in microseconds */
+    private static final int MAX_VALUE_BITS = 36;
+
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+
+    private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records a single latency in this histogram.
+     *
+     * @param nanos
+     *            The latency to record, in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        if (micros > MAX_VALUE) micros = MAX_VALUE;
+
+        counts.incrementAndGet(bucketIndex(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /**
+     * Returns the number of latencies recorded in this histogram.
+     *
+     * @return The number of latencies recorded in this histogram.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the largest latency recorded in this histogram, in nanoseconds.
+     *
+     * @return The largest latency recorded, or 0 if none have been recorded.
+     */
+    public long getMaxNanos() {
+        return maxMicros.get() * 1000;
+    }
+
+    /**
+     * Returns the mean of the latencies recorded in this histogram, in
+     * nanoseconds.
+     *
+     * @return The mean latency, or 0 if none have been recorded.
+     */
+    public double getMeanNanos() {
+        long n = count.get();
+        return (n == 0) ? 0 : totalMicros.get() * 1000.0 / n;
+    }
+
+    /**
+     * Returns the latency, in nanoseconds, below which the specified
+     * percentage of the recorded latencies fall.
+     *
+     * @param percentile
+     *            The percentile to return, between 0 and 100, such as 99.9.
+     *
+     * @return The latency at the specified percentile, or 0 if no latencies
+     *         have been recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        return getSnapshot().getPercentileNanos(percentile);
+    }
+
+    /**
+     * Returns a copy of the latencies recorded so far. Subtracting an earlier
+     * snapshot from a later one gives the latencies recorded in between, which
+     * is how exporters that publish periodic statistics use this method.
+     *
+     * @return A snapshot of the latencies recorded so far.
+     */
+    public Snapshot getSnapshot() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return new Snapshot(snapshot, totalMicros.get(), maxMicros.get());
+    }
+
+    /**
+     * Immutable copy of the latencies in a histogram at some point in time, or
+     * of the latencies recorded between two points in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+
+        private Snapshot(long[] counts, long totalMicros, long maxMicros) {
+            this.counts = counts;
+            this.totalMicros = totalMicros;
+
+            long n = 0;
+            int highest = -1;
+            for (int i = 0; i < counts.length; i++) {
+                n += counts[i];
+                if (counts[i] > 0) highest = i;
+            }
+            this.count = n;
+            this.maxMicros = (highest < 0) ? 0 : Math.min(maxMicros, highestValueInBucket(highest));
+        }
+
+        /**
+         * Returns the number of latencies in this snapshot.
+         *
+         * @return The number of latencies in this snapshot.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the sum of the latencies in this snapshot, in nanoseconds.
+         *
+         * @return The sum of the latencies in this snapshot.
+         */
+        public long getTotalNanos() {
+            return totalMicros * 1000;
+        }
+
+        /**
+         * Returns the smallest latency in this snapshot, in nanoseconds, to
+         * the precision of the histogram's buckets.
+         *
+         * @return The smallest latency, or 0 if the snapshot is empty.
+         */
+        public long getMinNanos() {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) return lowestValueInBucket(i) * 1000;
+            }
+            return 0;
+        }
+
+        /**
+         * Returns the largest latency in this snapshot, in nanoseconds. For a
+         * snapshot of a whole histogram this is exact; for the difference
+         * between two snapshots it's to the precision of the histogram's
+         * buckets.
+         *
+         * @return The largest latency, or 0 if the snapshot is empty.
+         */
+        public long getMaxNanos() {
+            return maxMicros * 1000;
+        }
+
+        /**
+         * Returns the latency, in nanoseconds, below which the specified
+         * percentage of the latencies in this snapshot fall.
+         *
+         * @param percentile
+         *            The percentile to return, between 0 and 100, such as
+         *            99.9.
+         *
+         * @return The latency at the specified percentile, or 0 if the
+         *         snapshot is empty.
+         */
+        public long getPercentileNanos(double percentile) {
+            if (count == 0) return 0;
+
+            double fraction = Math.min(100, Math.max(0, percentile)) / 100;
+            long target = Math.max(1, (long)Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(highestValueInBucket(i), maxMicros) * 1000;
+                }
+            }
+            return getMaxNanos();
+        }
+
+        /**
+         * Returns the latencies in this snapshot that aren't in the specified
+         * earlier snapshot of the same histogram.
+         *
+         * @param earlier
+         *            An earlier snapshot of the same histogram.
+         *
+         * @return A snapshot of the latencies recorded since the earlier
+         *         snapshot was taken.
+         */
+        public Snapshot minus(Snapshot earlier) {
+            long[] difference = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                difference[i] = Math.max(0, counts[i] - earlier.counts[i]);
+            }
+            // The largest latency seen so far bounds the largest one in between
+            return new Snapshot(difference, Math.max(0, totalMicros - earlier.totalMicros), maxMicros);
+        }
+    }
+
+    /**
+     * Returns the index of the bucket holding the specified value. Values
+     * below SUB_BUCKET_COUNT each get their own bucket; larger values are
+     * grouped by their highest set bit, then by the next SUB_BUCKET_BITS bits.
+     */
+    private static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKET_COUNT) return (int)micros;
+
+        int highestBit = 63 - Long.numberOfLeadingZeros(micros);
+        int group = highestBit - SUB_BUCKET_BITS + 1;
+        int subBucket = (int)(micros >>> (highestBit - SUB_BUCKET_BITS)) - SUB_BUCKET_COUNT;
+        return group * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long lowestValueInBucket(int index) {
+        int group = index / SUB_BUCKET_COUNT;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        if (group == 0) return subBucket;
+        return (long)(SUB_BUCKET_COUNT + subBucket) << (group - 1);
+    }
+
+    private static long highestValueInBucket(int index) {
+        if (index == BUCKET_COUNT - 1) return MAX_VALUE;
+        return lowestValueInBucket(index + 1) - 1;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+/**
+ * Makes the metrics recorded by the AWS client libraries available outside of
+ * the process, such as through JMX or a monitoring service. Exporters are
+ * registered through {@link AwsSdkMetrics#addExporter(MetricsExporter)}.
+ * <p>
+ * Exporters are told about each operation's metrics once, and read the live,
+ * cumulative values from them whenever they need to; nothing is pushed to
+ * exporters as requests are recorded.
+ */
+public interface MetricsExporter {
+
+    /**
+     * Called once for each operation's metrics, either when the exporter is
+     * registered or when the first request for a new operation is recorded.
+     *
+     * @param metrics
+     *            The metrics for an operation.
+     */
+    public void operationMetricsAdded(OperationMetrics metrics);
+
+    /**
+     * Called when the exporter is removed, so it can release any resources it
+     * holds.
+     */
+    public void shutdown();
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics recorded for all the requests a process sends for a single
+ * operation of a single AWS service, such as DescribeInstances on Amazon EC2.
+ * Counters and histograms are cumulative from the time the first request for
+ * the operation was recorded.
+ * <p>
+ * Instances are created and updated by the AWS client libraries and obtained
+ * through {@link AwsSdkMetrics}. All recording methods are lock free and don't
+ * allocate any objects.
+ */
+public class OperationMetrics {
+
+    private final String serviceName;
+    private final String operationName;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong throttleCount = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    /** Latency histograms, indexed by RequestPhase ordinal */
+    private final LatencyHistogram[] latencies;
+
+    /**
+     * Constructs a new, empty set of metrics for the specified operation.
+     *
+     * @param serviceName
+     *            The name of the service, such as AmazonEC2.
+     * @param operationName
+     *            The name of the operation, such as DescribeInstances.
+     */
+    public OperationMetrics(String serviceName, String operationName) {
+        this.serviceName = serviceName;
+        this.operationName = operationName;
+
+        RequestPhase[] phases = RequestPhase.values();
+        latencies = new LatencyHistogram[phases.length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Returns the name of the service these metrics are for.
+     *
+     * @return The name of the service these metrics are for.
+     */
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    /**
+     * Returns the name of the operation these metrics are for.
+     *
+     * @return The name of the operation these metrics are for.
+     */
+    public String getOperationName() {
+        return operationName;
+    }
+
+    /**
+     * Returns the number of requests completed, successfully or not.
+     *
+     * @return The number of requests completed.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of requests that failed after any retries.
+     *
+     * @return The number of requests that failed.
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Returns the number of retries made, over all requests.
+     *
+     * @return The number of retries made.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Returns the number of attempts the service rejected with a throttling
+     * error.
+     *
+     * @return The number of throttled attempts.
+     */
+    public long getThrottleCount() {
+        return throttleCount.get();
+    }
+
+    /**
+     * Returns the number of payload bytes sent in requests whose length was
+     * known up front.
+     *
+     * @return The number of payload bytes sent.
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * Returns the number of payload bytes received in responses that declared
+     * their length.
+     *
+     * @return The number of payload bytes received.
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * Returns the histogram of latencies recorded for the specified phase of
+     * requests.
+     *
+     * @param phase
+     *            The phase whose latencies are desired.
+     *
+     * @return The histogram of latencies recorded for the specified phase.
+     */
+    public LatencyHistogram getLatency(RequestPhase phase) {
+        return latencies[phase.ordinal()];
+    }
+
+    /**
+     * Records the completion of a request.
+     *
+     * @param success
+     *            True if the request succeeded.
+     * @param totalNanos
+     *            The total time taken by the request, including retries, in
+     *            nanoseconds.
+     */
+    public void recordRequest(boolean success, long totalNanos) {
+        requestCount.incrementAndGet();
+        if (!success) failureCount.incrementAndGet();
+        latencies[RequestPhase.Total.ordinal()].record(totalNanos);
+    }
+
+    /**
+     * Records that a request is being retried.
+     */
+    public void recordRetry() {
+        retryCount.incrementAndGet();
+    }
+
+    /**
+     * Records that an attempt was rejected by the service with a throttling
+     * error.
+     */
+    public void recordThrottle() {
+        throttleCount.incrementAndGet();
+    }
+
+    /**
+     * Records payload bytes sent to the service.
+     *
+     * @param bytes
+     *            The number of bytes sent.
+     */
+    public void recordBytesSent(long bytes) {
+        bytesSent.addAndGet(bytes);
+    }
+
+    /**
+     * Records payload bytes received from the service.
+     *
+     * @param bytes
+     *            The number of bytes received.
+     */
+    public void recordBytesReceived(long bytes) {
+        bytesReceived.addAndGet(bytes);
+    }
+
+    /**
+     * Records the latency of a single phase of a request.
+     *
+     * @param phase
+     *            The phase of the request that was timed.
+     * @param nanos
+     *            The time taken by the phase, in nanoseconds.
+     */
+    public void recordLatency(RequestPhase phase, long nanos) {
+        latencies[phase.ordinal()].record(nanos);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Read-only MBean exposing the metrics of a single operation, as registered by
+ * {@link JmxMetricsExporter}. Besides the RequestCount, FailureCount,
+ * RetryCount, ThrottleCount, BytesSent and BytesReceived counters, the MBean
+ * has these attributes for each {@link RequestPhase}, with latencies in
+ * milliseconds:
+ * <ul>
+ * <li><i>Phase</i>Count</li>
+ * <li><i>Phase</i>MeanMillis</li>
+ * <li><i>Phase</i>P50Millis, <i>Phase</i>P90Millis, <i>Phase</i>P99Millis and
+ * <i>Phase</i>P999Millis</li>
+ * <li><i>Phase</i>MaxMillis</li>
+ * </ul>
+ * For example, TotalP99Millis or FirstByteMeanMillis.
+ */
+public class OperationMetricsMBean implements DynamicMBean {
+
+    private static final String[] COUNTERS = {
+        "RequestCount", "FailureCount", "RetryCount",
+        "ThrottleCount", "BytesSent", "BytesReceived"
+    };
+
+    private static final String[] PERCENTILE_NAMES = {"P50", "P90", "P99", "P999"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private static final MBeanInfo MBEAN_INFO = createMBeanInfo();
+
+    private final OperationMetrics metrics;
+
+    /**
+     * Constructs a new MBean exposing the specified operation's metrics.
+     *
+     * @param metrics
+     *            The metrics to expose.
+     */
+    public OperationMetricsMBean(OperationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Object getAttribute(String name) throws AttributeNotFoundException {
+        if (name.equals("RequestCount")) return metrics.getRequestCount();
+        if (name.equals("FailureCount")) return metrics.getFailureCount();
+        if (name.equals("RetryCount")) return metrics.getRetryCount();
+        if (name.equals("ThrottleCount")) return metrics.getThrottleCount();
+        if (name.equals("BytesSent")) return metrics.getBytesSent();
+        if (name.equals("BytesReceived")) return metrics.getBytesReceived();
+
+        for (RequestPhase phase : RequestPhase.values()) {
+            String phaseName = phase.name();
+            if (!name.startsWith(phaseName)) continue;
+
+            LatencyHistogram histogram = metrics.getLatency(phase);
+            String statistic = name.substring(phaseName.length());
+            if (statistic.equals("Count")) return histogram.getCount();
+            if (statistic.equals("MeanMillis")) return toMillis(histogram.getMeanNanos());
+            if (statistic.equals("MaxMillis")) return toMillis(histogram.getMaxNanos());
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                if (statistic.equals(PERCENTILE_NAMES[i] + "Millis")) {
+                    return toMillis(histogram.getPercentileNanos(PERCENTILES[i]));
+                }
+            }
+        }
+        throw new AttributeNotFoundException(name);
+    }
+
+    public AttributeList getAttributes(String[] names) {
+        AttributeList attributes = new AttributeList();
+        for (String name : names) {
+            try {
+                attributes.add(new Attribute(name, getAttribute(name)));
+            } catch (AttributeNotFoundException e) {
+                // Unknown attributes are left out, as the DynamicMBean contract allows
+            }
+        }
+        return attributes;
+    }
+
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Attribute " + attribute.getName() + " is read-only");
+    }
+
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        // This MBean exposes no operations
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    public MBeanInfo getMBeanInfo() {
+        return MBEAN_INFO;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / 1000000.0;
+    }
+
+    private static MBeanInfo createMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+        for (String counter : COUNTERS) {
+            attributes.add(new MBeanAttributeInfo(counter, "java.lang.Long", counter, true, false, false));
+        }
+        for (RequestPhase phase : RequestPhase.values()) {
+            String phaseName = phase.name();
+            attributes.add(new MBeanAttributeInfo(phaseName + "Count", "java.lang.Long",
+                    "Number of " + phaseName + " latencies recorded", true, false, false));
+            attributes.add(new MBeanAttributeInfo(phaseName + "MeanMillis", "java.lang.Double",
+                    "Mean " + phaseName + " latency", true, false, false));
+            for (String percentile : PERCENTILE_NAMES) {
+                attributes.add(new MBeanAttributeInfo(phaseName + percentile + "Millis", "java.lang.Double",
+                        percentile + " " + phaseName + " latency", true, false, false));
+            }
+            attributes.add(new MBeanAttributeInfo(phaseName + "MaxMillis", "java.lang.Double",
+                    "Maximum " + phaseName + " latency", true, false, false));
+        }
+
+        return new MBeanInfo(OperationMetricsMBean.class.getName(),
+                "Metrics for requests sent by the AWS SDK for a single operation",
+                attributes.toArray(new MBeanAttributeInfo[attributes.size()]),
+                null, new MBeanOperationInfo[0], null);
+    }
+}
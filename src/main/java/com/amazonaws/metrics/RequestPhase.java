@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+/**
+ * The phases of a request whose latency is recorded by
+ * {@link OperationMetrics}.
+ */
+public enum RequestPhase {
+
+    /** The whole request, from the caller's point of view, including retries. */
+    Total,
+
+    /**
+     * Signing the request. Query services sign a request once, while Amazon S3
+     * signs every attempt.
+     */
+    Sign,
+
+    /**
+     * Waiting for a pooled HTTP connection, and opening it if needed, before an
+     * attempt can be sent.
+     */
+    ConnectWait,
+
+    /** Writing the request line, headers and payload of an attempt. */
+    Send,
+
+    /**
+     * Waiting, after the request has been sent, for the status line and
+     * headers of the response.
+     */
+    FirstByte,
+
+    /** Reading and unmarshalling a successful response. */
+    Unmarshall;
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side rate limiter that adapts the rate at which requests are sent
+ * to the throttling responses received from a service, using additive
+ * increase and multiplicative decrease (AIMD).
+ * <p>
+ * Requests are grouped by a key made of the service endpoint and the
+ * operation being called. Until a throttling response is received for a key,
+ * requests for that key are sent without any limit. When a request is
+ * throttled, the permitted rate for its key is cut to a fraction of the rate
+ * requests were being sent at, so every thread sending that operation to that
+ * endpoint slows down together instead of only the throttled request backing
+ * off. While requests succeed, the permitted rate grows steadily again, and
+ * once it is well above the rate requests are actually being sent at, the
+ * limit is lifted.
+ * <p>
+ * A rate limiter is enabled by setting it on a
+ * {@link com.amazonaws.ClientConfiguration}. Clients configured with the same
+ * rate limiter instance back off as a group. This class is thread safe.
+ */
+public class AdaptiveRateLimiter {
+
+    /** The default factor the permitted rate is multiplied by when throttled. */
+    public static final double DEFAULT_DECREASE_FACTOR = 0.5;
+
+    /** The default number of requests per second the permitted rate grows by each second. */
+    public static final double DEFAULT_INCREASE_PER_SECOND = 1.0;
+
+    /** The default lowest permitted rate, in requests per second. */
+    public static final double DEFAULT_MINIMUM_RATE = 0.5;
+
+    /**
+     * Throttling responses for requests that were already in flight when the
+     * rate was cut arrive shortly after the first one. They reflect the old
+     * rate, so further cuts are ignored for this long after a cut.
+     */
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * The limit is lifted once the permitted rate is this many times higher
+     * than the rate requests are actually being sent at.
+     */
+    private static final double UNLIMITED_THRESHOLD = 2.0;
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * A request never waits longer than a retry could back off for, so a deep
+     * queue of reservations can't stall callers indefinitely. Requests beyond
+     * that are sent early and, if throttled again, cut the rate further.
+     */
+    private static final long MAX_WAIT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(PredefinedRetryPolicies.MAX_BACKOFF_IN_MILLISECONDS);
+
+    private final double decreaseFactor;
+    private final double increasePerSecond;
+    private final double minimumRate;
+
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+
+    /**
+     * Constructs a new rate limiter with the default decrease factor, rate of
+     * increase and minimum rate.
+     */
+    public AdaptiveRateLimiter() {
+        this(DEFAULT_DECREASE_FACTOR, DEFAULT_INCREASE_PER_SECOND, DEFAULT_MINIMUM_RATE);
+    }
+
+    /**
+     * Constructs a new rate limiter.
+     *
+     * @param decreaseFactor
+     *            The factor, between 0 and 1, the permitted rate is multiplied
+     *            by when a request is throttled.
+     * @param increasePerSecond
+     *            The number of requests per second the permitted rate grows by
+     *            for each second requests keep succeeding.
+     * @param minimumRate
+     *            The lowest permitted rate, in requests per second.
+     */
+    public AdaptiveRateLimiter(double decreaseFactor, double increasePerSecond, double minimumRate) {
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("Decrease factor must be between 0 and 1");
+        }
+        if (increasePerSecond <= 0) throw new IllegalArgumentException("Rate of increase must be positive");
+        if (minimumRate <= 0) throw new IllegalArgumentException("Minimum rate must be positive");
+
+        this.decreaseFactor = decreaseFactor;
+        this.increasePerSecond = increasePerSecond;
+        this.minimumRate = minimumRate;
+    }
+
+    /**
+     * Reserves permission to send one request for the specified key, and
+     * returns how long the caller must wait before sending it.
+     *
+     * @param key
+     *            The key grouping the request with others sent to the same
+     *            endpoint and operation.
+     *
+     * @return The time, in milliseconds, to wait before sending the request,
+     *         at most {@link PredefinedRetryPolicies#MAX_BACKOFF_IN_MILLISECONDS}.
+     */
+    public long reserve(String key) {
+        return getBucket(key).reserve(System.nanoTime());
+    }
+
+    /**
+     * Reports that a request for the specified key was throttled by the
+     * service, cutting the permitted rate for that key.
+     *
+     * @param key
+     *            The key of the throttled request.
+     */
+    public void onThrottle(String key) {
+        getBucket(key).onThrottle(System.nanoTime());
+    }
+
+    /**
+     * Reports that a request for the specified key succeeded, letting the
+     * permitted rate for that key grow.
+     *
+     * @param key
+     *            The key of the successful request.
+     */
+    public void onSuccess(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) bucket.onSuccess(System.nanoTime());
+    }
+
+    /**
+     * Returns the rate, in requests per second, currently permitted for the
+     * specified key, or {@link Double#POSITIVE_INFINITY} if requests for that
+     * key are not being limited.
+     *
+     * @param key
+     *            The key to look up.
+     *
+     * @return The rate currently permitted for the key.
+     */
+    public double getPermittedRate(String key) {
+        Bucket bucket = buckets.get(key);
+        return (bucket == null) ? Double.POSITIVE_INFINITY : bucket.getRate();
+    }
+
+    private Bucket getBucket(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            Bucket newBucket = new Bucket();
+            bucket = buckets.putIfAbsent(key, newBucket);
+            if (bucket == null) bucket = newBucket;
+        }
+        return bucket;
+    }
+
+    /**
+     * Rate state for a single endpoint and operation.
+     */
+    private class Bucket {
+        /** The permitted rate in requests per second, or infinity if unlimited. */
+        private double rate = Double.POSITIVE_INFINITY;
+
+        /** The time at which the next request may be sent. */
+        private long nextFreeNanos;
+
+        /** The time the permitted rate was last cut. */
+        private long lastDecreaseNanos;
+
+        /** The time the permitted rate was last raised or cut. */
+        private long lastAdjustmentNanos;
+
+        /** Smoothed rate, in requests per second, at which requests are being sent. */
+        private double measuredRate;
+
+        /** Start of the current measurement window. */
+        private long windowStartNanos = System.nanoTime();
+
+        /** Number of requests sent in the current measurement window. */
+        private int windowCount;
+
+        synchronized long reserve(long now) {
+            measure(now);
+            if (Double.isInfinite(rate)) return 0;
+
+            long start = Math.min(Math.max(now, nextFreeNanos), now + MAX_WAIT_NANOS);
+            nextFreeNanos = start + (long) (NANOS_PER_SECOND / rate);
+            return TimeUnit.NANOSECONDS.toMillis(start - now + 999999);
+        }
+
+        synchronized void onThrottle(long now) {
+            if (!Double.isInfinite(rate) && now - lastDecreaseNanos < DECREASE_COOLDOWN_NANOS) return;
+
+            double base = Double.isInfinite(rate) ? currentSendRate(now) : rate;
+            rate = Math.max(minimumRate, base * decreaseFactor);
+            lastDecreaseNanos = now;
+            lastAdjustmentNanos = now;
+        }
+
+        synchronized void onSuccess(long now) {
+            if (Double.isInfinite(rate)) return;
+
+            rate += increasePerSecond * (now - lastAdjustmentNanos) / NANOS_PER_SECOND;
+            lastAdjustmentNanos = now;
+
+            if (rate > currentSendRate(now) * UNLIMITED_THRESHOLD) {
+                rate = Double.POSITIVE_INFINITY;
+                nextFreeNanos = 0;
+            }
+        }
+
+        synchronized double getRate() {
+            return rate;
+        }
+
+        private void measure(long now) {
+            windowCount++;
+            long elapsed = now - windowStartNanos;
+            if (elapsed >= NANOS_PER_SECOND) {
+                double windowRate = (double) windowCount * NANOS_PER_SECOND / elapsed;
+                measuredRate = (measuredRate == 0) ? windowRate : (measuredRate + windowRate) / 2;
+                windowStartNanos = now;
+                windowCount = 0;
+            }
+        }
+
+        private double currentSendRate(long now) {
+            long elapsed = Math.max(now - windowStartNanos, TimeUnit.MILLISECONDS.toNanos(100));
+            double windowRate = (double) windowCount * NANOS_PER_SECOND / elapsed;
+            return Math.max(measuredRate, windowRate);
+        }
+    }
+}
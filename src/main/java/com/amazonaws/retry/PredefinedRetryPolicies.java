@@ -0,0 +1,197 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import java.util.Random;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.retry.RetryPolicy.BackoffStrategy;
+import com.amazonaws.retry.RetryPolicy.RetryCondition;
+
+/**
+ * Predefined retry policies, retry conditions and back-off strategies.
+ */
+public class PredefinedRetryPolicies {
+
+    /** Maximum back-off time before retrying a request */
+    public static final long MAX_BACKOFF_IN_MILLISECONDS = 20 * 1000;
+
+    /** The default capacity of the retry budget used by the jittered policies. */
+    public static final int DEFAULT_RETRY_BUDGET_CAPACITY = 500;
+
+    /**
+     * The default retry condition. Retries requests that failed with a 500 or
+     * 503 response, a throttling error, or an I/O error such as a dropped
+     * connection or socket timeout.
+     */
+    public static final RetryCondition DEFAULT_RETRY_CONDITION = new SDKDefaultRetryCondition();
+
+    /**
+     * The default back-off strategy. Waits exponentially longer before each
+     * retry, starting from a larger base delay for throttling errors, up to
+     * {@link #MAX_BACKOFF_IN_MILLISECONDS}.
+     */
+    public static final BackoffStrategy DEFAULT_BACKOFF_STRATEGY = new ExponentialBackoffStrategy();
+
+    /**
+     * The default retry policy, used when no retry policy is explicitly set in
+     * a client's configuration. Combines the default retry condition and
+     * back-off strategy, and doesn't limit retries with a retry budget.
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(DEFAULT_RETRY_CONDITION, DEFAULT_BACKOFF_STRATEGY);
+
+    /**
+     * Retry policy using the default retry condition with "full jitter"
+     * back-off and a retry budget of {@link #DEFAULT_RETRY_BUDGET_CAPACITY}
+     * tokens. Spreading retries out at random keeps clients that failed at
+     * the same moment from all retrying at the same moment.
+     */
+    public static final RetryPolicy FULL_JITTER = new RetryPolicy(
+            DEFAULT_RETRY_CONDITION,
+            new FullJitterBackoffStrategy(100, 500, MAX_BACKOFF_IN_MILLISECONDS),
+            DEFAULT_RETRY_BUDGET_CAPACITY);
+
+    /**
+     * Retry policy using the default retry condition with "decorrelated
+     * jitter" back-off and a retry budget of
+     * {@link #DEFAULT_RETRY_BUDGET_CAPACITY} tokens.
+     */
+    public static final RetryPolicy DECORRELATED_JITTER = new RetryPolicy(
+            DEFAULT_RETRY_CONDITION,
+            new DecorrelatedJitterBackoffStrategy(100, 500, MAX_BACKOFF_IN_MILLISECONDS),
+            DEFAULT_RETRY_BUDGET_CAPACITY);
+
+    /** Shared source of randomness for the jittered strategies. */
+    private static final Random random = new Random();
+
+    /**
+     * The retry condition used by the SDK by default.
+     */
+    public static class SDKDefaultRetryCondition implements RetryCondition {
+
+        public boolean shouldRetry(AmazonWebServiceRequest originalRequest,
+                AmazonClientException exception, int retriesAttempted) {
+            if (RetryUtils.isRetryableIOException(exception)) return true;
+
+            /*
+             * For 500 internal server errors and 503 service
+             * unavailable errors, we want to retry, but we need to use
+             * an exponential back-off strategy so that we don't overload
+             * a server with a flood of retries.
+             */
+            if (RetryUtils.isServerError(exception)) return true;
+
+            /*
+             * Throttling is reported as a 400 error from newer services. To try
+             * and smooth out an occasional throttling error, we'll pause and
+             * retry, hoping that the pause is long enough for the request to
+             * get through the next time.
+             */
+            return RetryUtils.isThrottlingException(exception);
+        }
+    }
+
+    /**
+     * Exponential back-off without jitter: 300ms * 2^retries, or roughly
+     * 550ms * 2^retries for throttling errors, capped at
+     * {@link PredefinedRetryPolicies#MAX_BACKOFF_IN_MILLISECONDS}.
+     */
+    public static class ExponentialBackoffStrategy implements BackoffStrategy {
+
+        public long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest,
+                AmazonClientException exception, int retriesAttempted, long previousDelay) {
+            long scaleFactor = 300;
+            if (RetryUtils.isThrottlingException(exception)) {
+                scaleFactor = 500 + random.nextInt(100);
+            }
+            long delay = (long) (Math.pow(2, retriesAttempted) * scaleFactor);
+
+            return Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
+        }
+    }
+
+    /**
+     * "Full jitter" back-off: waits a random time between zero and the
+     * exponential delay for the current retry. Throttling errors use their
+     * own, usually larger, base delay.
+     */
+    public static class FullJitterBackoffStrategy implements BackoffStrategy {
+        private final long baseDelay;
+        private final long throttledBaseDelay;
+        private final long maxBackoff;
+
+        /**
+         * @param baseDelay
+         *            The base delay, in milliseconds, for errors other than
+         *            throttling.
+         * @param throttledBaseDelay
+         *            The base delay, in milliseconds, for throttling errors.
+         * @param maxBackoff
+         *            The maximum delay, in milliseconds.
+         */
+        public FullJitterBackoffStrategy(long baseDelay, long throttledBaseDelay, long maxBackoff) {
+            this.baseDelay = baseDelay;
+            this.throttledBaseDelay = throttledBaseDelay;
+            this.maxBackoff = maxBackoff;
+        }
+
+        public long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest,
+                AmazonClientException exception, int retriesAttempted, long previousDelay) {
+            long base = RetryUtils.isThrottlingException(exception) ? throttledBaseDelay : baseDelay;
+            long ceiling = exponentialDelay(base, retriesAttempted, maxBackoff);
+            return (long) (random.nextDouble() * (ceiling + 1));
+        }
+    }
+
+    /**
+     * "Decorrelated jitter" back-off: waits a random time between the base
+     * delay and three times the previous delay. Throttling errors use their
+     * own, usually larger, base delay.
+     */
+    public static class DecorrelatedJitterBackoffStrategy implements BackoffStrategy {
+        private final long baseDelay;
+        private final long throttledBaseDelay;
+        private final long maxBackoff;
+
+        /**
+         * @param baseDelay
+         *            The base delay, in milliseconds, for errors other than
+         *            throttling.
+         * @param throttledBaseDelay
+         *            The base delay, in milliseconds, for throttling errors.
+         * @param maxBackoff
+         *            The maximum delay, in milliseconds.
+         */
+        public DecorrelatedJitterBackoffStrategy(long baseDelay, long throttledBaseDelay, long maxBackoff) {
+            this.baseDelay = baseDelay;
+            this.throttledBaseDelay = throttledBaseDelay;
+            this.maxBackoff = maxBackoff;
+        }
+
+        public long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest,
+                AmazonClientException exception, int retriesAttempted, long previousDelay) {
+            long base = RetryUtils.isThrottlingException(exception) ? throttledBaseDelay : baseDelay;
+            long upper = Math.max(base, Math.min(maxBackoff, previousDelay * 3));
+            return Math.min(maxBackoff, base + (long) (random.nextDouble() * (upper - base + 1)));
+        }
+    }
+
+    private static long exponentialDelay(long base, int retriesAttempted, long maxBackoff) {
+        // Cap the exponent so the shift can't overflow for large retry counts
+        int exponent = Math.min(retriesAttempted, 30);
+        return Math.min(maxBackoff, base << exponent);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token bucket limiting the number of retries a client makes while requests
+ * are failing. Every retry spends tokens and every successful request returns
+ * some, so a client that sees a spike in failures quickly stops retrying and
+ * reports errors instead of multiplying the load on an unhealthy service. The
+ * budget refills as requests start succeeding again.
+ * <p>
+ * Each client keeps a single budget shared by all of its requests. This class
+ * is thread safe and lock free.
+ */
+public class RetryBudget {
+
+    /** The number of tokens spent for each retry. */
+    public static final int RETRY_COST = 5;
+
+    /** The number of tokens returned by a request that succeeds without retries. */
+    public static final int NO_RETRY_INCREMENT = 1;
+
+    /** The maximum number of tokens in this budget. */
+    private final int capacity;
+
+    /** The number of tokens currently available. */
+    private final AtomicInteger available;
+
+    /**
+     * Constructs a new, full retry budget.
+     *
+     * @param capacity
+     *            The maximum number of tokens in the budget, or
+     *            {@link RetryPolicy#NO_RETRY_BUDGET} to never limit retries.
+     */
+    public RetryBudget(int capacity) {
+        this.capacity = capacity;
+        this.available = new AtomicInteger(capacity);
+    }
+
+    /**
+     * Attempts to spend the tokens needed for one retry.
+     *
+     * @return True if the retry may go ahead, or false if the budget is
+     *         exhausted.
+     */
+    public boolean tryAcquireRetry() {
+        if (capacity == RetryPolicy.NO_RETRY_BUDGET) return true;
+
+        while (true) {
+            int current = available.get();
+            if (current < RETRY_COST) return false;
+            if (available.compareAndSet(current, current - RETRY_COST)) return true;
+        }
+    }
+
+    /**
+     * Returns tokens to the budget after a request has succeeded.
+     *
+     * @param retriesAttempted
+     *            The number of retries made by the successful request. Tokens
+     *            spent on those retries are refunded, and a request that
+     *            succeeded on its first attempt returns
+     *            {@link #NO_RETRY_INCREMENT} tokens.
+     */
+    public void releaseOnSuccess(int retriesAttempted) {
+        if (capacity == RetryPolicy.NO_RETRY_BUDGET) return;
+
+        int amount = (retriesAttempted > 0) ? retriesAttempted * RETRY_COST : NO_RETRY_INCREMENT;
+        while (true) {
+            int current = available.get();
+            if (current >= capacity) return;
+            if (available.compareAndSet(current, Math.min(capacity, current + amount))) return;
+        }
+    }
+
+    /**
+     * Returns the number of tokens currently available in this budget.
+     *
+     * @return The number of tokens currently available in this budget.
+     */
+    public int getAvailableTokens() {
+        return available.get();
+    }
+}
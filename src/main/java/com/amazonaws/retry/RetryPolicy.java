@@ -0,0 +1,170 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ClientConfiguration;
+
+/**
+ * Retry policy that can be configured on a {@link ClientConfiguration} to
+ * control which failed requests are retried, how long a client waits before
+ * each retry, and how many retries a client may make in total while requests
+ * are failing.
+ * <p>
+ * A retry policy is immutable and may be shared between clients. The retry
+ * budget it describes is not shared: each client keeps its own budget, which
+ * is drawn on by every request the client sends.
+ *
+ * @see PredefinedRetryPolicies
+ */
+public final class RetryPolicy {
+
+    /** Budget capacity indicating that retries are not limited by a budget. */
+    public static final int NO_RETRY_BUDGET = 0;
+
+    /** Decides whether a failed request should be retried. */
+    private final RetryCondition retryCondition;
+
+    /** Decides how long to wait before retrying a failed request. */
+    private final BackoffStrategy backoffStrategy;
+
+    /**
+     * The number of tokens in the retry budget of each client using this
+     * policy, or {@link #NO_RETRY_BUDGET} if retries are not budgeted.
+     */
+    private final int retryBudgetCapacity;
+
+    /**
+     * Constructs a new retry policy without a retry budget.
+     *
+     * @param retryCondition
+     *            The condition deciding whether a failed request should be
+     *            retried.
+     * @param backoffStrategy
+     *            The strategy deciding how long to wait before each retry.
+     */
+    public RetryPolicy(RetryCondition retryCondition, BackoffStrategy backoffStrategy) {
+        this(retryCondition, backoffStrategy, NO_RETRY_BUDGET);
+    }
+
+    /**
+     * Constructs a new retry policy.
+     *
+     * @param retryCondition
+     *            The condition deciding whether a failed request should be
+     *            retried.
+     * @param backoffStrategy
+     *            The strategy deciding how long to wait before each retry.
+     * @param retryBudgetCapacity
+     *            The number of tokens in the retry budget of each client using
+     *            this policy, or {@link #NO_RETRY_BUDGET} to retry without a
+     *            budget. See {@link RetryBudget} for how tokens are spent and
+     *            returned.
+     */
+    public RetryPolicy(RetryCondition retryCondition, BackoffStrategy backoffStrategy, int retryBudgetCapacity) {
+        if (retryCondition == null) throw new IllegalArgumentException("Retry condition must not be null");
+        if (backoffStrategy == null) throw new IllegalArgumentException("Backoff strategy must not be null");
+        if (retryBudgetCapacity < 0) throw new IllegalArgumentException("Retry budget capacity must not be negative");
+
+        this.retryCondition = retryCondition;
+        this.backoffStrategy = backoffStrategy;
+        this.retryBudgetCapacity = retryBudgetCapacity;
+    }
+
+    /**
+     * Returns the condition deciding whether a failed request should be
+     * retried.
+     *
+     * @return The condition deciding whether a failed request should be
+     *         retried.
+     */
+    public RetryCondition getRetryCondition() {
+        return retryCondition;
+    }
+
+    /**
+     * Returns the strategy deciding how long to wait before each retry.
+     *
+     * @return The strategy deciding how long to wait before each retry.
+     */
+    public BackoffStrategy getBackoffStrategy() {
+        return backoffStrategy;
+    }
+
+    /**
+     * Returns the number of tokens in the retry budget of each client using
+     * this policy, or {@link #NO_RETRY_BUDGET} if retries are not budgeted.
+     *
+     * @return The capacity of the retry budget of each client using this
+     *         policy.
+     */
+    public int getRetryBudgetCapacity() {
+        return retryBudgetCapacity;
+    }
+
+    /**
+     * Decides whether a failed request should be retried.
+     */
+    public static interface RetryCondition {
+
+        /**
+         * Returns true if the failed request should be retried. The maximum
+         * retry count from the client configuration and the client's retry
+         * budget are checked separately, so implementations only need to
+         * decide whether the failure itself is retryable.
+         *
+         * @param originalRequest
+         *            The original request object being executed.
+         * @param exception
+         *            The exception from the failed attempt. Errors returned by
+         *            the service are reported as AmazonServiceExceptions, and
+         *            I/O errors as AmazonClientExceptions caused by the
+         *            underlying IOException.
+         * @param retriesAttempted
+         *            The number of attempts made so far.
+         *
+         * @return True if the failed request should be retried.
+         */
+        public boolean shouldRetry(AmazonWebServiceRequest originalRequest,
+                AmazonClientException exception, int retriesAttempted);
+    }
+
+    /**
+     * Decides how long to wait before retrying a failed request.
+     */
+    public static interface BackoffStrategy {
+
+        /**
+         * Returns the delay, in milliseconds, to wait before the next retry.
+         *
+         * @param originalRequest
+         *            The original request object being executed.
+         * @param exception
+         *            The exception from the failed attempt, or null if the
+         *            attempt is being repeated for another reason, such as a
+         *            redirect.
+         * @param retriesAttempted
+         *            The number of attempts made so far.
+         * @param previousDelay
+         *            The delay returned before the previous retry of this
+         *            request, or 0 if this is the first retry.
+         *
+         * @return The delay, in milliseconds, to wait before the next retry.
+         */
+        public long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest,
+                AmazonClientException exception, int retriesAttempted, long previousDelay);
+    }
+}
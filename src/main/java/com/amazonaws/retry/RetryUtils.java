@@ -0,0 +1,131 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.NoHttpResponseException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+
+/**
+ * Utilities for classifying the errors that requests fail with.
+ */
+public class RetryUtils {
+
+    /**
+     * Error codes that services use to report that requests are being sent
+     * too fast, beyond the "Throttling" code the retry policies recognize.
+     */
+    private static final Set<String> RATE_LIMITING_ERROR_CODES = new HashSet<String>(Arrays.asList(
+            "Throttling", "ThrottlingException", "RequestLimitExceeded", "RequestThrottled", "SlowDown"));
+
+    /**
+     * Returns true if the specified exception is a throttling error.
+     *
+     * @param ase
+     *            The exception to test.
+     *
+     * @return True if the exception resulted from a throttling error message
+     *         from a service, otherwise false.
+     */
+    public static boolean isThrottlingException(AmazonServiceException ase) {
+        if (ase == null) return false;
+        return "Throttling".equals(ase.getErrorCode());
+    }
+
+    /**
+     * Returns true if the specified exception is any of the errors services
+     * use to report that requests are being sent too fast, such as EC2's
+     * RequestLimitExceeded or S3's SlowDown. This is broader than
+     * {@link #isThrottlingException(AmazonServiceException)}, which the retry
+     * policies use, and is only used to slow down an
+     * {@link AdaptiveRateLimiter}.
+     *
+     * @param ase
+     *            The exception to test.
+     *
+     * @return True if the exception resulted from a rate limiting error
+     *         message from a service, otherwise false.
+     */
+    public static boolean isRateLimitingException(AmazonServiceException ase) {
+        if (ase == null) return false;
+        return RATE_LIMITING_ERROR_CODES.contains(ase.getErrorCode());
+    }
+
+    /**
+     * Returns true if the specified exception is a throttling error.
+     *
+     * @param ace
+     *            The exception to test.
+     *
+     * @return True if the exception is an AmazonServiceException resulting
+     *         from a throttling error message from a service, otherwise false.
+     */
+    public static boolean isThrottlingException(AmazonClientException ace) {
+        if (ace instanceof AmazonServiceException) {
+            return isThrottlingException((AmazonServiceException)ace);
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the specified exception is a 500 internal server error
+     * or a 503 service unavailable error.
+     *
+     * @param ace
+     *            The exception to test.
+     *
+     * @return True if the exception resulted from a 500 or 503 response from
+     *         a service, otherwise false.
+     */
+    public static boolean isServerError(AmazonClientException ace) {
+        if (ace instanceof AmazonServiceException) {
+            int statusCode = ((AmazonServiceException)ace).getStatusCode();
+            return statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR
+                || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the specified exception was caused by an I/O error
+     * (such as a dropped connection or a socket timeout) that is worth
+     * retrying.
+     *
+     * @param ace
+     *            The exception to test.
+     *
+     * @return True if the exception was caused by a retryable I/O error,
+     *         otherwise false.
+     */
+    public static boolean isRetryableIOException(AmazonClientException ace) {
+        if (ace == null || ace instanceof AmazonServiceException) return false;
+
+        Throwable cause = ace.getCause();
+        if (!(cause instanceof IOException)) return false;
+
+        return cause instanceof NoHttpResponseException
+            || cause instanceof SocketException
+            || cause instanceof SocketTimeoutException;
+    }
+}
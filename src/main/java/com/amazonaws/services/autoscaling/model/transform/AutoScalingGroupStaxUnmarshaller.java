@@ -18,7 +18,7 @@ package com.amazonaws.services.autoscaling.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.autoscaling.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,10 +43,10 @@ public class AutoScalingGroupStaxUnmarshaller implements Unmarshaller<AutoScalin
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return autoScalingGroup;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return autoScalingGroup;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("AutoScalingGroupName", targetDepth)) {
                     autoScalingGroup.setAutoScalingGroupName(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -119,7 +119,7 @@ public class AutoScalingGroupStaxUnmarshaller implements Unmarshaller<AutoScalin
                     autoScalingGroup.setStatus(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return autoScalingGroup;
                 }
@@ -18,7 +18,7 @@ package com.amazonaws.services.autoscaling.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.autoscaling.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,10 +43,10 @@ public class AutoScalingInstanceDetailsStaxUnmarshaller implements Unmarshaller<
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return autoScalingInstanceDetails;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return autoScalingInstanceDetails;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("InstanceId", targetDepth)) {
                     autoScalingInstanceDetails.setInstanceId(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -71,7 +71,7 @@ public class AutoScalingInstanceDetailsStaxUnmarshaller implements Unmarshaller<
                     autoScalingInstanceDetails.setLaunchConfigurationName(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return autoScalingInstanceDetails;
                 }
@@ -18,7 +18,7 @@ package com.amazonaws.services.autoscaling.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.autoscaling.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,10 +43,10 @@ public class DescribeLaunchConfigurationsResultStaxUnmarshaller implements Unmar
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return describeLaunchConfigurationsResult;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return describeLaunchConfigurationsResult;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("LaunchConfigurations/member", targetDepth)) {
                     describeLaunchConfigurationsResult.getLaunchConfigurations().add(LaunchConfigurationStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -55,7 +55,7 @@ public class DescribeLaunchConfigurationsResultStaxUnmarshaller implements Unmar
                     describeLaunchConfigurationsResult.setNextToken(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return describeLaunchConfigurationsResult;
                 }
@@ -18,7 +18,7 @@ package com.amazonaws.services.cloudwatch.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.cloudwatch.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,10 +43,10 @@ public class AlarmHistoryItemStaxUnmarshaller implements Unmarshaller<AlarmHisto
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return alarmHistoryItem;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return alarmHistoryItem;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("AlarmName", targetDepth)) {
                     alarmHistoryItem.setAlarmName(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -67,7 +67,7 @@ public class AlarmHistoryItemStaxUnmarshaller implements Unmarshaller<AlarmHisto
                     alarmHistoryItem.setHistoryData(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return alarmHistoryItem;
                 }
@@ -18,7 +18,7 @@ package com.amazonaws.services.cloudwatch.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.cloudwatch.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,10 +43,10 @@ public class DatapointStaxUnmarshaller implements Unmarshaller<Datapoint, StaxUn
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return datapoint;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return datapoint;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("Timestamp", targetDepth)) {
                     datapoint.setTimestamp(DateStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -75,7 +75,7 @@ public class DatapointStaxUnmarshaller implements Unmarshaller<Datapoint, StaxUn
                     datapoint.setUnit(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return datapoint;
                 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.cloudwatch.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.LatencyHistogram;
+import com.amazonaws.metrics.MetricsExporter;
+import com.amazonaws.metrics.OperationMetrics;
+import com.amazonaws.metrics.RequestPhase;
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.amazonaws.services.cloudwatch.model.StatisticSet;
+
+/**
+ * Exports the metrics recorded by the AWS client libraries to Amazon
+ * CloudWatch through a {@link MetricDataPublisher}. Register it with
+ * {@link AwsSdkMetrics#addExporter(MetricsExporter)}.
+ * <p>
+ * Once per flush interval of the publisher, the exporter publishes what
+ * changed for each operation since the previous interval, with Service and
+ * Operation dimensions: the RequestCount, FailureCount, RetryCount,
+ * ThrottleCount, BytesSent and BytesReceived counters, and a statistic set of
+ * latencies in milliseconds for each {@link RequestPhase}, named after the
+ * phase, such as TotalLatency or FirstByteLatency.
+ * <p>
+ * Requests sent by the publisher itself are recorded like any others, so the
+ * exporter also reports the cost of publishing.
+ */
+public class CloudWatchMetricsExporter implements MetricsExporter {
+
+    private final MetricDataPublisher publisher;
+    private final List<ExportedOperation> operations = new ArrayList<ExportedOperation>();
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Constructs a new exporter that publishes through the specified
+     * publisher, once per flush interval of the publisher.
+     *
+     * @param publisher
+     *            The publisher to send metric data through.
+     */
+    public CloudWatchMetricsExporter(MetricDataPublisher publisher) {
+        this.publisher = publisher;
+        this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "aws-cloudwatch-metrics-exporter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        long interval = publisher.getFlushIntervalMillis();
+        timer.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                exportAll();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void operationMetricsAdded(OperationMetrics metrics) {
+        operations.add(new ExportedOperation(metrics));
+    }
+
+    /**
+     * Stops exporting, after publishing anything recorded since the last
+     * export. The publisher isn't shut down.
+     */
+    public void shutdown() {
+        timer.shutdown();
+        try {
+            timer.awaitTermination(publisher.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exportAll();
+    }
+
+    private synchronized void exportAll() {
+        for (ExportedOperation operation : operations) {
+            operation.export();
+        }
+    }
+
+    /**
+     * An operation's metrics, along with the values they had when they were
+     * last exported.
+     */
+    private final class ExportedOperation {
+        private final OperationMetrics metrics;
+        private final Dimension[] dimensions;
+        private final long[] lastCounters = new long[6];
+        private final LatencyHistogram.Snapshot[] lastLatencies;
+
+        ExportedOperation(OperationMetrics metrics) {
+            this.metrics = metrics;
+            this.dimensions = new Dimension[] {
+                new Dimension().withName("Service").withValue(metrics.getServiceName()),
+                new Dimension().withName("Operation").withValue(metrics.getOperationName())
+            };
+
+            RequestPhase[] phases = RequestPhase.values();
+            lastLatencies = new LatencyHistogram.Snapshot[phases.length];
+            for (int i = 0; i < phases.length; i++) {
+                lastLatencies[i] = metrics.getLatency(phases[i]).getSnapshot();
+            }
+            counters(lastCounters);
+        }
+
+        private void counters(long[] values) {
+            values[0] = metrics.getRequestCount();
+            values[1] = metrics.getFailureCount();
+            values[2] = metrics.getRetryCount();
+            values[3] = metrics.getThrottleCount();
+            values[4] = metrics.getBytesSent();
+            values[5] = metrics.getBytesReceived();
+        }
+
+        void export() {
+            long[] counters = new long[lastCounters.length];
+            counters(counters);
+            exportCounter("RequestCount", counters[0] - lastCounters[0], StandardUnit.Count);
+            exportCounter("FailureCount", counters[1] - lastCounters[1], StandardUnit.Count);
+            exportCounter("RetryCount", counters[2] - lastCounters[2], StandardUnit.Count);
+            exportCounter("ThrottleCount", counters[3] - lastCounters[3], StandardUnit.Count);
+            exportCounter("BytesSent", counters[4] - lastCounters[4], StandardUnit.Bytes);
+            exportCounter("BytesReceived", counters[5] - lastCounters[5], StandardUnit.Bytes);
+            System.arraycopy(counters, 0, lastCounters, 0, counters.length);
+
+            RequestPhase[] phases = RequestPhase.values();
+            for (int i = 0; i < phases.length; i++) {
+                LatencyHistogram.Snapshot snapshot = metrics.getLatency(phases[i]).getSnapshot();
+                LatencyHistogram.Snapshot interval = snapshot.minus(lastLatencies[i]);
+                lastLatencies[i] = snapshot;
+                if (interval.getCount() == 0) continue;
+
+                publisher.publish(new MetricDatum()
+                    .withMetricName(phases[i].name() + "Latency")
+                    .withUnit(StandardUnit.Milliseconds.toString())
+                    .withDimensions(dimensions)
+                    .withStatisticValues(new StatisticSet()
+                        .withSampleCount((double)interval.getCount())
+                        .withSum(toMillis(interval.getTotalNanos()))
+                        .withMinimum(toMillis(interval.getMinNanos()))
+                        .withMaximum(toMillis(interval.getMaxNanos()))));
+            }
+        }
+
+        private void exportCounter(String name, long delta, StandardUnit unit) {
+            if (delta > 0) publisher.publish(name, delta, unit, dimensions);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000000.0;
+    }
+}
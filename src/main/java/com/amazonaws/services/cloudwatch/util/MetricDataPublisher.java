@@ -0,0 +1,416 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.cloudwatch.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.PutMetricDataRequest;
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.amazonaws.services.cloudwatch.model.StatisticSet;
+
+/**
+ * Publishes metric data to Amazon CloudWatch asynchronously, in aggregated
+ * batches, so that applications can record data points as often as they like
+ * without sending a PutMetricData request for each one.
+ * <p>
+ * Data points are handed to a background thread through a bounded queue.
+ * Over each flush interval, the thread combines all the data points with the
+ * same metric name, unit, dimensions and timestamp minute into a single
+ * {@link StatisticSet}. At the end of the interval it sends the aggregated
+ * data in as few PutMetricData requests as the service's limits allow. If
+ * the queue is full, new data points are dropped rather than blocking the
+ * caller; {@link #getDroppedCount()} reports how many have been dropped.
+ * <p>
+ * This class is thread safe. Call {@link #shutdown()} to send any remaining
+ * data and stop the background thread.
+ */
+public class MetricDataPublisher {
+
+    private static final Log log = LogFactory.getLog(MetricDataPublisher.class);
+
+    /** The default time, in milliseconds, over which data points are aggregated. */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 60 * 1000;
+
+    /** The default number of data points that can be waiting to be aggregated. */
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 10000;
+
+    /** The maximum number of data points in a single PutMetricData request. */
+    public static final int MAX_DATUMS_PER_REQUEST = 20;
+
+    /**
+     * The largest encoded size, in bytes, to let a PutMetricData request grow
+     * to, leaving room below the service's 40 KB limit for POST requests.
+     */
+    private static final int MAX_REQUEST_BYTES = 36 * 1024;
+
+    /** How often, in milliseconds, the background thread checks for shutdown. */
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private final AmazonCloudWatch cloudWatch;
+    private final String namespace;
+    private final long flushIntervalMillis;
+    private final BlockingQueue<MetricDatum> queue;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread publisherThread;
+    private volatile boolean shutdown;
+
+    /**
+     * Constructs a new publisher, using the default flush interval and queue
+     * size, and starts its background thread.
+     *
+     * @param cloudWatch
+     *            The client used to send metric data to Amazon CloudWatch.
+     * @param namespace
+     *            The namespace to publish all metric data in.
+     */
+    public MetricDataPublisher(AmazonCloudWatch cloudWatch, String namespace) {
+        this(cloudWatch, namespace, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_MAX_QUEUE_SIZE);
+    }
+
+    /**
+     * Constructs a new publisher and starts its background thread.
+     *
+     * @param cloudWatch
+     *            The client used to send metric data to Amazon CloudWatch.
+     * @param namespace
+     *            The namespace to publish all metric data in.
+     * @param flushIntervalMillis
+     *            The time, in milliseconds, over which data points are
+     *            aggregated before being sent.
+     * @param maxQueueSize
+     *            The maximum number of data points waiting to be aggregated,
+     *            beyond which new data points are dropped.
+     */
+    public MetricDataPublisher(AmazonCloudWatch cloudWatch, String namespace,
+            long flushIntervalMillis, int maxQueueSize) {
+        if (flushIntervalMillis <= 0) {
+            throw new AmazonClientException("The flush interval must be positive: " + flushIntervalMillis);
+        }
+
+        this.cloudWatch = cloudWatch;
+        this.namespace = namespace;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.queue = new ArrayBlockingQueue<MetricDatum>(maxQueueSize);
+
+        publisherThread = new Thread(new Runnable() {
+            public void run() {
+                runPublisher();
+            }
+        }, "aws-cloudwatch-metric-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    /**
+     * Returns the time, in milliseconds, over which data points are aggregated
+     * before being sent.
+     *
+     * @return The flush interval, in milliseconds.
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    /**
+     * Queues a data point to be published. The data point must have either a
+     * value or a set of statistic values; its timestamp, if any, is kept to
+     * the minute.
+     *
+     * @param datum
+     *            The data point to publish.
+     *
+     * @return True if the data point was queued, or false if it was dropped
+     *         because the queue is full or the publisher has been shut down.
+     *
+     * @throws AmazonClientException
+     *             If the data point has no metric name, has neither a value
+     *             nor statistic values, or has a dimension without a name or
+     *             value.
+     */
+    public boolean publish(MetricDatum datum) {
+        validate(datum);
+        if (!shutdown && queue.offer(datum)) return true;
+
+        droppedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Queues a single value to be published.
+     *
+     * @param metricName
+     *            The name of the metric.
+     * @param value
+     *            The value to publish.
+     * @param unit
+     *            The unit of the value.
+     * @param dimensions
+     *            The dimensions of the metric, if any.
+     *
+     * @return True if the value was queued, or false if it was dropped.
+     */
+    public boolean publish(String metricName, double value, StandardUnit unit, Dimension... dimensions) {
+        return publish(new MetricDatum()
+                .withMetricName(metricName)
+                .withValue(value)
+                .withUnit(unit.toString())
+                .withDimensions(dimensions));
+    }
+
+    /**
+     * Checks that a data point can be aggregated and sent, so that a bad data
+     * point is reported to the caller publishing it rather than failing on
+     * the background thread.
+     */
+    private static void validate(MetricDatum datum) {
+        if (datum == null) throw new AmazonClientException("The metric datum must not be null");
+        if (datum.getMetricName() == null) {
+            throw new AmazonClientException("The metric datum has no metric name: " + datum);
+        }
+        if (datum.getValue() == null && datum.getStatisticValues() == null) {
+            throw new AmazonClientException("The metric datum has neither a value nor statistic values: " + datum);
+        }
+        for (Dimension dimension : datum.getDimensions()) {
+            if (dimension == null || dimension.getName() == null || dimension.getValue() == null) {
+                throw new AmazonClientException("The metric datum has a dimension without a name or value: " + datum);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of data points dropped so far because the queue was
+     * full or the publisher had been shut down.
+     *
+     * @return The number of data points dropped.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops accepting data points, sends whatever has been aggregated so far,
+     * and waits for the background thread to finish.
+     */
+    public void shutdown() {
+        shutdown = true;
+        try {
+            publisherThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runPublisher() {
+        Map<String, Aggregate> aggregates = new LinkedHashMap<String, Aggregate>();
+        long nextFlush = System.currentTimeMillis() + flushIntervalMillis;
+
+        while (true) {
+            try {
+                long wait = Math.min(POLL_INTERVAL_MILLIS, nextFlush - System.currentTimeMillis());
+                MetricDatum datum = (wait > 0) ? queue.poll(wait, TimeUnit.MILLISECONDS) : null;
+                if (datum != null) {
+                    aggregate(aggregates, datum);
+                    List<MetricDatum> queued = new ArrayList<MetricDatum>();
+                    queue.drainTo(queued);
+                    for (MetricDatum queuedDatum : queued) {
+                        aggregate(aggregates, queuedDatum);
+                    }
+                }
+            } catch (InterruptedException e) {
+                shutdown = true;
+            }
+
+            boolean stopping = shutdown;
+            if (stopping) {
+                List<MetricDatum> queued = new ArrayList<MetricDatum>();
+                queue.drainTo(queued);
+                for (MetricDatum queuedDatum : queued) {
+                    aggregate(aggregates, queuedDatum);
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            if (stopping || now >= nextFlush) {
+                try {
+                    send(aggregates.values(), new Date(now));
+                } catch (RuntimeException e) {
+                    log.warn("Unable to publish metric data: " + e.getMessage(), e);
+                }
+                aggregates.clear();
+                nextFlush = now + flushIntervalMillis;
+            }
+            if (stopping) return;
+        }
+    }
+
+    /**
+     * Adds a data point to the aggregate for its metric, unit, dimensions and
+     * timestamp minute. Data points are validated when they're published, but
+     * they're mutable, so one that can no longer be aggregated is logged and
+     * skipped without affecting the others.
+     */
+    private void aggregate(Map<String, Aggregate> aggregates, MetricDatum datum) {
+        try {
+            validate(datum);
+            addToAggregate(aggregates, datum);
+        } catch (RuntimeException e) {
+            log.warn("Skipping metric datum that can't be aggregated: " + e.getMessage(), e);
+        }
+    }
+
+    private void addToAggregate(Map<String, Aggregate> aggregates, MetricDatum datum) {
+        StatisticSet statistics = datum.getStatisticValues();
+        List<Dimension> dimensions = datum.getDimensions();
+        Long minute = (datum.getTimestamp() == null) ? null : datum.getTimestamp().getTime() / 60000;
+
+        StringBuilder key = new StringBuilder(datum.getMetricName());
+        key.append('\n').append(datum.getUnit()).append('\n').append(minute);
+        String[] dimensionKeys = new String[dimensions.size()];
+        for (int i = 0; i < dimensionKeys.length; i++) {
+            dimensionKeys[i] = dimensions.get(i).getName() + "=" + dimensions.get(i).getValue();
+        }
+        Arrays.sort(dimensionKeys);
+        for (String dimensionKey : dimensionKeys) {
+            key.append('\n').append(dimensionKey);
+        }
+
+        Aggregate aggregate = aggregates.get(key.toString());
+        if (aggregate == null) {
+            aggregate = new Aggregate(datum.getMetricName(), datum.getUnit(), dimensions, minute);
+            aggregates.put(key.toString(), aggregate);
+        }
+
+        if (statistics != null) {
+            aggregate.add(statistics.getSampleCount(), statistics.getSum(),
+                    statistics.getMinimum(), statistics.getMaximum());
+        } else {
+            double value = datum.getValue();
+            aggregate.add(1.0, value, value, value);
+        }
+    }
+
+    /**
+     * Sends the aggregated data in as few PutMetricData requests as the
+     * service's limits allow.
+     */
+    private void send(Collection<Aggregate> aggregates, Date now) {
+        List<MetricDatum> batch = new ArrayList<MetricDatum>(MAX_DATUMS_PER_REQUEST);
+        int batchBytes = 0;
+        for (Aggregate aggregate : aggregates) {
+            MetricDatum datum;
+            int datumBytes;
+            try {
+                datum = aggregate.toMetricDatum(now);
+                datumBytes = estimateEncodedSize(datum);
+            } catch (RuntimeException e) {
+                log.warn("Skipping aggregated metric data that can't be sent: " + e.getMessage(), e);
+                continue;
+            }
+            if (batch.size() == MAX_DATUMS_PER_REQUEST
+                    || (!batch.isEmpty() && batchBytes + datumBytes > MAX_REQUEST_BYTES)) {
+                putMetricData(batch);
+                batch = new ArrayList<MetricDatum>(MAX_DATUMS_PER_REQUEST);
+                batchBytes = 0;
+            }
+            batch.add(datum);
+            batchBytes += datumBytes;
+        }
+        if (!batch.isEmpty()) putMetricData(batch);
+    }
+
+    private void putMetricData(List<MetricDatum> batch) {
+        try {
+            cloudWatch.putMetricData(new PutMetricDataRequest()
+                    .withNamespace(namespace)
+                    .withMetricData(batch));
+        } catch (AmazonClientException e) {
+            log.warn("Unable to publish " + batch.size() + " metric data points to namespace "
+                    + namespace + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a rough upper bound on the number of bytes a data point adds to
+     * the form encoded body of a PutMetricData request.
+     */
+    private static int estimateEncodedSize(MetricDatum datum) {
+        // Parameter names such as MetricData.member.20.StatisticValues.SampleCount,
+        // plus up to 24 characters for each number
+        int size = 6 * 80 + 3 * datum.getMetricName().length();
+        if (datum.getUnit() != null) size += datum.getUnit().length();
+        for (Dimension dimension : datum.getDimensions()) {
+            size += 2 * 80 + 3 * (dimension.getName().length() + dimension.getValue().length());
+        }
+        return size;
+    }
+
+    /**
+     * The statistics aggregated for a single metric over a flush interval.
+     */
+    private static final class Aggregate {
+        private final String metricName;
+        private final String unit;
+        private final List<Dimension> dimensions;
+        private final Long minute;
+        private double sampleCount;
+        private double sum;
+        private double minimum = Double.POSITIVE_INFINITY;
+        private double maximum = Double.NEGATIVE_INFINITY;
+
+        Aggregate(String metricName, String unit, List<Dimension> dimensions, Long minute) {
+            this.metricName = metricName;
+            this.unit = unit;
+            this.dimensions = dimensions;
+            this.minute = minute;
+        }
+
+        void add(Double count, Double total, Double min, Double max) {
+            if (count != null) sampleCount += count;
+            if (total != null) sum += total;
+            if (min != null) minimum = Math.min(minimum, min);
+            if (max != null) maximum = Math.max(maximum, max);
+        }
+
+        MetricDatum toMetricDatum(Date now) {
+            return new MetricDatum()
+                .withMetricName(metricName)
+                .withUnit(unit)
+                .withDimensions(dimensions)
+                .withTimestamp((minute == null) ? now : new Date(minute * 60000))
+                .withStatisticValues(new StatisticSet()
+                    .withSampleCount(sampleCount)
+                    .withSum(sum)
+                    .withMinimum(minimum == Double.POSITIVE_INFINITY ? sum : minimum)
+                    .withMaximum(maximum == Double.NEGATIVE_INFINITY ? sum : maximum));
+        }
+    }
+}
@@ -18,7 +18,7 @@ package com.amazonaws.services.ec2.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.ec2.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,10 +43,10 @@ public class AllocateAddressResultStaxUnmarshaller implements Unmarshaller<Alloc
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return allocateAddressResult;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return allocateAddressResult;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("publicIp", targetDepth)) {
                     allocateAddressResult.setPublicIp(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -59,7 +59,7 @@ public class AllocateAddressResultStaxUnmarshaller implements Unmarshaller<Alloc
                     allocateAddressResult.setAllocationId(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return allocateAddressResult;
                 }
@@ -18,7 +18,7 @@ package com.amazonaws.services.elasticache.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.elasticache.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -45,10 +45,10 @@ public class CacheClusterStaxUnmarshaller implements Unmarshaller<CacheCluster,
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return cacheCluster;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return cacheCluster;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("CacheClusterId", targetDepth)) {
                     cacheCluster.setCacheClusterId(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -109,7 +109,7 @@ public class CacheClusterStaxUnmarshaller implements Unmarshaller<CacheCluster,
                     cacheCluster.setAutoMinorVersionUpgrade(BooleanStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return cacheCluster;
                 }
@@ -18,7 +18,7 @@ package com.amazonaws.services.elasticache.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.elasticache.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -45,10 +45,10 @@ public class EngineDefaultsStaxUnmarshaller implements Unmarshaller<EngineDefaul
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return engineDefaults;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return engineDefaults;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("CacheParameterGroupFamily", targetDepth)) {
                     engineDefaults.setCacheParameterGroupFamily(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -65,7 +65,7 @@ public class EngineDefaultsStaxUnmarshaller implements Unmarshaller<EngineDefaul
                     engineDefaults.getCacheNodeTypeSpecificParameters().add(CacheNodeTypeSpecificParameterStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return engineDefaults;
                 }
@@ -18,7 +18,7 @@ package com.amazonaws.services.elasticbeanstalk.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.elasticbeanstalk.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,10 +43,10 @@ public class ConfigurationOptionDescriptionStaxUnmarshaller implements Unmarshal
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return configurationOptionDescription;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return configurationOptionDescription;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("Namespace", targetDepth)) {
                     configurationOptionDescription.setNamespace(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -91,7 +91,7 @@ public class ConfigurationOptionDescriptionStaxUnmarshaller implements Unmarshal
                     configurationOptionDescription.setRegex(OptionRestrictionRegexStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return configurationOptionDescription;
                 }
@@ -18,7 +18,7 @@ package com.amazonaws.services.elasticloadbalancing.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.elasticloadbalancing.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,11 +43,11 @@ public class CreateAppCookieStickinessPolicyResultStaxUnmarshaller implements Un
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return createAppCookieStickinessPolicyResult;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return createAppCookieStickinessPolicyResult;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
-            } else if (xmlEvent.isEndElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return createAppCookieStickinessPolicyResult;
                 }
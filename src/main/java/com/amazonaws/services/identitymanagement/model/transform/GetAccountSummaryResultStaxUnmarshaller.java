@@ -18,7 +18,7 @@ package com.amazonaws.services.identitymanagement.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.identitymanagement.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,10 +43,10 @@ public class GetAccountSummaryResultStaxUnmarshaller implements Unmarshaller<Get
                 = new MapEntry<String, Integer>();
 
             while (true) {
-                XMLEvent xmlEvent = context.nextEvent();
-                if (xmlEvent.isEndDocument()) return entry;
+                int xmlEvent = context.nextEvent();
+                if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return entry;
 
-                if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+                if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                     if (context.testExpression("key", targetDepth)) {
                         entry.setKey(StringStaxUnmarshaller.getInstance().unmarshall(context));
                         continue;
@@ -55,7 +55,7 @@ public class GetAccountSummaryResultStaxUnmarshaller implements Unmarshaller<Get
                         entry.setValue(IntegerStaxUnmarshaller.getInstance().unmarshall(context));
                         continue;
                     }
-                } else if (xmlEvent.isEndElement()) {
+                } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                     if (context.getCurrentDepth() < originalDepth) return entry;
                 }
             }
@@ -79,16 +79,16 @@ public class GetAccountSummaryResultStaxUnmarshaller implements Unmarshaller<Get
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return getAccountSummaryResult;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return getAccountSummaryResult;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("SummaryMap/entry", targetDepth)) {
                     Entry<String, Integer> entry = SummaryMapMapEntryUnmarshaller.getInstance().unmarshall(context);
                     getAccountSummaryResult.getSummaryMap().put(entry.getKey(), entry.getValue());
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return getAccountSummaryResult;
                 }
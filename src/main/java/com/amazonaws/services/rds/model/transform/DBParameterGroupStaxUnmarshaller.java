@@ -18,7 +18,7 @@ package com.amazonaws.services.rds.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.rds.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -45,10 +45,10 @@ public class DBParameterGroupStaxUnmarshaller implements Unmarshaller<DBParamete
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return dBParameterGroup;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return dBParameterGroup;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("DBParameterGroupName", targetDepth)) {
                     dBParameterGroup.setDBParameterGroupName(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -61,7 +61,7 @@ public class DBParameterGroupStaxUnmarshaller implements Unmarshaller<DBParamete
                     dBParameterGroup.setDescription(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return dBParameterGroup;
                 }
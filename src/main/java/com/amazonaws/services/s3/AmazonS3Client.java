@@ -14,7 +14,6 @@
  */
 package com.amazonaws.services.s3;
 
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -56,7 +55,7 @@ import com.amazonaws.http.HttpResponseHandler;
 import com.amazonaws.services.s3.internal.BucketNameUtils;
 import com.amazonaws.services.s3.internal.Constants;
 import com.amazonaws.services.s3.internal.CopyObjectResponseHandler;
-import com.amazonaws.services.s3.internal.InputSubstream;
+import com.amazonaws.services.s3.internal.FileRegionInputStream;
 import com.amazonaws.services.s3.internal.MD5DigestCalculatingInputStream;
 import com.amazonaws.services.s3.internal.Mimetypes;
 import com.amazonaws.services.s3.internal.ProgressReportingInputStream;
@@ -184,6 +183,12 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
     /** Shared factory for converting configuration objects to XML */
     private static final BucketConfigurationXmlFactory bucketConfigurationXmlFactory = new BucketConfigurationXmlFactory();
 
+    /**
+     * True if the MD5 of file uploads is calculated while the file is sent,
+     * instead of in a separate pass before the upload starts.
+     */
+    private volatile boolean streamingFileUploadMd5 = false;
+
 
     /**
      * <p>
@@ -272,6 +277,41 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
     	requestHandlers.add(requestHandler);
     }
 
+    /**
+     * Sets whether the MD5 of a file uploaded with
+     * {@link #putObject(PutObjectRequest)} is calculated while the file is
+     * being sent, rather than in a separate pass before the upload starts.
+     * <p>
+     * By default the whole file is read once to calculate its Content-MD5
+     * before it's sent, which lets Amazon S3 reject a corrupted upload
+     * without storing it. When streaming is enabled, the file is read only
+     * once and the digest calculated on the fly is checked against the ETag
+     * returned by Amazon S3; a mismatch is reported as an error, but the
+     * corrupted object will already have been stored. This roughly halves
+     * the disk I/O of large file uploads. Requests whose metadata already
+     * specifies a Content-MD5 are unaffected.
+     *
+     * @param streamingFileUploadMd5
+     *            True to calculate the MD5 of file uploads while sending
+     *            them.
+     */
+    public void setStreamingFileUploadMd5(boolean streamingFileUploadMd5) {
+        this.streamingFileUploadMd5 = streamingFileUploadMd5;
+    }
+
+    /**
+     * Returns true if the MD5 of file uploads is calculated while the file is
+     * being sent, rather than in a separate pass before the upload starts.
+     *
+     * @return True if the MD5 of file uploads is calculated while sending
+     *         them.
+     *
+     * @see #setStreamingFileUploadMd5(boolean)
+     */
+    public boolean isStreamingFileUploadMd5() {
+        return streamingFileUploadMd5;
+    }
+
 
     /* (non-Javadoc)
      * @see com.amazonaws.services.s3.AmazonS3#listNextBatchOfVersions(com.amazonaws.services.s3.model.S3VersionListing)
@@ -804,12 +844,31 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
         // getObject can return null if constraints were specified but not met
         if (s3Object == null) return null;
 
+        /*
+         * Multipart Uploads don't have an MD5 calculated on the service side,
+         * and a ranged download only covers part of the object, so only whole
+         * single part objects can be verified. The hash is calculated as the
+         * content is streamed to disk, so the file doesn't have to be read
+         * back afterwards.
+         */
+        InputStream input = s3Object.getObjectContent();
+        MD5DigestCalculatingInputStream digestInput = null;
+        if (getObjectRequest.getRange() == null
+                && isMultipartUploadETag(s3Object.getObjectMetadata().getETag()) == false) {
+            try {
+                digestInput = new MD5DigestCalculatingInputStream(input);
+                input = digestInput;
+            } catch (NoSuchAlgorithmException e) {
+                log.warn("Unable to calculate MD5 hash to validate download: " + e.getMessage(), e);
+            }
+        }
+
         OutputStream outputStream = null;
         try {
-            outputStream = new BufferedOutputStream(new FileOutputStream(destinationFile));
-            byte[] buffer = new byte[1024*10];
+            outputStream = new FileOutputStream(destinationFile);
+            byte[] buffer = new byte[1024*128];
             int bytesRead;
-            while ((bytesRead = s3Object.getObjectContent().read(buffer)) > -1) {
+            while ((bytesRead = input.read(buffer)) > -1) {
                 outputStream.write(buffer, 0, bytesRead);
             }
         } catch (IOException e) {
@@ -820,20 +879,15 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
             try {s3Object.getObjectContent().close();} catch (Exception e) {}
         }
 
-        try {
-        	// Multipart Uploads don't have an MD5 calculated on the service side 
-        	if (isMultipartUploadETag(s3Object.getObjectMetadata().getETag()) == false) {
-	            byte[] clientSideHash = ServiceUtils.computeMD5Hash(new FileInputStream(destinationFile));
-	            byte[] serverSideHash = ServiceUtils.fromHex(s3Object.getObjectMetadata().getETag());
-	
-	            if (!Arrays.equals(clientSideHash, serverSideHash)) {
-	                throw new AmazonClientException("Unable to verify integrity of data download.  " +
-	                        "Client calculated content hash didn't match hash calculated by Amazon S3.  " +
-	                        "The data stored in '" + destinationFile.getAbsolutePath() + "' may be corrupt.");
-	            }
-        	}
-        } catch (Exception e) {
-            log.warn("Unable to calculate MD5 hash to validate download: " + e.getMessage(), e);
+        if (digestInput != null) {
+            byte[] clientSideHash = digestInput.getMd5Digest();
+            byte[] serverSideHash = ServiceUtils.fromHex(s3Object.getObjectMetadata().getETag());
+
+            if (!Arrays.equals(clientSideHash, serverSideHash)) {
+                throw new AmazonClientException("Unable to verify integrity of data download.  " +
+                        "Client calculated content hash didn't match hash calculated by Amazon S3.  " +
+                        "The data stored in '" + destinationFile.getAbsolutePath() + "' may be corrupt.");
+            }
         }
 
         return s3Object.getObjectMetadata();
@@ -915,16 +969,16 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
                 metadata.setContentType(Mimetypes.getInstance().getMimetype(file));
             }
 
-            FileInputStream fileInputStream = null;
-            try {
-                fileInputStream = new FileInputStream(file);
-                byte[] md5Hash = ServiceUtils.computeMD5Hash(fileInputStream);
-                metadata.setContentMD5(ServiceUtils.toBase64(md5Hash));
-            } catch (Exception e) {
-                throw new AmazonClientException(
-                        "Unable to calculate MD5 hash: " + e.getMessage(), e);
-            } finally {
-                try {fileInputStream.close();} catch (Exception e) {}
+            // Unless the MD5 is calculated while streaming (below), compute
+            // it up front so Amazon S3 can reject a corrupted upload
+            if (metadata.getContentMD5() == null && !streamingFileUploadMd5) {
+                try {
+                    byte[] md5Hash = ServiceUtils.computeMD5Hash(file);
+                    metadata.setContentMD5(ServiceUtils.toBase64(md5Hash));
+                } catch (Exception e) {
+                    throw new AmazonClientException(
+                            "Unable to calculate MD5 hash: " + e.getMessage(), e);
+                }
             }
 
             try {
@@ -1818,7 +1872,7 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
             inputStream = uploadPartRequest.getInputStream();
         } else if (uploadPartRequest.getFile() != null) {
             try {
-                inputStream = new InputSubstream(new RepeatableFileInputStream(uploadPartRequest.getFile()),
+                inputStream = new FileRegionInputStream(uploadPartRequest.getFile(),
                         uploadPartRequest.getFileOffset(), partSize);
             } catch (FileNotFoundException e) {
                 throw new IllegalArgumentException("The specified file doesn't exist", e);
@@ -14,14 +14,13 @@
  */
 package com.amazonaws.services.s3;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
@@ -41,6 +40,7 @@ import com.amazonaws.services.s3.internal.crypto.JceEncryptionConstants;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
+import com.amazonaws.services.s3.model.CryptoMode;
 import com.amazonaws.services.s3.model.CryptoStorageMode;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
 import com.amazonaws.services.s3.model.EncryptionMaterials;
@@ -70,7 +70,7 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
     private static Log log = LogFactory.getLog(AmazonS3EncryptionClient.class);
 
     /** Map of data about in progress encrypted multipart uploads. */
-    private Map<String, EncryptedUploadContext> currentMultipartUploadSecretKeys = new HashMap<String, EncryptedUploadContext>();
+    private Map<String, EncryptedUploadContext> currentMultipartUploadSecretKeys = new ConcurrentHashMap<String, EncryptedUploadContext>();
 
 
     /**
@@ -231,8 +231,10 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
         // range of bytes.
         long[] desiredRange = getObjectRequest.getRange();
         long[] adjustedCryptoRange = EncryptionUtils.getAdjustedCryptoRange(desiredRange);
+        long cipherTextOffset = 0;
         if (adjustedCryptoRange != null) {
             getObjectRequest.setRange(adjustedCryptoRange[0], adjustedCryptoRange[1]);
+            cipherTextOffset = adjustedCryptoRange[0];
         }
 
         // Get the object from S3
@@ -245,12 +247,12 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
         S3Object objectToBeReturned;
         // Check if encryption info is in object metadata
         if (EncryptionUtils.isEncryptionInfoInMetadata(retrievedObject)) {
-            objectToBeReturned = decryptObjectUsingMetadata(retrievedObject);
+            objectToBeReturned = decryptObjectUsingMetadata(retrievedObject, cipherTextOffset);
         } else {
             // Check if encrypted info is in an instruction file
             S3Object instructionFile = getInstructionFile(getObjectRequest);
             if (EncryptionUtils.isEncryptionInfoInInstructionFile(instructionFile)) {
-                objectToBeReturned = decryptObjectUsingInstructionFile(retrievedObject, instructionFile);
+                objectToBeReturned = decryptObjectUsingInstructionFile(retrievedObject, instructionFile, cipherTextOffset);
             } else {
                 // The object was not encrypted to begin with.  Return the object without decrypting it.
                 log.warn(String.format("Unable to detect encryption information for object '%s' in bucket '%s'. " +
@@ -279,8 +281,8 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
 
         OutputStream outputStream = null;
         try {
-            outputStream = new BufferedOutputStream(new FileOutputStream(destinationFile));
-            byte[] buffer = new byte[1024*10];
+            outputStream = new FileOutputStream(destinationFile);
+            byte[] buffer = new byte[1024*128];
             int bytesRead;
             while ((bytesRead = s3Object.getObjectContent().read(buffer)) > -1) {
                 outputStream.write(buffer, 0, bytesRead);
@@ -325,7 +327,8 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
     	String uploadId = completeMultipartUploadRequest.getUploadId();
     	EncryptedUploadContext encryptedUploadContext = currentMultipartUploadSecretKeys.get(uploadId);
 
-    	if (encryptedUploadContext.hasFinalPartBeenSeen() == false) {
+    	// Data encrypted in the Counter mode has no padding, so it's complete without a marked last part
+    	if (encryptedUploadContext.getCryptoMode() != CryptoMode.Counter && encryptedUploadContext.hasFinalPartBeenSeen() == false) {
     		throw new AmazonClientException("Unable to complete an encrypted multipart upload without being told which part was the last.  " +
     				"Without knowing which part was the last, the encrypted data in Amazon S3 is incomplete and corrupt.");
     	}
@@ -337,7 +340,7 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
 	        Cipher symmetricCipher = EncryptionUtils.createSymmetricCipher(
 	        		encryptedUploadContext.getEnvelopeEncryptionKey(),
 	        		Cipher.ENCRYPT_MODE, cryptoConfig.getCryptoProvider(),
-	        		encryptedUploadContext.getFirstInitializationVector());
+	        		encryptedUploadContext.getFirstInitializationVector(), encryptedUploadContext.getCryptoMode());
 
 	        // Encrypt the envelope symmetric key
 	        byte[] encryptedEnvelopeSymmetricKey = EncryptionUtils.getEncryptedSymmetricKey(encryptedUploadContext.getEnvelopeEncryptionKey(), encryptionMaterials, cryptoConfig.getCryptoProvider());
@@ -360,8 +363,9 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
 			throws AmazonClientException, AmazonServiceException {
 
         // Generate a one-time use symmetric key and initialize a cipher to encrypt object data
+        CryptoMode cryptoMode = cryptoConfig.getCryptoMode();
         SecretKey envelopeSymmetricKey = EncryptionUtils.generateOneTimeUseSymmetricKey();
-        Cipher symmetricCipher = EncryptionUtils.createSymmetricCipher(envelopeSymmetricKey, Cipher.ENCRYPT_MODE, cryptoConfig.getCryptoProvider(), null);
+        Cipher symmetricCipher = EncryptionUtils.createSymmetricCipher(envelopeSymmetricKey, Cipher.ENCRYPT_MODE, cryptoConfig.getCryptoProvider(), null, cryptoMode);
 
 		if (cryptoConfig.getStorageMode() == CryptoStorageMode.ObjectMetadata) {
 			// Encrypt the envelope symmetric key
@@ -375,7 +379,7 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
 		}
 
 		InitiateMultipartUploadResult result = super.initiateMultipartUpload(initiateMultipartUploadRequest);
-		EncryptedUploadContext encryptedUploadContext = new EncryptedUploadContext(initiateMultipartUploadRequest.getBucketName(), initiateMultipartUploadRequest.getKey(), envelopeSymmetricKey);
+		EncryptedUploadContext encryptedUploadContext = new EncryptedUploadContext(initiateMultipartUploadRequest.getBucketName(), initiateMultipartUploadRequest.getKey(), envelopeSymmetricKey, cryptoMode);
 		encryptedUploadContext.setNextInitializationVector(symmetricCipher.getIV());
 		encryptedUploadContext.setFirstInitializationVector(symmetricCipher.getIV());
 		currentMultipartUploadSecretKeys.put(result.getUploadId(), encryptedUploadContext);
@@ -405,8 +409,18 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
     	if (encryptedUploadContext == null) throw new AmazonClientException("No client-side information available on upload ID " + uploadId);
 
         SecretKey envelopeSymmetricKey = encryptedUploadContext.getEnvelopeEncryptionKey();
-        byte[] iv = encryptedUploadContext.getNextInitializationVector();
-        Cipher symmetricCipher = EncryptionUtils.createSymmetricCipher(envelopeSymmetricKey, Cipher.ENCRYPT_MODE, cryptoConfig.getCryptoProvider(), iv);
+        CryptoMode cryptoMode = encryptedUploadContext.getCryptoMode();
+        byte[] iv;
+        if (cryptoMode == CryptoMode.Counter) {
+            // Each part's counter starts from the part's position in the object, so parts don't depend on each other
+            long fileOffset = (uploadPartRequest.getFile() != null) ? uploadPartRequest.getFileOffset() : -1;
+            long partPosition = encryptedUploadContext.getPartPosition(uploadPartRequest.getPartNumber(),
+                    uploadPartRequest.getPartSize(), isLastPart, fileOffset);
+            iv = EncryptionUtils.getCounterInitializationVector(encryptedUploadContext.getFirstInitializationVector(), partPosition);
+        } else {
+            iv = encryptedUploadContext.getNextInitializationVector();
+        }
+        Cipher symmetricCipher = EncryptionUtils.createSymmetricCipher(envelopeSymmetricKey, Cipher.ENCRYPT_MODE, cryptoConfig.getCryptoProvider(), iv, cryptoMode);
 
         // Create encrypted input stream
         InputStream encryptedInputStream = EncryptionUtils.getEncryptedInputStream(uploadPartRequest, symmetricCipher);
@@ -433,16 +447,32 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
 
     	UploadPartResult result = super.uploadPart(uploadPartRequest);
 
-    	if (encryptedInputStream instanceof ByteRangeCapturingInputStream) {
-    		ByteRangeCapturingInputStream bris = (ByteRangeCapturingInputStream)encryptedInputStream;
-    		encryptedUploadContext.setNextInitializationVector(bris.getBlock());
-    	} else {
-    		throw new AmazonClientException("Unable to access last block of encrypted data");
+    	// In the Cipher Block Chaining mode, the last cipher block of this part is the IV for the next part
+    	if (cryptoMode != CryptoMode.Counter) {
+    		if (encryptedInputStream instanceof ByteRangeCapturingInputStream) {
+    			ByteRangeCapturingInputStream bris = (ByteRangeCapturingInputStream)encryptedInputStream;
+    			encryptedUploadContext.setNextInitializationVector(bris.getBlock());
+    		} else {
+    			throw new AmazonClientException("Unable to access last block of encrypted data");
+    		}
     	}
 
 		return result;
     }
 
+    /**
+     * Returns true if the parts of a multipart upload made through this client
+     * can be uploaded in parallel, in any order. This is only the case when the
+     * client is configured with the {@link CryptoMode#Counter} crypto mode;
+     * otherwise each part's encryption depends on the part before it.
+     *
+     * @return True if the parts of a multipart upload made through this client
+     *         can be uploaded in parallel.
+     */
+    public boolean isParallelPartUploadSupported() {
+        return cryptoConfig.getCryptoMode() == CryptoMode.Counter;
+    }
+
 
     /*
      * Private helper methods
@@ -467,7 +497,7 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
     private PutObjectResult putObjectUsingMetadata(PutObjectRequest putObjectRequest)
     throws AmazonClientException, AmazonServiceException {
         // Create instruction
-        EncryptionInstruction instruction = EncryptionUtils.generateInstruction(this.encryptionMaterials, this.cryptoConfig.getCryptoProvider());
+        EncryptionInstruction instruction = EncryptionUtils.generateInstruction(this.encryptionMaterials, this.cryptoConfig.getCryptoProvider(), this.cryptoConfig.getCryptoMode());
 
         // Encrypt the object data with the instruction
         PutObjectRequest encryptedObjectRequest = EncryptionUtils.encryptRequestUsingInstruction(putObjectRequest, instruction);
@@ -498,7 +528,7 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
     private PutObjectResult putObjectUsingInstructionFile(PutObjectRequest putObjectRequest)
     throws AmazonClientException, AmazonServiceException {
         // Create instruction
-        EncryptionInstruction instruction = EncryptionUtils.generateInstruction(this.encryptionMaterials, this.cryptoConfig.getCryptoProvider());
+        EncryptionInstruction instruction = EncryptionUtils.generateInstruction(this.encryptionMaterials, this.cryptoConfig.getCryptoProvider(), this.cryptoConfig.getCryptoMode());
 
         // Encrypt the object data with the instruction
         PutObjectRequest encryptedObjectRequest = EncryptionUtils.encryptRequestUsingInstruction(putObjectRequest, instruction);
@@ -519,15 +549,17 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
      *
      * @param object
      *      The S3Object to be decrypted.
+     * @param cipherTextOffset
+     *      The position in the encrypted object of the first byte of the retrieved object contents.
      * @return
      *      An S3Object with decrypted object contents.  If decryption is not possible, returns null.
      */
-    private S3Object decryptObjectUsingMetadata(S3Object object) {
+    private S3Object decryptObjectUsingMetadata(S3Object object, long cipherTextOffset) {
         // Create an instruction object from the object headers
         EncryptionInstruction instruction = EncryptionUtils.buildInstructionFromObjectMetadata( object, this.encryptionMaterials, this.cryptoConfig.getCryptoProvider() );
         
         // Decrypt the object file with the instruction
-        return EncryptionUtils.decryptObjectUsingInstruction(object, instruction);
+        return EncryptionUtils.decryptObjectUsingInstruction(object, instruction, cipherTextOffset);
     }
 
     /**
@@ -537,15 +569,17 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
      *      The S3Object to be decrypted.
      * @param instructionFile
      *      The S3Object instruction file to be used to decrypt the object.
+     * @param cipherTextOffset
+     *      The position in the encrypted object of the first byte of the retrieved object contents.
      * @return
      *      An S3Object with decrypted object contents.
      */
-    private S3Object decryptObjectUsingInstructionFile(S3Object object, S3Object instructionFile) {
+    private S3Object decryptObjectUsingInstructionFile(S3Object object, S3Object instructionFile, long cipherTextOffset) {
         // Create an instruction object from the retrieved instruction file
         EncryptionInstruction instruction = EncryptionUtils.buildInstructionFromInstructionFile(instructionFile, this.encryptionMaterials, this.cryptoConfig.getCryptoProvider());
 
         // Decrypt the object file with the instruction
-        return EncryptionUtils.decryptObjectUsingInstruction(object, instruction);
+        return EncryptionUtils.decryptObjectUsingInstruction(object, instruction, cipherTextOffset);
     }
 
     /**
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Filtered reader that replaces carriage return (\r) characters with the
+ * explicit XML character entity "&amp;#013;" as the data is read, so that a
+ * SAX parser doesn't normalize them to line feeds. Escaping while streaming
+ * avoids buffering the whole document in memory before parsing it.
+ */
+public final class CarriageReturnEscapingReader extends FilterReader {
+    private static final char[] ESCAPED_CARRIAGE_RETURN = "&#013;".toCharArray();
+
+    /** Characters read from the wrapped reader but not yet returned. */
+    private final char[] buffer = new char[8192];
+    private int bufferPosition;
+    private int bufferLimit;
+
+    /**
+     * The index of the next character of an escaped carriage return to
+     * return, or the escape's length if none is pending.
+     */
+    private int pendingEscapeIndex = ESCAPED_CARRIAGE_RETURN.length;
+
+    /**
+     * Constructs a new reader escaping the carriage returns read from the
+     * specified reader.
+     *
+     * @param in
+     *            The reader to wrap.
+     */
+    public CarriageReturnEscapingReader(Reader in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        char[] c = new char[1];
+        int read = read(c, 0, 1);
+
+        if (read == -1) return -1;
+        return c[0];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int count = 0;
+        while (count < len) {
+            if (pendingEscapeIndex < ESCAPED_CARRIAGE_RETURN.length) {
+                cbuf[off + count++] = ESCAPED_CARRIAGE_RETURN[pendingEscapeIndex++];
+                continue;
+            }
+
+            if (bufferPosition == bufferLimit) {
+                // Don't block for more data if we already have some to return
+                if (count > 0) break;
+
+                int read = in.read(buffer, 0, buffer.length);
+                if (read == -1) return -1;
+                bufferPosition = 0;
+                bufferLimit = read;
+                continue;
+            }
+
+            char c = buffer[bufferPosition++];
+            if (c == '\r') {
+                pendingEscapeIndex = 0;
+            } else {
+                cbuf[off + count++] = c;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        char[] skipBuffer = new char[(int)Math.min(n, 1024)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(skipBuffer, 0, (int)Math.min(n - skipped, skipBuffer.length));
+            if (read == -1) break;
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return pendingEscapeIndex < ESCAPED_CARRIAGE_RETURN.length
+            || bufferPosition < bufferLimit
+            || in.ready();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported");
+    }
+}
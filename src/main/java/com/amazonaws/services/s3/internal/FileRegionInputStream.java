@@ -0,0 +1,119 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A repeatable input stream for a region of a file, such as one part of a
+ * multipart upload. Reads go straight from the file's channel into the
+ * caller's buffer at an explicit position, so the stream never skips through
+ * the file to reach the region, and streams for many regions of the same
+ * file can be read in parallel without sharing a file pointer. Resetting
+ * only moves the position back to the mark, so repeating the stream for a
+ * retry doesn't reopen the file.
+ */
+public class FileRegionInputStream extends InputStream {
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+    private long markedPosition;
+
+    /**
+     * Creates a repeatable input stream for a region of a file.
+     *
+     * @param file
+     *            The file from which this input stream reads data.
+     * @param offset
+     *            The offset in the file at which the region starts.
+     * @param length
+     *            The length of the region.
+     *
+     * @throws FileNotFoundException
+     *             If the specified file doesn't exist, or can't be opened.
+     */
+    public FileRegionInputStream(File file, long offset, long length) throws FileNotFoundException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.position = offset;
+        this.markedPosition = offset;
+        this.end = offset + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int bytesRead = read(b, 0, 1);
+
+        if (bytesRead == -1) return bytesRead;
+        return b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (position >= end) return -1;
+
+        len = (int)Math.min(len, end - position);
+        int bytesRead = channel.read(ByteBuffer.wrap(b, off, len), position);
+        if (bytesRead == -1) return -1;
+
+        position += bytesRead;
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = Math.max(0, Math.min(n, end - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int)Math.min(Math.max(end - position, 0), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        markedPosition = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        position = markedPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
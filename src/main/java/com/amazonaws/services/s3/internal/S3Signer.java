@@ -88,6 +88,7 @@ public class S3Signer extends AbstractAWSSigner {
             return;
         }
 
+        long startNanos = System.nanoTime();
         AWSCredentials sanitizedCredentials = sanitizeCredentials(credentials);
         if ( sanitizedCredentials instanceof AWSSessionCredentials ) {
         	addSessionCredentials(request, (AWSSessionCredentials) sanitizedCredentials);
@@ -100,6 +101,7 @@ public class S3Signer extends AbstractAWSSigner {
 
         String signature = super.sign(canonicalString, sanitizedCredentials.getAWSSecretKey(), SigningAlgorithm.HmacSHA1);
         request.addHeader("Authorization", "AWS " + sanitizedCredentials.getAWSAccessKeyId() + ":" + signature);
+        recordSigningLatency(request, startNanos);
     }
 
     @Override
@@ -19,12 +19,16 @@ package com.amazonaws.services.s3.internal;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -191,6 +195,35 @@ public class ServiceUtils {
         }
     }
 
+    /**
+     * Computes the MD5 hash of the contents of the specified file. The file is
+     * read sequentially through its channel in large blocks, which keeps the
+     * disk streaming at full speed; MD5 itself can't be split across threads,
+     * since each block's digest depends on all the data before it.
+     *
+     * @param file
+     *            The file to hash.
+     * @return MD5 hash.
+     * @throws NoSuchAlgorithmException
+     * @throws IOException
+     */
+    public static byte[] computeMD5Hash(File file) throws NoSuchAlgorithmException, IOException {
+        FileInputStream fileInputStream = new FileInputStream(file);
+        try {
+            FileChannel channel = fileInputStream.getChannel();
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                messageDigest.update(buffer.array(), 0, buffer.limit());
+                buffer.clear();
+            }
+            return messageDigest.digest();
+        } finally {
+            try {fileInputStream.close();} catch (Exception e) {}
+        }
+    }
+
     /**
      * Computes the MD5 hash of the given data and returns it as a hex string.
      *
@@ -68,7 +68,7 @@ public class AdjustedRangeInputStream extends InputStream {
         }
         // The number of bytes the user may read is equal to the number of the bytes in the range.
         // Note that the range includes the endpoints.
-        this.virtualAvailable = (int)(rangeEnd - rangeBeginning) + 1;
+        this.virtualAvailable = (rangeEnd - rangeBeginning) + 1;
     }
 
     /* (non-Javadoc)
@@ -113,8 +113,9 @@ public class AdjustedRangeInputStream extends InputStream {
                 // read as many bytes as an int can.
                 length = (this.virtualAvailable < Integer.MAX_VALUE) ? (int)this.virtualAvailable : Integer.MAX_VALUE;
             }            
-            // Read bytes into the buffer.
-            numBytesRead = super.read(buffer, offset, length);
+            // Read bytes into the buffer directly from the decrypted contents, since
+            // super.read(...) would go through read() and count each byte twice.
+            numBytesRead = this.decryptedContents.read(buffer, offset, length);
         }        
         // If we were able to read bytes, decrement the number of bytes available to be read.
         if(numBytesRead != -1) {
@@ -16,25 +16,39 @@ package com.amazonaws.services.s3.internal.crypto;
 
 import javax.crypto.SecretKey;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.CryptoMode;
+
 /**
  * State information for an in-progress, encrypted multipart upload,
  * including the envelope encryption key used to encrypt each individual
- * part in a multipart upload, and the next initialization vector (IV) for
- * the next part to encrypt.
+ * part in a multipart upload, and either the next initialization vector (IV)
+ * for the next part to encrypt (Cipher Block Chaining mode), or the part size
+ * used to locate each part in the object (Counter mode).
+ * <p>
+ * In the Counter mode, parts may be uploaded concurrently, so the state is
+ * only accessed through synchronized methods.
  */
 public class EncryptedUploadContext {
 	private final String bucketName;
 	private final String key;
 	private final SecretKey envelopeEncryptionKey;
+	private final CryptoMode cryptoMode;
 	
 	private byte[] firstIV;
 	private byte[] nextIV;
 	private boolean hasFinalPartBeenSeen;
+	private long partSize;
 
 	public EncryptedUploadContext(String bucketName, String key, SecretKey envelopeEncryptionKey) {
+		this(bucketName, key, envelopeEncryptionKey, CryptoMode.CipherBlockChaining);
+	}
+
+	public EncryptedUploadContext(String bucketName, String key, SecretKey envelopeEncryptionKey, CryptoMode cryptoMode) {
 		this.bucketName = bucketName;
 		this.key = key;
 		this.envelopeEncryptionKey = envelopeEncryptionKey;
+		this.cryptoMode = cryptoMode;
 	}
 
 	public String getBucketName() {
@@ -49,27 +63,87 @@ public class EncryptedUploadContext {
 		return envelopeEncryptionKey;
 	}
 
-	public void setNextInitializationVector(byte[] nextIV) {
+	public CryptoMode getCryptoMode() {
+		return cryptoMode;
+	}
+
+	public synchronized void setNextInitializationVector(byte[] nextIV) {
 		this.nextIV = nextIV;
 	}
 
-	public byte[] getNextInitializationVector() {
+	public synchronized byte[] getNextInitializationVector() {
 		return nextIV;
 	}
 	
-	public boolean hasFinalPartBeenSeen() {
+	public synchronized boolean hasFinalPartBeenSeen() {
 		return hasFinalPartBeenSeen;
 	}
 	
-	public void setHasFinalPartBeenSeen(boolean hasFinalPartBeenSeen) {
+	public synchronized void setHasFinalPartBeenSeen(boolean hasFinalPartBeenSeen) {
 		this.hasFinalPartBeenSeen = hasFinalPartBeenSeen;
 	}
 
-	public void setFirstInitializationVector(byte[] firstIV) {
+	public synchronized void setFirstInitializationVector(byte[] firstIV) {
 		this.firstIV = firstIV;
 	}
 
-	public byte[] getFirstInitializationVector() {
+	public synchronized byte[] getFirstInitializationVector() {
 		return firstIV;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns the position in the object of the first byte of the specified
+	 * part, for uploads where every part except the last one is the same
+	 * size. The common part size is taken from the first part that isn't the
+	 * last one, or, if the last part is uploaded before any of the others,
+	 * from the last part's file offset. Parts that don't agree with the part
+	 * size seen so far are rejected, since their data would be encrypted for
+	 * the wrong position in the object.
+	 *
+	 * @param partNumber
+	 *            The part number of the part.
+	 * @param size
+	 *            The size of the part.
+	 * @param isLastPart
+	 *            True if the part is the last part of the upload.
+	 * @param fileOffset
+	 *            The offset in the part's file of the part's data, or -1 if
+	 *            the part's data doesn't come from a file.
+	 *
+	 * @return The position in the object of the first byte of the part.
+	 */
+	public synchronized long getPartPosition(int partNumber, long size, boolean isLastPart, long fileOffset) {
+		if (partNumber == 1) {
+			if (!isLastPart) establishPartSize(size);
+			return 0;
+		}
+
+		if (!isLastPart) {
+			establishPartSize(size);
+		} else if (partSize == 0) {
+			if (fileOffset <= 0 || fileOffset % (partNumber - 1) != 0) {
+				throw new AmazonClientException("Unable to determine the position of the last part of an encrypted multipart upload.  " +
+						"When using the Counter crypto mode, upload at least one other part before the last part, " +
+						"or upload the last part from its offset in the file containing the whole object.");
+			}
+			establishPartSize(fileOffset / (partNumber - 1));
+		} else if (size > partSize) {
+			throw new AmazonClientException("Invalid part size: the last part of an encrypted multipart upload can't be larger " +
+					"than the other parts (" + partSize + " bytes) when using the Counter crypto mode.");
+		}
+		return (partNumber - 1) * partSize;
+	}
+
+	private void establishPartSize(long size) {
+		if (partSize == 0) {
+			if (size % JceEncryptionConstants.SYMMETRIC_CIPHER_BLOCK_SIZE != 0) {
+				throw new AmazonClientException("Invalid part size: part sizes for encrypted multipart uploads must be multiples " +
+						"of the cipher block size (" + JceEncryptionConstants.SYMMETRIC_CIPHER_BLOCK_SIZE + ") with the exception of the last part.");
+			}
+			partSize = size;
+		} else if (partSize != size) {
+			throw new AmazonClientException("Invalid part size: when using the Counter crypto mode, all parts of an encrypted " +
+					"multipart upload except the last one must be the same size (" + partSize + " bytes).");
+		}
+	}
+}
@@ -38,9 +38,11 @@ import org.apache.commons.codec.binary.Base64;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.internal.FileRegionInputStream;
 import com.amazonaws.services.s3.internal.InputSubstream;
 import com.amazonaws.services.s3.internal.Mimetypes;
 import com.amazonaws.services.s3.internal.RepeatableFileInputStream;
+import com.amazonaws.services.s3.model.CryptoMode;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
 import com.amazonaws.services.s3.model.EncryptionMaterials;
 import com.amazonaws.services.s3.model.EncryptionMaterialsAccessor;
@@ -126,9 +128,25 @@ public class EncryptionUtils {
      *      The instruction that will be used to encrypt an object.
      */
     public static EncryptionInstruction generateInstruction(EncryptionMaterials materials, Provider cryptoProvider) {
+        return generateInstruction(materials, cryptoProvider, CryptoMode.CipherBlockChaining);
+    }
+
+    /**
+     * Generates an instruction that will be used to encrypt an object in the specified crypto mode.
+     *
+     * @param materials
+     *      The encryption materials to be used to encrypt and decrypt data.
+     * @param cryptoProvider
+     *      The crypto provider whose encryption implementation will be used to encrypt and decrypt data.
+     * @param cryptoMode
+     *      The crypto mode that the object data will be encrypted with.
+     * @return
+     *      The instruction that will be used to encrypt an object.
+     */
+    public static EncryptionInstruction generateInstruction(EncryptionMaterials materials, Provider cryptoProvider, CryptoMode cryptoMode) {
         // Generate a one-time use symmetric key and initialize a cipher to encrypt object data
         SecretKey envelopeSymmetricKey = generateOneTimeUseSymmetricKey();
-        Cipher symmetricCipher = createSymmetricCipher(envelopeSymmetricKey, Cipher.ENCRYPT_MODE, cryptoProvider, null);
+        Cipher symmetricCipher = createSymmetricCipher(envelopeSymmetricKey, Cipher.ENCRYPT_MODE, cryptoProvider, null, cryptoMode);
 
         // Encrypt the envelope symmetric key
         byte[] encryptedEnvelopeSymmetricKey = getEncryptedSymmetricKey(envelopeSymmetricKey, materials, cryptoProvider);
@@ -158,6 +176,7 @@ public class EncryptionUtils {
             byte[] initVectorBytes = instructionJSON.getString(Headers.CRYPTO_IV).getBytes();
             String materialsDescriptionString = instructionJSON.getString(Headers.MATERIALS_DESCRIPTION);
             Map<String, String> materialsDescription = convertJSONToMap(materialsDescriptionString);
+            CryptoMode cryptoMode = getCryptoMode(instructionJSON.optString(Headers.CRYPTO_CEK_ALGORITHM, null));
 
             // Decode from Base 64 to standard binary bytes
             encryptedSymmetricKeyBytes = Base64.decodeBase64(encryptedSymmetricKeyBytes);
@@ -186,7 +205,7 @@ public class EncryptionUtils {
 
             // Decrypt the symmetric key and create the symmetric cipher
             SecretKey symmetricKey = getDecryptedSymmetricKey(encryptedSymmetricKeyBytes, materials, cryptoProvider);
-            Cipher cipher = createSymmetricCipher(symmetricKey, Cipher.DECRYPT_MODE, cryptoProvider, initVectorBytes);
+            Cipher cipher = createSymmetricCipher(symmetricKey, Cipher.DECRYPT_MODE, cryptoProvider, initVectorBytes, cryptoMode);
 
             return new EncryptionInstruction(materialsDescription, encryptedSymmetricKeyBytes, symmetricKey, cipher);
         } catch (JSONException e) {
@@ -219,6 +238,7 @@ public class EncryptionUtils {
         byte[] initVectorBytes = getCryptoBytesFromMetadata(Headers.CRYPTO_IV, metadata);
         String materialsDescriptionString = getStringFromMetadata(Headers.MATERIALS_DESCRIPTION, metadata);
         Map<String, String> materialsDescription = convertJSONToMap(materialsDescriptionString);
+        CryptoMode cryptoMode = getCryptoMode(getStringFromMetadata(Headers.CRYPTO_CEK_ALGORITHM, metadata));
         
         if (encryptedSymmetricKeyBytes == null || initVectorBytes == null || materialsDescription == null) {
             // If necessary encryption info was not found in the instruction file, throw an exception.
@@ -243,7 +263,7 @@ public class EncryptionUtils {
 
         // Decrypt the symmetric key and create the symmetric cipher
         SecretKey symmetricKey = getDecryptedSymmetricKey(encryptedSymmetricKeyBytes, materials, cryptoProvider);
-        Cipher cipher = createSymmetricCipher(symmetricKey, Cipher.DECRYPT_MODE, cryptoProvider, initVectorBytes);
+        Cipher cipher = createSymmetricCipher(symmetricKey, Cipher.DECRYPT_MODE, cryptoProvider, initVectorBytes, cryptoMode);
 
         return new EncryptionInstruction(materialsDescription, encryptedSymmetricKeyBytes, symmetricKey, cipher);
     }
@@ -296,7 +316,36 @@ public class EncryptionUtils {
      *      The updated object where the object content input stream contains the decrypted contents.
      */
     public static S3Object decryptObjectUsingInstruction(S3Object object, EncryptionInstruction instruction) {
-        InputStream decryptedInputStream = new CipherInputStream(object.getObjectContent(), instruction.getSymmetricCipher());
+        return decryptObjectUsingInstruction(object, instruction, 0);
+    }
+
+    /**
+     * Returns an updated object where the object content input stream contains the decrypted contents,
+     * for object contents that start at the specified position in the encrypted object, such as when a
+     * range of the object was retrieved.
+     * <p>
+     * Data encrypted in the Cipher Block Chaining mode is decrypted as is, since the cipher block
+     * preceding the range (retrieved along with it) acts as the initialization vector for the rest of
+     * the range.  Data encrypted in the Counter mode is decrypted with the counter advanced to the
+     * specified position.
+     *
+     * @param object
+     *      The object whose contents are to be decrypted.
+     * @param instruction
+     *      The instruction that will be used to decrypt the object data.
+     * @param cipherTextOffset
+     *      The position in the encrypted object of the first byte of the object contents.  Must be a
+     *      multiple of the cipher block size.
+     * @return
+     *      The updated object where the object content input stream contains the decrypted contents.
+     */
+    public static S3Object decryptObjectUsingInstruction(S3Object object, EncryptionInstruction instruction, long cipherTextOffset) {
+        Cipher cipher = instruction.getSymmetricCipher();
+        if (cipherTextOffset > 0 && getCryptoMode(cipher.getAlgorithm()) == CryptoMode.Counter) {
+            byte[] initVector = getCounterInitializationVector(cipher.getIV(), cipherTextOffset);
+            cipher = createSymmetricCipher(instruction.getSymmetricKey(), Cipher.DECRYPT_MODE, cipher.getProvider(), initVector, CryptoMode.Counter);
+        }
+        InputStream decryptedInputStream = new CipherInputStream(object.getObjectContent(), cipher);
         object.setObjectContent(decryptedInputStream);
         return object;
     }
@@ -485,12 +534,29 @@ public class EncryptionUtils {
      * the default JCE crypto provider will be used.
      */
     public static Cipher createSymmetricCipher(SecretKey symmetricCryptoKey, int encryptMode, Provider cryptoProvider, byte[] initVector) {
+        return createSymmetricCipher(symmetricCryptoKey, encryptMode, cryptoProvider, initVector, CryptoMode.CipherBlockChaining);
+    }
+
+    /**
+     * Creates a symmetric cipher for the specified crypto mode, in the specified encrypt or decrypt
+     * mode, from the given symmetric key and IV.  If no IV is given, a random one is used.  The given
+     * crypto provider will provide the encryption implementation.  If the crypto provider is null,
+     * then the default JCE crypto provider will be used.
+     */
+    public static Cipher createSymmetricCipher(SecretKey symmetricCryptoKey, int encryptMode, Provider cryptoProvider, byte[] initVector, CryptoMode cryptoMode) {
         try {
+            String cipherMethod = getCipherMethod(cryptoMode);
             Cipher cipher;
             if (cryptoProvider != null) {
-                cipher = Cipher.getInstance(JceEncryptionConstants.SYMMETRIC_CIPHER_METHOD, cryptoProvider);
+                cipher = Cipher.getInstance(cipherMethod, cryptoProvider);
             } else {
-                cipher = Cipher.getInstance(JceEncryptionConstants.SYMMETRIC_CIPHER_METHOD);
+                cipher = Cipher.getInstance(cipherMethod);
+            }
+            if (initVector == null && cryptoMode == CryptoMode.Counter) {
+                // Always start from an explicit random counter block, rather than relying on
+                // the provider to pick one.
+                initVector = new byte[cipher.getBlockSize()];
+                new SecureRandom().nextBytes(initVector);
             }
             if (initVector != null) {
                 cipher.init(encryptMode, symmetricCryptoKey, new IvParameterSpec(initVector));
@@ -578,12 +644,17 @@ public class EncryptionUtils {
     	try {
     		InputStream originalInputStream = request.getInputStream();
     		if (request.getFile() != null) {
-                originalInputStream = new InputSubstream(new RepeatableFileInputStream(request.getFile()),
+                originalInputStream = new FileRegionInputStream(request.getFile(),
                         request.getFileOffset(), request.getPartSize());
     		}
 
     		originalInputStream = new CipherInputStream(originalInputStream, symmetricCipher);
 
+    		// Counter mode adds no padding, and the next part doesn't need this part's last block
+    		if (getCryptoMode(symmetricCipher.getAlgorithm()) == CryptoMode.Counter) {
+    			return originalInputStream;
+    		}
+
     		if (request.isLastPart() == false) {
     			// We want to prevent the final padding from being sent on the stream...
     			originalInputStream = new InputSubstream(originalInputStream, 0, request.getPartSize());
@@ -687,6 +758,9 @@ public class EncryptionUtils {
         initVectorBytes = Base64.encodeBase64(initVectorBytes);
         metadata.addUserMetadata(Headers.CRYPTO_IV, new String(initVectorBytes));
 
+        // Put the cipher algorithm, mode, and padding into the object metadata
+        metadata.addUserMetadata(Headers.CRYPTO_CEK_ALGORITHM, symmetricCipher.getAlgorithm());
+
         // Put the materials description into the object metadata as JSON
         JSONObject descriptionJSON = new JSONObject(materialsDescription);
         metadata.addUserMetadata(Headers.MATERIALS_DESCRIPTION, descriptionJSON.toString());
@@ -728,9 +802,7 @@ public class EncryptionUtils {
         } else {
             return 0;
         }
-        long cipherBlockSize = symmetricCipher.getBlockSize();
-        long offset = cipherBlockSize - (plaintextLength % cipherBlockSize);
-        return plaintextLength + offset;
+        return calculateCryptoContentLength(symmetricCipher, plaintextLength);
     }
 
     public static long calculateCryptoContentLength(Cipher symmetricCipher, UploadPartRequest request) {
@@ -743,11 +815,74 @@ public class EncryptionUtils {
         } else {
             return 0;
         }
+        return calculateCryptoContentLength(symmetricCipher, plaintextLength);
+    }
+
+    /**
+     * Calculates the length of encrypted data given the length of the plaintext data and the
+     * cipher that will be used for encryption.  Only ciphers that use padding make the data longer.
+     */
+    private static long calculateCryptoContentLength(Cipher symmetricCipher, long plaintextLength) {
+        if (getCryptoMode(symmetricCipher.getAlgorithm()) == CryptoMode.Counter) {
+            return plaintextLength;
+        }
         long cipherBlockSize = symmetricCipher.getBlockSize();
         long offset = cipherBlockSize - (plaintextLength % cipherBlockSize);
         return plaintextLength + offset;
     }
 
+    /**
+     * Returns the initialization vector for data encrypted in the Counter mode that starts at the
+     * specified position, given the initialization vector of the data that starts at position zero.
+     * The position must be a multiple of the cipher block size.
+     * <p>
+     * The counter block is treated as a single 128-bit big-endian number that is incremented once
+     * for each cipher block, which matches how the JCE providers advance it.
+     *
+     * @param initVector
+     *      The initialization vector for the start of the encrypted data.
+     * @param position
+     *      The position, in bytes, of the data in the encrypted object.
+     * @return
+     *      A new initialization vector for the data at the specified position.
+     */
+    public static byte[] getCounterInitializationVector(byte[] initVector, long position) {
+        byte[] counter = initVector.clone();
+        long blocks = position / JceEncryptionConstants.SYMMETRIC_CIPHER_BLOCK_SIZE;
+        int carry = 0;
+        for (int i = counter.length - 1; i >= 0; i--) {
+            int sum = (counter[i] & 0xff) + (int)(blocks & 0xff) + carry;
+            counter[i] = (byte)sum;
+            carry = sum >>> 8;
+            blocks >>>= 8;
+        }
+        return counter;
+    }
+
+    /**
+     * Returns the JCE cipher method (algorithm, mode, and padding) used for the specified crypto mode.
+     */
+    private static String getCipherMethod(CryptoMode cryptoMode) {
+        if (cryptoMode == CryptoMode.Counter) {
+            return JceEncryptionConstants.SYMMETRIC_CTR_CIPHER_METHOD;
+        }
+        return JceEncryptionConstants.SYMMETRIC_CIPHER_METHOD;
+    }
+
+    /**
+     * Returns the crypto mode that corresponds to the specified JCE cipher method.  Objects encrypted
+     * before the cipher method was recorded have no cipher method, and were encrypted in the Cipher
+     * Block Chaining mode.
+     */
+    private static CryptoMode getCryptoMode(String cipherMethod) {
+        if (cipherMethod == null || cipherMethod.equals(JceEncryptionConstants.SYMMETRIC_CIPHER_METHOD)) {
+            return CryptoMode.CipherBlockChaining;
+        } else if (cipherMethod.equals(JceEncryptionConstants.SYMMETRIC_CTR_CIPHER_METHOD)) {
+            return CryptoMode.Counter;
+        }
+        throw new AmazonClientException("Unsupported content encryption algorithm: " + cipherMethod);
+    }
+
     /**
      * Returns a JSONObject representation of the instruction object.
      */
@@ -763,6 +898,7 @@ public class EncryptionUtils {
             instructionJSON.put(Headers.MATERIALS_DESCRIPTION, materialsDescriptionJSON.toString());
             instructionJSON.put(Headers.CRYPTO_KEY, new String(encryptedKeyBytes));
             instructionJSON.put(Headers.CRYPTO_IV, new String(initVector));
+            instructionJSON.put(Headers.CRYPTO_CEK_ALGORITHM, instruction.getSymmetricCipher().getAlgorithm());
 
         } catch (JSONException e) {} // Keys are never null, so JSONException will never be thrown.
         return instructionJSON;
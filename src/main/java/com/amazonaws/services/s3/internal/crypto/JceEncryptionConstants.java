@@ -25,6 +25,9 @@ public class JceEncryptionConstants {
     
     /** Name of the algorithm, mode, and padding we will use in the symmetric cipher for encryption */
     public static String SYMMETRIC_CIPHER_METHOD = "AES/CBC/PKCS5Padding";
+
+    /** Name of the algorithm, mode, and padding used in the symmetric cipher for the Counter crypto mode */
+    public static String SYMMETRIC_CTR_CIPHER_METHOD = "AES/CTR/NoPadding";
     
     /** Minimum length of the generated symmetric key */
     public static int SYMMETRIC_KEY_LENGTH = 256;
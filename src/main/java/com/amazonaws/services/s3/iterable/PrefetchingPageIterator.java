@@ -0,0 +1,144 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Iterator over the items of a paged S3 listing. Pages are requested lazily:
+ * nothing is sent to S3 until the first call to {@link #hasNext()}, and while
+ * the caller works through the items in the current page, the next page is
+ * fetched in the background. At most one page is held ahead of the caller, so
+ * memory use stays bounded no matter how many pages the listing has.
+ *
+ * @param <T>
+ *            The type of item contained in each page.
+ * @param <P>
+ *            The page (listing) type returned by S3.
+ */
+abstract class PrefetchingPageIterator<T, P> implements Iterator<T> {
+
+    /** Shared pool of daemon threads used to fetch the next page of a listing */
+    private static final ExecutorService prefetchExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private int threadCount = 1;
+
+        public synchronized Thread newThread(Runnable r) {
+            Thread thread = new Thread(r);
+            thread.setName("s3-listing-prefetch-" + threadCount++);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /** Iterator over the items in the current page */
+    private Iterator<T> currentItems = Collections.<T>emptyList().iterator();
+
+    /** The next page, being fetched in the background, or null if none */
+    private Future<P> nextPage;
+
+    /** True once the first page has been requested */
+    private boolean started;
+
+    /**
+     * Sends the request for the first page of the listing.
+     */
+    protected abstract P fetchFirstPage();
+
+    /**
+     * Sends the request for the page following the specified page.
+     */
+    protected abstract P fetchNextPage(P previousPage);
+
+    /**
+     * Returns the items contained in the specified page.
+     */
+    protected abstract List<T> getItems(P page);
+
+    /**
+     * Returns true if more pages follow the specified page.
+     */
+    protected abstract boolean isTruncated(P page);
+
+    public boolean hasNext() {
+        if (!started) {
+            started = true;
+            advanceTo(fetchFirstPage());
+        }
+
+        while (!currentItems.hasNext() && nextPage != null) {
+            advanceTo(waitForNextPage());
+        }
+
+        return currentItems.hasNext();
+    }
+
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return currentItems.next();
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Listing results can't be removed through this iterator");
+    }
+
+    /**
+     * Makes the specified page current, and starts fetching the page after it
+     * if the listing is truncated.
+     */
+    private void advanceTo(final P page) {
+        currentItems = getItems(page).iterator();
+        nextPage = null;
+
+        if (isTruncated(page)) {
+            nextPage = prefetchExecutor.submit(new Callable<P>() {
+                public P call() throws Exception {
+                    return fetchNextPage(page);
+                }
+            });
+        }
+    }
+
+    /**
+     * Blocks until the page being prefetched is available, rethrowing any
+     * error raised while fetching it on the caller's thread.
+     */
+    private P waitForNextPage() {
+        try {
+            return nextPage.get();
+        } catch (InterruptedException e) {
+            nextPage.cancel(true);
+            nextPage = null;
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for the next page of results", e);
+        } catch (ExecutionException e) {
+            nextPage = null;
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if (cause instanceof Error) throw (Error)cause;
+            throw new AmazonClientException("Unable to retrieve the next page of results", cause);
+        }
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Lists the objects in an Amazon S3 bucket using several concurrent listing
+ * requests.
+ * <p>
+ * A single listing is inherently sequential, since each page can only be
+ * requested once the marker from the previous page is known. The scanner
+ * works around this by first listing the requested prefix with a delimiter,
+ * which splits the keyspace into the common prefixes one level below it
+ * (for example, <code>logs/2011-01/</code>, <code>logs/2011-02/</code>, ...
+ * under <code>logs/</code> with the delimiter <code>/</code>). Each common
+ * prefix is then listed as an independent partition on the scanner's thread
+ * pool. Keys that sit directly under the requested prefix, and so don't fall
+ * into any partition, are returned from the initial listing.
+ * <p>
+ * Results can be consumed in two ways:
+ * <ul>
+ * <li>{@link #scan(String, String, SummaryHandler)} hands every summary to a
+ * callback as soon as it's listed, from whichever thread listed it. This is
+ * the fastest option, but summaries arrive in no particular order.
+ * <li>{@link #scanInOrder(String, String)} returns an {@link Iterable} that
+ * produces summaries in the same lexicographic order as a regular listing.
+ * A bounded window of partitions is listed ahead of the caller, with a
+ * bounded number of pages buffered for each, so memory use stays bounded.
+ * </ul>
+ * The speedup depends on how evenly the keys are spread across common
+ * prefixes; a bucket with no delimiter in its keys is scanned as a single
+ * partition.
+ */
+public class S3BucketScanner {
+
+    /** Default number of partitions listed concurrently by an ordered scan */
+    private static final int DEFAULT_PARTITIONS_IN_FLIGHT = 10;
+
+    /** Default number of pages buffered ahead of the caller for each partition */
+    private static final int DEFAULT_PAGES_PER_PARTITION = 2;
+
+    /**
+     * Callback receiving the summaries found by
+     * {@link S3BucketScanner#scan(String, String, SummaryHandler)}.
+     * Implementations are invoked concurrently from multiple threads, and
+     * so must be thread safe.
+     */
+    public interface SummaryHandler {
+
+        /**
+         * Processes one object summary from the scanned bucket.
+         *
+         * @param summary
+         *            The summary of an object in the scanned bucket.
+         */
+        public void handle(S3ObjectSummary summary);
+    }
+
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+
+    private String delimiter = "/";
+    private Integer batchSize;
+    private int partitionsInFlight = DEFAULT_PARTITIONS_IN_FLIGHT;
+    private int pagesPerPartition = DEFAULT_PAGES_PER_PARTITION;
+
+    /**
+     * Constructs a new scanner that uses the specified client and a default
+     * pool of ten daemon threads.
+     *
+     * @param s3
+     *            The Amazon S3 client used to list the bucket.
+     */
+    public S3BucketScanner(AmazonS3 s3) {
+        this(s3, createDefaultExecutorService());
+    }
+
+    /**
+     * Constructs a new scanner that uses the specified client, and runs its
+     * partition listings on the specified thread pool. Partitions are
+     * submitted in key order, and the ordered scan relies on the pool
+     * starting tasks in the order they are submitted, as the pools created
+     * through {@link Executors} do.
+     *
+     * @param s3
+     *            The Amazon S3 client used to list the bucket.
+     * @param threadPool
+     *            The thread pool in which to list partitions.
+     */
+    public S3BucketScanner(AmazonS3 s3, ExecutorService threadPool) {
+        this.s3 = s3;
+        this.threadPool = threadPool;
+    }
+
+    /**
+     * Sets the delimiter used to split the keyspace into partitions. The
+     * default is <code>/</code>.
+     *
+     * @param delimiter
+     *            The delimiter that separates the partitions' common
+     *            prefixes from the rest of the key.
+     *
+     * @return This object, so that method calls can be chained together.
+     */
+    public S3BucketScanner withDelimiter(String delimiter) {
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of keys requested from Amazon S3 in each page.
+     * If not set, the Amazon S3 default (1000) is used.
+     *
+     * @param batchSize
+     *            The number of keys to request in each page.
+     *
+     * @return This object, so that method calls can be chained together.
+     */
+    public S3BucketScanner withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets how many partitions an ordered scan lists ahead of the caller,
+     * and how many pages it buffers for each. Together these bound both the
+     * number of concurrent requests and the number of pages held in memory.
+     *
+     * @param partitionsInFlight
+     *            The number of partitions listed concurrently.
+     * @param pagesPerPartition
+     *            The number of pages buffered for each partition.
+     *
+     * @return This object, so that method calls can be chained together.
+     */
+    public S3BucketScanner withReadAhead(int partitionsInFlight, int pagesPerPartition) {
+        if (partitionsInFlight < 1 || pagesPerPartition < 1) {
+            throw new IllegalArgumentException("Read ahead limits must be positive");
+        }
+        this.partitionsInFlight = partitionsInFlight;
+        this.pagesPerPartition = pagesPerPartition;
+        return this;
+    }
+
+    /**
+     * Lists every object under the specified prefix, passing each summary to
+     * the handler as soon as it's listed. Partitions are listed concurrently,
+     * so the handler is called from multiple threads and summaries arrive in
+     * no particular order. This method blocks until the whole prefix has been
+     * listed.
+     * <p>
+     * If listing any partition fails, the remaining partitions are cancelled
+     * and the error is rethrown.
+     *
+     * @param bucketName
+     *            The bucket to scan.
+     * @param prefix
+     *            The prefix to scan, or null to scan the whole bucket.
+     * @param handler
+     *            The callback receiving each object summary.
+     *
+     * @return The number of object summaries passed to the handler.
+     */
+    public long scan(String bucketName, final String prefix, final SummaryHandler handler)
+            throws AmazonClientException {
+        List<Future<Long>> partitions = new ArrayList<Future<Long>>();
+        long count = 0;
+
+        try {
+            ObjectListing listing = s3.listObjects(createListObjectsRequest(bucketName, prefix, delimiter));
+            while (true) {
+                for (final String commonPrefix : listing.getCommonPrefixes()) {
+                    final ListObjectsRequest request = createListObjectsRequest(bucketName, commonPrefix, null);
+                    partitions.add(threadPool.submit(new Callable<Long>() {
+                        public Long call() throws Exception {
+                            return listPartition(request, handler);
+                        }
+                    }));
+                }
+                for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                    handler.handle(summary);
+                    count++;
+                }
+                if (!listing.isTruncated()) break;
+                listing = s3.listNextBatchOfObjects(listing);
+            }
+
+            for (Future<Long> partition : partitions) {
+                count += partition.get();
+            }
+            return count;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while scanning bucket " + bucketName, e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } finally {
+            for (Future<Long> partition : partitions) {
+                partition.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Returns an iterable over every object under the specified prefix, in
+     * the same order a regular listing would return them. Nothing is sent to
+     * Amazon S3 until the returned iterable's iterator is used.
+     *
+     * @param bucketName
+     *            The bucket to scan.
+     * @param prefix
+     *            The prefix to scan, or null to scan the whole bucket.
+     *
+     * @return An iterable over the object summaries under the prefix.
+     */
+    public Iterable<S3ObjectSummary> scanInOrder(final String bucketName, final String prefix) {
+        return new Iterable<S3ObjectSummary>() {
+            public Iterator<S3ObjectSummary> iterator() {
+                return new OrderedScanIterator(bucketName, prefix);
+            }
+        };
+    }
+
+    /**
+     * Forcefully shuts down the thread pool used by this scanner. Scans in
+     * progress are abandoned.
+     */
+    public void shutdownNow() {
+        threadPool.shutdownNow();
+    }
+
+    /**
+     * Lists every page of a partition, passing each summary to the handler.
+     */
+    private long listPartition(ListObjectsRequest request, SummaryHandler handler) {
+        long count = 0;
+        ObjectListing listing = s3.listObjects(request);
+        while (true) {
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                handler.handle(summary);
+                count++;
+            }
+            if (!listing.isTruncated() || Thread.currentThread().isInterrupted()) return count;
+            listing = s3.listNextBatchOfObjects(listing);
+        }
+    }
+
+    private ListObjectsRequest createListObjectsRequest(String bucketName, String prefix, String delimiter) {
+        return new ListObjectsRequest()
+            .withBucketName(bucketName)
+            .withPrefix(prefix)
+            .withDelimiter(delimiter)
+            .withMaxKeys(batchSize);
+    }
+
+    private static RuntimeException unwrap(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException)t;
+        if (t instanceof Error) throw (Error)t;
+        return new AmazonClientException("Unable to list bucket partition", t);
+    }
+
+    private static ExecutorService createDefaultExecutorService() {
+        return Executors.newFixedThreadPool(DEFAULT_PARTITIONS_IN_FLIGHT, new ThreadFactory() {
+            private int threadCount = 1;
+
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setName("s3-bucket-scanner-worker-" + threadCount++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * A contiguous, key-ordered slice of the scan: either a run of keys
+     * returned directly by the delimited listing, or a common prefix whose
+     * pages are fetched in the background.
+     * <p>
+     * A partition fetches one page per task, and only resubmits itself while
+     * fewer than pagesPerPartition pages are buffered; once the consumer
+     * takes a page, fetching resumes. No thread ever blocks waiting for the
+     * consumer, so an abandoned scan simply stops once its in-flight
+     * requests finish.
+     */
+    private final class Partition implements Runnable {
+        private final ListObjectsRequest request;
+        private final LinkedList<List<S3ObjectSummary>> pages = new LinkedList<List<S3ObjectSummary>>();
+        private ObjectListing lastListing;
+        private boolean fetching;
+        private boolean done;
+        private RuntimeException error;
+
+        /** Creates a partition listing the specified common prefix */
+        Partition(ListObjectsRequest request) {
+            this.request = request;
+        }
+
+        /** Creates a partition holding keys that have already been listed */
+        Partition(List<S3ObjectSummary> summaries) {
+            this.request = null;
+            this.pages.add(summaries);
+            this.done = true;
+        }
+
+        synchronized void start() {
+            if (!done && !fetching && error == null) {
+                fetching = true;
+                threadPool.execute(this);
+            }
+        }
+
+        public void run() {
+            ObjectListing listing;
+            try {
+                listing = (lastListing == null) ? s3.listObjects(request) : s3.listNextBatchOfObjects(lastListing);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    error = e;
+                    fetching = false;
+                    notifyAll();
+                }
+                return;
+            }
+
+            synchronized (this) {
+                lastListing = listing;
+                pages.add(listing.getObjectSummaries());
+                done = !listing.isTruncated();
+                fetching = false;
+                if (pages.size() < pagesPerPartition) start();
+                notifyAll();
+            }
+        }
+
+        /**
+         * Returns the next page of this partition, blocking until it has been
+         * fetched, or null if the partition has been completely listed.
+         */
+        synchronized List<S3ObjectSummary> takePage() throws InterruptedException {
+            while (pages.isEmpty()) {
+                if (error != null) throw error;
+                if (done) return null;
+                start();
+                wait();
+            }
+            List<S3ObjectSummary> page = pages.removeFirst();
+            start();
+            return page;
+        }
+    }
+
+    /**
+     * Iterator for an ordered scan. Partitions are discovered page by page
+     * from the delimited listing of the scanned prefix, and a window of
+     * partitionsInFlight partitions is kept listing ahead of the caller.
+     */
+    private final class OrderedScanIterator implements Iterator<S3ObjectSummary> {
+        private final String bucketName;
+        private final String prefix;
+
+        /** Partitions discovered but not yet fully consumed, in key order */
+        private final LinkedList<Partition> partitions = new LinkedList<Partition>();
+
+        /** The last page of the delimited listing, or null before the first */
+        private ObjectListing delimitedListing;
+
+        private Iterator<S3ObjectSummary> currentPage = Collections.<S3ObjectSummary>emptyList().iterator();
+
+        OrderedScanIterator(String bucketName, String prefix) {
+            this.bucketName = bucketName;
+            this.prefix = prefix;
+        }
+
+        public boolean hasNext() {
+            try {
+                while (!currentPage.hasNext()) {
+                    fillWindow();
+                    if (partitions.isEmpty()) return false;
+
+                    List<S3ObjectSummary> page = partitions.getFirst().takePage();
+                    if (page == null) {
+                        partitions.removeFirst();
+                    } else {
+                        currentPage = page.iterator();
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException("Interrupted while scanning bucket " + bucketName, e);
+            }
+        }
+
+        public S3ObjectSummary next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return currentPage.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Listing results can't be removed through this iterator");
+        }
+
+        /**
+         * Discovers partitions until the window is full (or the delimited
+         * listing is exhausted), and makes sure every partition in the window
+         * is being listed.
+         */
+        private void fillWindow() {
+            while (partitions.size() < partitionsInFlight && hasMoreDelimitedPages()) {
+                if (delimitedListing == null) {
+                    delimitedListing = s3.listObjects(createListObjectsRequest(bucketName, prefix, delimiter));
+                } else {
+                    delimitedListing = s3.listNextBatchOfObjects(delimitedListing);
+                }
+                addPartitions(delimitedListing);
+            }
+
+            int started = 0;
+            for (Partition partition : partitions) {
+                if (started++ == partitionsInFlight) break;
+                partition.start();
+            }
+        }
+
+        private boolean hasMoreDelimitedPages() {
+            return delimitedListing == null || delimitedListing.isTruncated();
+        }
+
+        /**
+         * Merges the keys and common prefixes from one page of the delimited
+         * listing into key-ordered partitions. Keys under the scanned prefix
+         * never contain the delimiter, so they can't fall inside a common
+         * prefix, and comparing the key with the common prefix is enough to
+         * order them.
+         */
+        private void addPartitions(ObjectListing listing) {
+            List<S3ObjectSummary> summaries = listing.getObjectSummaries();
+            List<String> commonPrefixes = listing.getCommonPrefixes();
+
+            int s = 0;
+            for (String commonPrefix : commonPrefixes) {
+                int runStart = s;
+                while (s < summaries.size() && summaries.get(s).getKey().compareTo(commonPrefix) < 0) s++;
+                if (s > runStart) partitions.add(new Partition(summaries.subList(runStart, s)));
+
+                partitions.add(new Partition(createListObjectsRequest(bucketName, commonPrefix, null)));
+            }
+            if (s < summaries.size()) partitions.add(new Partition(summaries.subList(s, summaries.size())));
+        }
+    }
+}
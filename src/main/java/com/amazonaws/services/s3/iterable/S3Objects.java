@@ -0,0 +1,141 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Provides an {@link Iterable} view of the objects in an Amazon S3 bucket,
+ * taking care of listing the bucket one page at a time.
+ * <p>
+ * Pages are only requested as the returned iterator is consumed, and the next
+ * page is prefetched in the background while the current one is being
+ * processed. Only the current page and the page after it are held in memory,
+ * so this is suitable for scanning buckets of any size.
+ * <p>
+ * Usage:
+ * <pre>
+ * for (S3ObjectSummary summary : S3Objects.withPrefix(s3, "my-bucket", "photos/")) {
+ *     System.out.println(summary.getKey());
+ * }
+ * </pre>
+ */
+public class S3Objects implements Iterable<S3ObjectSummary> {
+
+    private final AmazonS3 s3;
+    private final String bucketName;
+    private String prefix;
+    private Integer batchSize;
+
+    private S3Objects(AmazonS3 s3, String bucketName) {
+        this.s3 = s3;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Constructs an iterable that covers all the objects in an Amazon S3
+     * bucket.
+     *
+     * @param s3
+     *            The Amazon S3 client.
+     * @param bucketName
+     *            The bucket name.
+     * @return An iterator for object summaries.
+     */
+    public static S3Objects inBucket(AmazonS3 s3, String bucketName) {
+        return new S3Objects(s3, bucketName);
+    }
+
+    /**
+     * Constructs an iterable that covers the objects in an Amazon S3 bucket
+     * where the key begins with the given prefix.
+     *
+     * @param s3
+     *            The Amazon S3 client.
+     * @param bucketName
+     *            The bucket name.
+     * @param prefix
+     *            The prefix.
+     * @return An iterator for object summaries.
+     */
+    public static S3Objects withPrefix(AmazonS3 s3, String bucketName, String prefix) {
+        S3Objects objects = new S3Objects(s3, bucketName);
+        objects.prefix = prefix;
+        return objects;
+    }
+
+    /**
+     * Sets the maximum number of keys requested from Amazon S3 in each page.
+     * If not set, the Amazon S3 default (1000) is used.
+     *
+     * @param batchSize
+     *            The number of keys to request in each page.
+     *
+     * @return This object, so that method calls can be chained together.
+     */
+    public S3Objects withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public AmazonS3 getS3() {
+        return s3;
+    }
+
+    public Iterator<S3ObjectSummary> iterator() {
+        return new PrefetchingPageIterator<S3ObjectSummary, ObjectListing>() {
+            @Override
+            protected ObjectListing fetchFirstPage() {
+                return s3.listObjects(new ListObjectsRequest()
+                    .withBucketName(bucketName)
+                    .withPrefix(prefix)
+                    .withMaxKeys(batchSize));
+            }
+
+            @Override
+            protected ObjectListing fetchNextPage(ObjectListing previousPage) {
+                return s3.listNextBatchOfObjects(previousPage);
+            }
+
+            @Override
+            protected List<S3ObjectSummary> getItems(ObjectListing page) {
+                return page.getObjectSummaries();
+            }
+
+            @Override
+            protected boolean isTruncated(ObjectListing page) {
+                return page.isTruncated();
+            }
+        };
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
+import com.amazonaws.services.s3.model.VersionListing;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+
+/**
+ * Provides an {@link Iterable} view of the object versions in an Amazon S3 bucket,
+ * taking care of listing the bucket one page at a time.
+ * <p>
+ * Pages are only requested as the returned iterator is consumed, and the next
+ * page is prefetched in the background while the current one is being
+ * processed. Only the current page and the page after it are held in memory,
+ * so this is suitable for scanning buckets of any size.
+ * <p>
+ * Usage:
+ * <pre>
+ * for (S3VersionSummary summary : S3Versions.withPrefix(s3, "my-bucket", "photos/")) {
+ *     System.out.println(summary.getKey() + " " + summary.getVersionId());
+ * }
+ * </pre>
+ */
+public class S3Versions implements Iterable<S3VersionSummary> {
+
+    private final AmazonS3 s3;
+    private final String bucketName;
+    private String prefix;
+    private Integer batchSize;
+
+    private S3Versions(AmazonS3 s3, String bucketName) {
+        this.s3 = s3;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Constructs an iterable that covers all the object versions in an Amazon S3
+     * bucket.
+     *
+     * @param s3
+     *            The Amazon S3 client.
+     * @param bucketName
+     *            The bucket name.
+     * @return An iterator for version summaries.
+     */
+    public static S3Versions inBucket(AmazonS3 s3, String bucketName) {
+        return new S3Versions(s3, bucketName);
+    }
+
+    /**
+     * Constructs an iterable that covers the object versions in an Amazon S3 bucket
+     * where the key begins with the given prefix.
+     *
+     * @param s3
+     *            The Amazon S3 client.
+     * @param bucketName
+     *            The bucket name.
+     * @param prefix
+     *            The prefix.
+     * @return An iterator for version summaries.
+     */
+    public static S3Versions withPrefix(AmazonS3 s3, String bucketName, String prefix) {
+        S3Versions versions = new S3Versions(s3, bucketName);
+        versions.prefix = prefix;
+        return versions;
+    }
+
+    /**
+     * Sets the maximum number of versions requested from Amazon S3 in each page.
+     * If not set, the Amazon S3 default (1000) is used.
+     *
+     * @param batchSize
+     *            The number of versions to request in each page.
+     *
+     * @return This object, so that method calls can be chained together.
+     */
+    public S3Versions withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public AmazonS3 getS3() {
+        return s3;
+    }
+
+    public Iterator<S3VersionSummary> iterator() {
+        return new PrefetchingPageIterator<S3VersionSummary, VersionListing>() {
+            @Override
+            protected VersionListing fetchFirstPage() {
+                return s3.listVersions(new ListVersionsRequest()
+                    .withBucketName(bucketName)
+                    .withPrefix(prefix)
+                    .withMaxResults(batchSize));
+            }
+
+            @Override
+            protected VersionListing fetchNextPage(VersionListing previousPage) {
+                return s3.listNextBatchOfVersions(previousPage);
+            }
+
+            @Override
+            protected List<S3VersionSummary> getItems(VersionListing page) {
+                return page.getVersionSummaries();
+            }
+
+            @Override
+            protected boolean isTruncated(VersionListing page) {
+                return page.isTruncated();
+            }
+        };
+    }
+}
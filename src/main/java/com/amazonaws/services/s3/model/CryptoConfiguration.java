@@ -21,17 +21,19 @@ import java.security.Provider;
  * decryption by the Amazon S3 Encryption Client. With this object, you can set
  * the encryption client to use Instruction Files or Object Metadata for storing
  * encryption information. You can also specify your own crypto provider to be
- * used during encryption and decryption.
+ * used during encryption and decryption, and the crypto mode that object data
+ * will be encrypted with.
  */
 public class CryptoConfiguration {
 
     private CryptoStorageMode storageMode;
     private Provider cryptoProvider;
+    private CryptoMode cryptoMode;
 
     /**
-     * Creates a new CryptoConfiguration object with default storage mode and crypto provider settings.
-     * The default storage mode is the Object Metadata storage mode, and the default crypto provider
-     * is the JCE provider.
+     * Creates a new CryptoConfiguration object with default storage mode, crypto provider and crypto
+     * mode settings. The default storage mode is the Object Metadata storage mode, the default crypto
+     * provider is the JCE provider, and the default crypto mode is the Cipher Block Chaining mode.
      */
     public CryptoConfiguration() {
         // By default, store encryption info in metadata
@@ -39,6 +41,9 @@ public class CryptoConfiguration {
 
         // A null value implies that the default JCE crypto provider will be used
         this.cryptoProvider = null;
+
+        // By default, encrypt data in CBC mode
+        this.cryptoMode = CryptoMode.CipherBlockChaining;
     }   
 
     /**
@@ -104,4 +109,37 @@ public class CryptoConfiguration {
     public Provider getCryptoProvider() {
         return this.cryptoProvider;
     }
+
+    /**
+     * Sets the crypto mode to the specified mode.
+     *
+     * @param cryptoMode
+     *     The crypto mode to be used for encrypting object data.
+     */
+    public void setCryptoMode(CryptoMode cryptoMode) {
+        this.cryptoMode = cryptoMode;
+    }
+
+    /**
+     * Sets the crypto mode to the specified mode, and returns the updated CryptoConfiguration object.
+     *
+     * @param cryptoMode
+     *     The crypto mode to be used for encrypting object data.
+     * @return
+     *     The updated CryptoConfiguration object.
+     */
+    public CryptoConfiguration withCryptoMode(CryptoMode cryptoMode) {
+        this.cryptoMode = cryptoMode;
+        return this;
+    }
+
+    /**
+     * Returns the current crypto mode of a CryptoConfiguration object.
+     *
+     * @return
+     *     The crypto mode to be used for encrypting object data.
+     */
+    public CryptoMode getCryptoMode() {
+        return this.cryptoMode;
+    }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model;
+
+/**
+ * Denotes the different cipher modes available for encrypting object data
+ * with the Amazon S3 Encryption Client.
+ * <p>
+ * CipherBlockChaining is the default crypto mode. If the CipherBlockChaining
+ * mode is used, then object data will be encrypted with AES in CBC mode with
+ * PKCS5 padding. Each cipher block depends on the one before it, so the parts
+ * of an encrypted multipart upload must be uploaded one at a time, in order,
+ * and the last part must be marked as the last part.
+ * <p>
+ * If the Counter mode is used, then object data will be encrypted with AES in
+ * CTR mode, without padding. The counter for any block can be computed from
+ * the block's position in the object, so the parts of an encrypted multipart
+ * upload can be encrypted independently of each other and uploaded in
+ * parallel. All parts except the last one must be the same size, and that
+ * size must be a multiple of the cipher block size (16 bytes).
+ * <p>
+ * The crypto mode is recorded along with the rest of the encryption
+ * information, so objects encrypted in either mode can be decrypted by the
+ * Amazon S3 Encryption Client regardless of the crypto mode it is configured
+ * with.
+ */
+public enum CryptoMode {
+    CipherBlockChaining,
+    Counter
+}
@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -38,6 +39,7 @@ import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.internal.CarriageReturnEscapingReader;
 import com.amazonaws.services.s3.internal.Constants;
 import com.amazonaws.services.s3.internal.ServiceUtils;
 import com.amazonaws.services.s3.model.AccessControlList;
@@ -73,10 +75,23 @@ import com.amazonaws.services.s3.model.BucketNotificationConfiguration.TopicConf
 public class XmlResponsesSaxParser {
     private static final Log log = LogFactory.getLog(XmlResponsesSaxParser.class);
 
-    private XMLReader xr = null;
-
     private boolean sanitizeXmlDocument = true;
 
+    /**
+     * True if a subclass overrides the deprecated InputStream overload of
+     * sanitizeXmlDocument, in which case documents are sanitized through it.
+     */
+    private final boolean overridesStreamSanitizer;
+
+    /**
+     * SAX readers are expensive to look up and create, so each thread keeps
+     * one and reuses it for every document it parses.
+     */
+    private static final ThreadLocal<XMLReader> threadLocalXmlReader = new ThreadLocal<XMLReader>();
+
+    /** Stateless handler installed on pooled readers between parses. */
+    private static final DefaultHandler NO_OP_HANDLER = new DefaultHandler();
+
     /**
      * Constructs the XML SAX parser.
      *
@@ -84,6 +99,33 @@ public class XmlResponsesSaxParser {
      */
     public XmlResponsesSaxParser() throws AmazonClientException {
         // Ensure we can load the XML Reader.
+        getXmlReader();
+        overridesStreamSanitizer = overridesStreamSanitizer(getClass());
+    }
+
+    private static boolean overridesStreamSanitizer(Class<?> c) {
+        for (; c != XmlResponsesSaxParser.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("sanitizeXmlDocument", DefaultHandler.class, InputStream.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Not declared at this level; keep looking
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the SAX reader for the current thread, creating it if this
+     * thread hasn't parsed a document yet.
+     *
+     * @throws AmazonClientException
+     *             If a SAX reader couldn't be created.
+     */
+    private static XMLReader getXmlReader() throws AmazonClientException {
+        XMLReader xr = threadLocalXmlReader.get();
+        if (xr != null) return xr;
+
         try {
             xr = XMLReaderFactory.createXMLReader();
         } catch (SAXException e) {
@@ -96,6 +138,8 @@ public class XmlResponsesSaxParser {
                 throw new AmazonClientException("Couldn't initialize a sax driver for the XMLReader");
             }
         }
+        threadLocalXmlReader.set(xr);
+        return xr;
     }
 
     /**
@@ -112,16 +156,31 @@ public class XmlResponsesSaxParser {
      */
     protected void parseXmlInputStream(DefaultHandler handler, InputStream inputStream)
             throws AmazonClientException {
+        parseXmlInputStream(handler, inputStream, false);
+    }
+
+    /**
+     * Parses an XML document from an input stream using a document handler,
+     * optionally sanitizing the document as it is read.
+     */
+    private void parseXmlInputStream(DefaultHandler handler, InputStream inputStream, boolean sanitize)
+            throws AmazonClientException {
+        XMLReader xr = getXmlReader();
         try {
             if (log.isDebugEnabled()) {
                 log.debug("Parsing XML response document with handler: " + handler.getClass());
             }
 
-            BufferedReader breader = new BufferedReader(new InputStreamReader(inputStream,
+            if (sanitize && overridesStreamSanitizer) {
+                inputStream = sanitizeXmlDocument(handler, inputStream);
+            }
+            Reader reader = new BufferedReader(new InputStreamReader(inputStream,
                 Constants.DEFAULT_ENCODING));
+            if (sanitize && !overridesStreamSanitizer) reader = sanitizeXmlDocument(handler, reader);
+
             xr.setContentHandler(handler);
             xr.setErrorHandler(handler);
-            xr.parse(new InputSource(breader));
+            xr.parse(new InputSource(reader));
         } catch (Throwable t) {
             try {
                 inputStream.close();
@@ -132,60 +191,92 @@ public class XmlResponsesSaxParser {
             }
             throw new AmazonClientException("Failed to parse XML document with handler "
                 + handler.getClass(), t);
+        } finally {
+            // Don't keep the handler, and everything it parsed, reachable from the pooled reader
+            xr.setContentHandler(NO_OP_HANDLER);
+            xr.setErrorHandler(NO_OP_HANDLER);
+        }
+    }
+
+    /**
+     * Wraps the specified reader so that any carriage return (\r) characters
+     * are replaced with explicit XML character entities as the document is
+     * read, to prevent the SAX parser from misinterpreting 0x0D characters as
+     * 0x0A and being unable to parse the XML. The document is sanitized while
+     * it streams through the parser, without first being buffered in memory.
+     *
+     * @param handler
+     *            the handler the document is destined for
+     * @param reader
+     *            a reader over the XML document
+     *
+     * @return A reader returning the sanitized document, or the original
+     *         reader if sanitizing is disabled.
+     */
+    protected Reader sanitizeXmlDocument(DefaultHandler handler, Reader reader) {
+        if (!sanitizeXmlDocument) {
+            // No sanitizing will be performed, return the original reader unchanged.
+            return reader;
         }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Sanitizing XML document destined for handler " + handler.getClass());
+        }
+        return new CarriageReturnEscapingReader(reader);
     }
 
+    /**
+     * Reads the XML document from the specified input stream and replaces any
+     * carriage return (\r) characters with explicit XML character entities,
+     * using {@link #sanitizeXmlDocument(DefaultHandler, Reader)}. The whole
+     * document is buffered in memory.
+     * <p>
+     * If a subclass overrides this method, documents are sanitized by calling
+     * it, and then buffered as before, instead of streaming through
+     * {@link #sanitizeXmlDocument(DefaultHandler, Reader)}.
+     *
+     * @param handler
+     *            the handler the document is destined for
+     * @param inputStream
+     *            an input stream containing the XML document
+     *
+     * @return An input stream returning the sanitized document, or the
+     *         original input stream if sanitizing is disabled.
+     *
+     * @deprecated The parser now sanitizes documents as they stream through
+     *             it; use {@link #sanitizeXmlDocument(DefaultHandler, Reader)}.
+     */
+    @Deprecated
     protected InputStream sanitizeXmlDocument(DefaultHandler handler, InputStream inputStream)
             throws AmazonClientException {
         if (!sanitizeXmlDocument) {
             // No sanitizing will be performed, return the original input stream unchanged.
             return inputStream;
-        } else {
-            if (log.isDebugEnabled()) {
-                log.debug("Sanitizing XML document destined for handler " + handler.getClass());
-            }
+        }
 
-            InputStream sanitizedInputStream = null;
+        try {
+            Reader reader = sanitizeXmlDocument(handler, new BufferedReader(
+                new InputStreamReader(inputStream, Constants.DEFAULT_ENCODING)));
+
+            StringBuilder sanitizedDocBuffer = new StringBuilder();
+            char[] buf = new char[8192];
+            int read = -1;
+            while ((read = reader.read(buf)) != -1) {
+                sanitizedDocBuffer.append(buf, 0, read);
+            }
+            reader.close();
 
+            return new ByteArrayInputStream(sanitizedDocBuffer.toString().getBytes(Constants.DEFAULT_ENCODING));
+        } catch (Throwable t) {
             try {
-                /*
-                 * Read object listing XML document from input stream provided into a
-                 * string buffer, so we can replace troublesome characters before
-                 * sending the document to the XML parser.
-                 */
-                StringBuilder listingDocBuffer = new StringBuilder();
-                BufferedReader br = new BufferedReader(
-                    new InputStreamReader(inputStream, Constants.DEFAULT_ENCODING));
-
-                char[] buf = new char[8192];
-                int read = -1;
-                while ((read = br.read(buf)) != -1) {
-                    listingDocBuffer.append(buf, 0, read);
-                }
-                br.close();
-
-                /*
-                 * Replace any carriage return (\r) characters with explicit XML
-                 * character entities, to prevent the SAX parser from
-                 * misinterpreting 0x0D characters as 0x0A and being unable to
-                 * parse the XML.
-                 */
-                String listingDoc = listingDocBuffer.toString().replaceAll("\r", "&#013;");
-
-                sanitizedInputStream = new ByteArrayInputStream(
-                    listingDoc.getBytes(Constants.DEFAULT_ENCODING));
-            } catch (Throwable t) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    if (log.isErrorEnabled()) {
-                        log.error("Unable to close response InputStream after failure sanitizing XML document", e);
-                    }
+                inputStream.close();
+            } catch (IOException e) {
+                if (log.isErrorEnabled()) {
+                    log.error("Unable to close response InputStream after failure sanitizing XML document", e);
                 }
-                throw new AmazonClientException("Failed to sanitize XML document destined for handler "
-                    + handler.getClass(), t);
             }
-            return sanitizedInputStream;
+            throw new AmazonClientException("Failed to sanitize XML document destined for handler "
+                + handler.getClass(), t);
         }
     }
 
@@ -259,7 +350,7 @@ public class XmlResponsesSaxParser {
     public ListBucketHandler parseListBucketObjectsResponse(InputStream inputStream)
             throws AmazonClientException {
         ListBucketHandler handler = new ListBucketHandler();
-        parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
+        parseXmlInputStream(handler, inputStream, true);
         return handler;
     }
 
@@ -275,7 +366,7 @@ public class XmlResponsesSaxParser {
     public ListVersionsHandler parseListVersionsResponse(InputStream inputStream)
             throws AmazonClientException {
         ListVersionsHandler handler = new ListVersionsHandler();
-        parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
+        parseXmlInputStream(handler, inputStream, true);
         return handler;
     }
 
@@ -291,7 +382,7 @@ public class XmlResponsesSaxParser {
     public ListAllMyBucketsHandler parseListMyBucketsResponse(InputStream inputStream)
             throws AmazonClientException {
         ListAllMyBucketsHandler handler = new ListAllMyBucketsHandler();
-        parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
+        parseXmlInputStream(handler, inputStream, true);
         return handler;
     }
 
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.transfer.internal.ProgressListenerChain;
+import com.amazonaws.services.s3.transfer.internal.TransferProgressImpl;
+import com.amazonaws.services.s3.transfer.model.CopyResult;
+
+/**
+ * Represents an asynchronous copy request from one Amazon S3 location to
+ * another.
+ * <p>
+ * See {@link TransferManager} for more information about creating transfers.
+ * </p>
+ *
+ * @see TransferManager#copy(String, String, String, String)
+ * @see TransferManager#copy(com.amazonaws.services.s3.model.CopyObjectRequest)
+ */
+public class Copy extends Transfer {
+
+    protected Copy(String description,
+            TransferProgressImpl transferProgressInternalState,
+            ProgressListenerChain progressListenerChain) {
+        super(description, transferProgressInternalState, progressListenerChain);
+    }
+
+    /**
+     * Waits for this copy to complete and returns the result of this copy.
+     * Be prepared to handle errors when calling this method. Any errors that
+     * occurred during the asynchronous transfer will be re-thrown through
+     * this method.
+     *
+     * @return The result of this transfer.
+     *
+     * @throws AmazonClientException
+     *             If any errors were encountered in the client while making the
+     *             request or handling the response.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     * @throws InterruptedException
+     *             If this thread is interrupted while waiting for the copy to
+     *             complete.
+     */
+    public CopyResult waitForCopyResult()
+            throws AmazonClientException, AmazonServiceException, InterruptedException {
+        try {
+            CopyResult result = null;
+            while (!monitor.isDone() || result == null) {
+                Future<?> f = monitor.getFuture();
+                result = (CopyResult)f.get();
+            }
+            return result;
+        } catch (ExecutionException e) {
+            rethrowExecutionException(e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.transfer.internal.ProgressListenerChain;
+import com.amazonaws.services.s3.transfer.internal.TransferProgressImpl;
+
+/**
+ * Represents an asynchronous download from Amazon S3.
+ * <p>
+ * See {@link TransferManager} for more information about creating transfers.
+ * </p>
+ *
+ * @see TransferManager#download(String, String, java.io.File)
+ * @see TransferManager#download(com.amazonaws.services.s3.model.GetObjectRequest, java.io.File)
+ */
+public class Download extends Transfer {
+
+    private final String bucketName;
+    private final String key;
+
+    /** The metadata of the object being downloaded, once it's known. */
+    protected volatile ObjectMetadata objectMetadata;
+
+    protected Download(String description,
+            TransferProgressImpl transferProgressInternalState,
+            ProgressListenerChain progressListenerChain,
+            String bucketName, String key) {
+        super(description, transferProgressInternalState, progressListenerChain);
+        this.bucketName = bucketName;
+        this.key = key;
+    }
+
+    /**
+     * Returns the name of the bucket containing the object being downloaded.
+     *
+     * @return The name of the bucket containing the object being downloaded.
+     */
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    /**
+     * Returns the key of the object being downloaded.
+     *
+     * @return The key of the object being downloaded.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the metadata of the object being downloaded, or null if the
+     * download hasn't retrieved it yet. The metadata is always available once
+     * {@link #waitForCompletion()} returns successfully.
+     *
+     * @return The metadata of the object being downloaded.
+     */
+    public ObjectMetadata getObjectMetadata() {
+        return objectMetadata;
+    }
+}
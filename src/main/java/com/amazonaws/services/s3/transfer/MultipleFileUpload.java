@@ -0,0 +1,60 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import com.amazonaws.services.s3.transfer.internal.ProgressListenerChain;
+import com.amazonaws.services.s3.transfer.internal.TransferProgressImpl;
+
+/**
+ * Represents an asynchronous upload of many files to Amazon S3 as a single
+ * transfer. The progress of the transfer is the combined progress of all of
+ * its files.
+ *
+ * @see TransferManager#uploadDirectory(String, String, java.io.File, boolean)
+ */
+public class MultipleFileUpload extends Transfer {
+
+    private final String bucketName;
+    private final String keyPrefix;
+
+    protected MultipleFileUpload(String description,
+            TransferProgressImpl transferProgressInternalState,
+            ProgressListenerChain progressListenerChain,
+            String bucketName, String keyPrefix) {
+        super(description, transferProgressInternalState, progressListenerChain);
+        this.bucketName = bucketName;
+        this.keyPrefix = keyPrefix;
+    }
+
+    /**
+     * Returns the name of the bucket the files are being uploaded to.
+     *
+     * @return The name of the bucket the files are being uploaded to.
+     */
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    /**
+     * Returns the key prefix of the virtual directory the files are being
+     * uploaded to.
+     *
+     * @return The key prefix of the virtual directory the files are being
+     *         uploaded to.
+     */
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+}
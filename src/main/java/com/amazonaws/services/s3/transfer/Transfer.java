@@ -22,7 +22,6 @@ import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.model.ProgressListener;
 import com.amazonaws.services.s3.transfer.internal.ProgressListenerChain;
 import com.amazonaws.services.s3.transfer.internal.TransferMonitor;
-import com.amazonaws.services.s3.transfer.model.UploadResult;
 
 /**
  * Represents an asynchronous upload to or download from Amazon S3.
@@ -35,6 +34,7 @@ import com.amazonaws.services.s3.transfer.model.UploadResult;
  *
  * @see TransferManager#upload(String, String, java.io.File)
  * @see TransferManager#upload(com.amazonaws.services.s3.model.PutObjectRequest)
+ * @see TransferManager#download(com.amazonaws.services.s3.model.GetObjectRequest, java.io.File)
  */
 public abstract class Transfer {
 
@@ -107,11 +107,11 @@ public abstract class Transfer {
     public void waitForCompletion()
             throws AmazonClientException, AmazonServiceException, InterruptedException {
         try {
-            UploadResult result = null;
+            Object result = null;
             while (!monitor.isDone() || result == null) {
                 Future<?> f = monitor.getFuture();
-                result = (UploadResult)f.get();
-            }            
+                result = f.get();
+            }
         } catch (ExecutionException e) {
             rethrowExecutionException(e);
         }
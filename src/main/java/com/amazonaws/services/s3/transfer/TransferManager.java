@@ -15,8 +15,11 @@
 package com.amazonaws.services.s3.transfer;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import com.amazonaws.AmazonClientException;
@@ -26,17 +29,32 @@ import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.internal.Mimetypes;
+import com.amazonaws.services.s3.iterable.S3Objects;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
 import com.amazonaws.services.s3.model.MultipartUpload;
 import com.amazonaws.services.s3.model.MultipartUploadListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.ProgressListener;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.internal.AdaptiveTransferTuner;
+import com.amazonaws.services.s3.transfer.internal.CopyImpl;
+import com.amazonaws.services.s3.transfer.internal.CopyMonitor;
+import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.DownloadMonitor;
+import com.amazonaws.services.s3.transfer.internal.MultipleFileDownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.MultipleFileTransferMonitor;
+import com.amazonaws.services.s3.transfer.internal.MultipleFileUploadImpl;
 import com.amazonaws.services.s3.transfer.internal.ProgressListenerChain;
 import com.amazonaws.services.s3.transfer.internal.TransferManagerUtils;
 import com.amazonaws.services.s3.transfer.internal.TransferProgressImpl;
 import com.amazonaws.services.s3.transfer.internal.TransferProgressUpdatingListener;
 import com.amazonaws.services.s3.transfer.internal.UploadCallable;
+import com.amazonaws.services.s3.transfer.internal.UploadCheckpoint;
 import com.amazonaws.services.s3.transfer.internal.UploadImpl;
 import com.amazonaws.services.s3.transfer.internal.UploadMonitor;
 import com.amazonaws.util.VersionInfoUtils;
@@ -89,6 +107,9 @@ public class TransferManager {
     /** The thread pool in which transfers are uploaded or downloaded. */
     private ThreadPoolExecutor threadPool;
 
+    /** Throughput and latency measurements shared by adaptively tuned uploads. */
+    private final AdaptiveTransferTuner adaptiveTuner = new AdaptiveTransferTuner();
+
     /**
      * Constructs a new <code>TransferManager</code> and Amazon S3 client using
      * the specified AWS security credentials.
@@ -310,7 +331,98 @@ public class TransferManager {
      */
     public Upload upload(final PutObjectRequest putObjectRequest)
         throws AmazonServiceException, AmazonClientException {
-        
+        return upload(putObjectRequest, (UploadCheckpoint)null);
+    }
+
+    /**
+     * <p>
+     * Schedules a new transfer to upload a file to Amazon S3, recording its
+     * progress in a checkpoint file so that it can be resumed with
+     * {@link #resumeUpload(File)} if this process dies before the upload
+     * completes. This method is non-blocking and returns immediately (i.e.
+     * before the upload has finished).
+     * </p>
+     * <p>
+     * The checkpoint is written once the multipart upload has been initiated,
+     * updated as each part completes, and deleted when the upload completes.
+     * If the upload fails, the parts uploaded so far are left in Amazon S3 so
+     * that the upload can be resumed; use
+     * {@link #abortMultipartUploads(String, Date)} to remove them if the
+     * upload won't be resumed. Uploads too small to be split into parts don't
+     * write a checkpoint.
+     * </p>
+     *
+     * @param putObjectRequest
+     *            The request containing all the parameters for the upload.
+     *            The request must specify a file to upload, and the
+     *            transfer manager's client must not be an encryption client.
+     * @param checkpointFile
+     *            The file in which to record the upload's progress.
+     *
+     * @return A new <code>Upload</code> object to use to check the state of
+     *         the upload, listen for progress notifications, and otherwise
+     *         manage the upload.
+     *
+     * @throws AmazonClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     */
+    public Upload upload(final PutObjectRequest putObjectRequest, final File checkpointFile)
+        throws AmazonServiceException, AmazonClientException {
+        File file = TransferManagerUtils.getRequestFile(putObjectRequest);
+        if (file == null) {
+            throw new IllegalArgumentException("Only file uploads can be checkpointed");
+        }
+
+        return upload(putObjectRequest, new UploadCheckpoint(checkpointFile,
+                putObjectRequest.getBucketName(), putObjectRequest.getKey(), file));
+    }
+
+    /**
+     * <p>
+     * Resumes a file upload that was interrupted before it completed, using
+     * the checkpoint file written by
+     * {@link #upload(PutObjectRequest, File)}. This method is non-blocking
+     * and returns immediately (i.e. before the upload has finished).
+     * </p>
+     * <p>
+     * The parts recorded in the checkpoint are reconciled with the parts
+     * Amazon S3 reports for the upload, and only the missing parts are sent.
+     * The file must not have been modified since the upload was started. If
+     * the multipart upload no longer exists in Amazon S3 (for example, because
+     * it was aborted), the upload fails and must be started again with the
+     * original request, since the checkpoint doesn't record the request's
+     * metadata, ACL or storage class.
+     * </p>
+     *
+     * @param checkpointFile
+     *            The checkpoint written by the interrupted upload.
+     *
+     * @return A new <code>Upload</code> object to use to check the state of
+     *         the upload, listen for progress notifications, and otherwise
+     *         manage the upload.
+     *
+     * @throws AmazonClientException
+     *             If the checkpoint can't be read, the file has changed, or
+     *             any other errors are encountered in the client while making
+     *             the request or handling the response.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     */
+    public Upload resumeUpload(final File checkpointFile)
+        throws AmazonServiceException, AmazonClientException {
+        UploadCheckpoint checkpoint = UploadCheckpoint.load(checkpointFile);
+        return upload(new PutObjectRequest(checkpoint.getBucketName(), checkpoint.getKey(), checkpoint.getFile()),
+                checkpoint);
+    }
+
+    private Upload upload(final PutObjectRequest putObjectRequest, final UploadCheckpoint checkpoint)
+        throws AmazonServiceException, AmazonClientException {
+
         appendUserAgent(putObjectRequest, USER_AGENT);
 
         if (putObjectRequest.getMetadata() == null)
@@ -339,8 +451,9 @@ public class TransferManager {
 
         UploadImpl upload = new UploadImpl(description, transferProgress, listenerChain);
 
+        AdaptiveTransferTuner tuner = configuration.isAdaptiveTuningEnabled() ? adaptiveTuner : null;
         UploadCallable uploadCallable = new UploadCallable(this, threadPool, putObjectRequest,
-                listenerChain);
+                listenerChain, checkpoint, tuner);
         UploadMonitor watcher = new UploadMonitor(this, upload, threadPool, uploadCallable, putObjectRequest,
                 listenerChain);
         upload.setMonitor(watcher);
@@ -348,6 +461,432 @@ public class TransferManager {
         return upload;
     }
 
+    /**
+     * Schedules a new transfer to download data from Amazon S3 and save it to
+     * the specified file. This method is non-blocking and returns immediately
+     * (i.e. before the data has been fully downloaded).
+     * <p>
+     * Use the returned Download object to query the progress of the transfer,
+     * add listeners for progress events, and wait for the download to
+     * complete.
+     *
+     * @param bucket
+     *            The name of the bucket containing the object to download.
+     * @param key
+     *            The key under which the object to download is stored.
+     * @param file
+     *            The file to download the object's data to.
+     *
+     * @return A new <code>Download</code> object to use to check the state of
+     *         the download, listen for progress notifications, and otherwise
+     *         manage the download.
+     *
+     * @throws AmazonClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     */
+    public Download download(String bucket, String key, File file)
+        throws AmazonServiceException, AmazonClientException {
+        return download(new GetObjectRequest(bucket, key), file);
+    }
+
+    /**
+     * <p>
+     * Schedules a new transfer to download data from Amazon S3 and save it to
+     * the specified file. This method is non-blocking and returns immediately
+     * (i.e. before the data has been fully downloaded).
+     * </p>
+     * <p>
+     * Objects larger than the configured download part size are split into
+     * byte ranges which are downloaded in parallel and written directly into
+     * the file at their offsets. Every range is pinned to the object's ETag,
+     * so the download fails rather than mixing data if the object is
+     * overwritten while it's being downloaded. Requests that already specify
+     * a range or an object constraint are downloaded with a single request.
+     * </p>
+     * <p>
+     * Use the returned <code>Download</code> object to query the progress of
+     * the transfer, add listeners for progress events, and wait for the
+     * download to complete.
+     * </p>
+     *
+     * @param getObjectRequest
+     *            The request containing all the parameters for the download.
+     * @param file
+     *            The file to download the object data to.
+     *
+     * @return A new <code>Download</code> object to use to check the state of
+     *         the download, listen for progress notifications, and otherwise
+     *         manage the download.
+     *
+     * @throws AmazonClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     *
+     * @see TransferManagerConfiguration#setDownloadPartSize(long)
+     */
+    public Download download(final GetObjectRequest getObjectRequest, final File file)
+        throws AmazonServiceException, AmazonClientException {
+        return download(getObjectRequest, file, null);
+    }
+
+    private Download download(final GetObjectRequest getObjectRequest, final File file,
+            final ProgressListener progressListener)
+        throws AmazonServiceException, AmazonClientException {
+        if (file == null) {
+            throw new IllegalArgumentException("The destination file must be specified when downloading an object");
+        }
+
+        appendUserAgent(getObjectRequest, USER_AGENT);
+
+        String description = "Downloading from " + getObjectRequest.getBucketName() + "/" + getObjectRequest.getKey();
+        TransferProgressImpl transferProgress = new TransferProgressImpl();
+
+        ProgressListenerChain listenerChain = new ProgressListenerChain(
+                new TransferProgressUpdatingListener(transferProgress), progressListener);
+
+        DownloadImpl download = new DownloadImpl(description, transferProgress, listenerChain,
+                getObjectRequest.getBucketName(), getObjectRequest.getKey());
+
+        DownloadMonitor watcher = new DownloadMonitor(this, download, threadPool, getObjectRequest, file,
+                transferProgress, listenerChain);
+        download.setMonitor(watcher);
+
+        return download;
+    }
+
+    /**
+     * <p>
+     * Schedules a new transfer to copy an object within Amazon S3. This
+     * method is non-blocking and returns immediately (i.e. before the copy
+     * has finished).
+     * </p>
+     * <p>
+     * Use the returned <code>Copy</code> object to query the progress of the
+     * transfer, add listeners for progress events, and wait for the copy to
+     * complete.
+     * </p>
+     *
+     * @param sourceBucketName
+     *            The name of the bucket containing the source object.
+     * @param sourceKey
+     *            The key of the source object.
+     * @param destinationBucketName
+     *            The name of the bucket to copy the object to.
+     * @param destinationKey
+     *            The key to store the copy under.
+     *
+     * @return A new <code>Copy</code> object to use to check the state of the
+     *         copy, listen for progress notifications, and otherwise manage
+     *         the copy.
+     *
+     * @throws AmazonClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     */
+    public Copy copy(String sourceBucketName, String sourceKey,
+            String destinationBucketName, String destinationKey)
+        throws AmazonServiceException, AmazonClientException {
+        return copy(new CopyObjectRequest(sourceBucketName, sourceKey, destinationBucketName, destinationKey));
+    }
+
+    /**
+     * <p>
+     * Schedules a new transfer to copy an object within Amazon S3. This
+     * method is non-blocking and returns immediately (i.e. before the copy
+     * has finished).
+     * </p>
+     * <p>
+     * The data never passes through the client. Objects larger than the
+     * configured multipart copy threshold are copied as a multipart upload,
+     * whose parts are byte ranges of the source copied by Amazon S3 in
+     * parallel. Every part is pinned to the source's ETag, so the copy fails
+     * rather than mixing data if the source is overwritten while it's being
+     * copied. Requests that specify an object constraint are copied with a
+     * single request.
+     * </p>
+     * <p>
+     * Use the returned <code>Copy</code> object to query the progress of the
+     * transfer, add listeners for progress events, and wait for the copy to
+     * complete.
+     * </p>
+     *
+     * @param copyObjectRequest
+     *            The request containing all the parameters for the copy.
+     *
+     * @return A new <code>Copy</code> object to use to check the state of the
+     *         copy, listen for progress notifications, and otherwise manage
+     *         the copy.
+     *
+     * @throws AmazonClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     *
+     * @see TransferManagerConfiguration#setMultipartCopyThreshold(long)
+     * @see TransferManagerConfiguration#setMultipartCopyPartSize(long)
+     */
+    public Copy copy(final CopyObjectRequest copyObjectRequest)
+        throws AmazonServiceException, AmazonClientException {
+        appendUserAgent(copyObjectRequest, USER_AGENT);
+
+        String description = "Copying " + copyObjectRequest.getSourceBucketName() + "/"
+                + copyObjectRequest.getSourceKey() + " to " + copyObjectRequest.getDestinationBucketName()
+                + "/" + copyObjectRequest.getDestinationKey();
+        TransferProgressImpl transferProgress = new TransferProgressImpl();
+
+        ProgressListenerChain listenerChain = new ProgressListenerChain(
+                new TransferProgressUpdatingListener(transferProgress));
+
+        CopyImpl copy = new CopyImpl(description, transferProgress, listenerChain);
+
+        CopyMonitor watcher = new CopyMonitor(this, copy, threadPool, copyObjectRequest,
+                transferProgress, listenerChain);
+        copy.setMonitor(watcher);
+
+        return copy;
+    }
+
+    /**
+     * <p>
+     * Schedules a new transfer to upload the files in a directory to a
+     * virtual directory in Amazon S3. This method is non-blocking and returns
+     * once the directory has been scanned (i.e. before the files have been
+     * uploaded).
+     * </p>
+     * <p>
+     * Each file is stored under the key prefix followed by its path relative
+     * to the directory, and is uploaded exactly as
+     * {@link #upload(String, String, File)} would upload it, so large files
+     * still use multipart uploads. Files are uploaded in parallel on the
+     * transfer manager's thread pool, at most
+     * {@link TransferManagerConfiguration#getMaxConcurrentFileTransfers()} at
+     * a time. A file that fails doesn't stop the others from being uploaded;
+     * once every file has finished, the transfer fails with the first error.
+     * </p>
+     * <p>
+     * Use the returned <code>MultipleFileUpload</code> object to query the
+     * combined progress of the transfer, add listeners for progress events,
+     * and wait for all the files to be uploaded.
+     * </p>
+     *
+     * @param bucketName
+     *            The name of the bucket to upload the files to.
+     * @param virtualDirectoryKeyPrefix
+     *            The key prefix of the virtual directory to upload to, or
+     *            null or an empty string to upload to the root of the bucket.
+     * @param directory
+     *            The directory to upload.
+     * @param includeSubdirectories
+     *            Whether to also upload the files in the directory's
+     *            subdirectories.
+     *
+     * @return A new <code>MultipleFileUpload</code> object to use to check
+     *         the state of the transfer, listen for progress notifications,
+     *         and otherwise manage the transfer.
+     *
+     * @throws AmazonClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     */
+    public MultipleFileUpload uploadDirectory(final String bucketName, String virtualDirectoryKeyPrefix,
+            final File directory, boolean includeSubdirectories)
+        throws AmazonServiceException, AmazonClientException {
+        if (directory == null || !directory.isDirectory()) {
+            throw new IllegalArgumentException("Must provide a directory to upload");
+        }
+
+        if (virtualDirectoryKeyPrefix == null) virtualDirectoryKeyPrefix = "";
+        if (virtualDirectoryKeyPrefix.length() > 0 && !virtualDirectoryKeyPrefix.endsWith("/")) {
+            virtualDirectoryKeyPrefix += "/";
+        }
+        final String keyPrefix = virtualDirectoryKeyPrefix;
+
+        List<File> files = new ArrayList<File>();
+        listFiles(directory, files, includeSubdirectories);
+
+        TransferProgressImpl transferProgress = new TransferProgressImpl();
+        long totalBytes = 0;
+        for (File file : files) totalBytes += file.length();
+        transferProgress.setTotalBytesToTransfer(totalBytes);
+
+        ProgressListenerChain listenerChain = new ProgressListenerChain(
+                new TransferProgressUpdatingListener(transferProgress));
+
+        String description = "Uploading " + files.size() + " files from " + directory + " to "
+                + bucketName + "/" + keyPrefix;
+        final MultipleFileUploadImpl upload = new MultipleFileUploadImpl(description, transferProgress,
+                listenerChain, bucketName, keyPrefix);
+
+        final int directoryPathLength = directory.getAbsolutePath().length() + 1;
+        MultipleFileTransferMonitor<File> watcher = new MultipleFileTransferMonitor<File>(files,
+                configuration.getMaxConcurrentFileTransfers(), threadPool, listenerChain) {
+            protected Transfer startTransfer(File file, ProgressListener listener) {
+                String relativePath = file.getAbsolutePath().substring(directoryPathLength);
+                String key = keyPrefix + relativePath.replace(File.separatorChar, '/');
+                return upload(new PutObjectRequest(bucketName, key, file).withProgressListener(listener));
+            }
+
+            protected void setState(TransferState state) {
+                upload.setState(state);
+            }
+        };
+        upload.setMonitor(watcher);
+        watcher.start();
+
+        return upload;
+    }
+
+    /**
+     * <p>
+     * Schedules a new transfer to download all the objects under a virtual
+     * directory in Amazon S3 into a directory. This method is non-blocking
+     * and returns once the objects have been listed (i.e. before they have
+     * been downloaded).
+     * </p>
+     * <p>
+     * Each object is saved under the destination directory at the path given
+     * by its key, creating subdirectories as needed. Objects are downloaded
+     * in parallel on the transfer manager's thread pool, at most
+     * {@link TransferManagerConfiguration#getMaxConcurrentFileTransfers()} at
+     * a time. Objects no larger than the download part size are fetched with
+     * a single GET pinned to the ETag seen in the listing, skipping the HEAD
+     * request a standalone download makes; larger objects are split into
+     * ranges as {@link #download(GetObjectRequest, File)} would split them.
+     * An object that fails doesn't stop the others from being downloaded;
+     * once every object has finished, the transfer fails with the first
+     * error.
+     * </p>
+     * <p>
+     * Use the returned <code>MultipleFileDownload</code> object to query the
+     * combined progress of the transfer, add listeners for progress events,
+     * and wait for all the objects to be downloaded.
+     * </p>
+     *
+     * @param bucketName
+     *            The name of the bucket containing the objects to download.
+     * @param keyPrefix
+     *            The key prefix of the virtual directory to download, or null
+     *            or an empty string to download the whole bucket.
+     * @param destinationDirectory
+     *            The directory to download the objects into.
+     *
+     * @return A new <code>MultipleFileDownload</code> object to use to check
+     *         the state of the transfer, listen for progress notifications,
+     *         and otherwise manage the transfer.
+     *
+     * @throws AmazonClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response, or if a key would be
+     *             saved outside the destination directory.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     */
+    public MultipleFileDownload downloadDirectory(final String bucketName, String keyPrefix,
+            final File destinationDirectory)
+        throws AmazonServiceException, AmazonClientException {
+        if (destinationDirectory == null) {
+            throw new IllegalArgumentException("Must provide a destination directory to download to");
+        }
+        if (keyPrefix == null) keyPrefix = "";
+
+        String destinationPath;
+        try {
+            destinationPath = destinationDirectory.getCanonicalPath() + File.separator;
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to resolve destination directory: " + e.getMessage(), e);
+        }
+
+        List<S3ObjectSummary> summaries = new ArrayList<S3ObjectSummary>();
+        TransferProgressImpl transferProgress = new TransferProgressImpl();
+        long totalBytes = 0;
+        for (S3ObjectSummary summary : S3Objects.withPrefix(s3, bucketName, keyPrefix)) {
+            // Skip the zero-byte markers some tools create for folders
+            if (summary.getKey().endsWith("/")) continue;
+
+            try {
+                if (!new File(destinationDirectory, summary.getKey()).getCanonicalPath().startsWith(destinationPath)) {
+                    throw new AmazonClientException("Unable to download " + summary.getKey()
+                            + ": the key resolves to a path outside " + destinationDirectory);
+                }
+            } catch (IOException e) {
+                throw new AmazonClientException("Unable to resolve download path for " + summary.getKey()
+                        + ": " + e.getMessage(), e);
+            }
+
+            summaries.add(summary);
+            totalBytes += summary.getSize();
+        }
+        transferProgress.setTotalBytesToTransfer(totalBytes);
+
+        ProgressListenerChain listenerChain = new ProgressListenerChain(
+                new TransferProgressUpdatingListener(transferProgress));
+
+        String description = "Downloading " + summaries.size() + " objects from " + bucketName + "/"
+                + keyPrefix + " to " + destinationDirectory;
+        final MultipleFileDownloadImpl download = new MultipleFileDownloadImpl(description, transferProgress,
+                listenerChain, bucketName, keyPrefix);
+
+        MultipleFileTransferMonitor<S3ObjectSummary> watcher = new MultipleFileTransferMonitor<S3ObjectSummary>(
+                summaries, configuration.getMaxConcurrentFileTransfers(), threadPool, listenerChain) {
+            protected Transfer startTransfer(S3ObjectSummary summary, ProgressListener listener) {
+                File file = new File(destinationDirectory, summary.getKey());
+                File parent = file.getParentFile();
+                if (parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+                    throw new AmazonClientException("Unable to create directory " + parent);
+                }
+
+                GetObjectRequest getObjectRequest = new GetObjectRequest(bucketName, summary.getKey());
+                if (summary.getSize() <= configuration.getDownloadPartSize()) {
+                    getObjectRequest.withMatchingETagConstraint(summary.getETag());
+                }
+                return download(getObjectRequest, file, listener);
+            }
+
+            protected void setState(TransferState state) {
+                download.setState(state);
+            }
+        };
+        download.setMonitor(watcher);
+        watcher.start();
+
+        return download;
+    }
+
+    /**
+     * Adds the files in the specified directory to the list, and the files in
+     * its subdirectories if requested.
+     */
+    private static void listFiles(File directory, List<File> files, boolean includeSubdirectories) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            throw new AmazonClientException("Unable to list the files in " + directory);
+        }
+
+        for (File child : children) {
+            if (child.isFile()) {
+                files.add(child);
+            } else if (includeSubdirectories && child.isDirectory()) {
+                listFiles(child, files, includeSubdirectories);
+            }
+        }
+    }
+
     /**
      * <p>
      * Aborts any multipart uploads that were initiated before the specified date.
@@ -33,6 +33,30 @@ public class TransferManagerConfiguration {
     /** Default size threshold for when to use multipart uploads.  */
     private static final int DEFAULT_MULTIPART_UPLOAD_THRESHOLD = 16 * MB;
 
+    /** Default number of part buffers used when uploading a stream. */
+    private static final int DEFAULT_STREAM_UPLOAD_BUFFER_COUNT = 4;
+
+    /** Default size of the byte ranges fetched in parallel by downloads. */
+    private static final long DEFAULT_DOWNLOAD_PART_SIZE = 8 * MB;
+
+    /** Default size threshold for when to use multipart copies. */
+    private static final long DEFAULT_MULTIPART_COPY_THRESHOLD = 100 * MB;
+
+    /** Default part size for multipart copies. */
+    private static final long DEFAULT_MULTIPART_COPY_PART_SIZE = 32 * MB;
+
+    /** Default number of files transferred at once by directory transfers. */
+    private static final int DEFAULT_MAX_CONCURRENT_FILE_TRANSFERS = 10;
+
+    /** Default largest part size adaptive tuning may choose for uploads. */
+    private static final long DEFAULT_MAXIMUM_UPLOAD_PART_SIZE = 128 * MB;
+
+    /** Default fewest parts adaptive tuning keeps in flight per upload. */
+    private static final int DEFAULT_MINIMUM_PARTS_IN_FLIGHT = 2;
+
+    /** Default most parts adaptive tuning keeps in flight per upload. */
+    private static final int DEFAULT_MAXIMUM_PARTS_IN_FLIGHT = 10;
+
     
     /**
      * The minimum part size for upload parts. Decreasing the minimum part size
@@ -57,6 +81,67 @@ public class TransferManagerConfiguration {
      */
     private int multipartUploadThreshold = DEFAULT_MULTIPART_UPLOAD_THRESHOLD;
 
+    /**
+     * The size, in bytes, of the byte ranges a download is split into.
+     * Objects larger than this are downloaded as several ranged GETs running
+     * in parallel, while smaller objects are downloaded over a single
+     * connection.
+     */
+    private long downloadPartSize = DEFAULT_DOWNLOAD_PART_SIZE;
+
+    /**
+     * The number of part buffers used when uploading a stream in parallel.
+     * The stream is read ahead of the part uploads by at most this many
+     * parts, so it bounds the memory used by each stream upload to this many
+     * times the part size.
+     */
+    private int streamUploadBufferCount = DEFAULT_STREAM_UPLOAD_BUFFER_COUNT;
+
+    /**
+     * The size threshold, in bytes, for when to use multipart copies. Copies
+     * of objects over this size are split into parts which Amazon S3 copies
+     * in parallel, while smaller objects are copied with a single request.
+     */
+    private long multipartCopyThreshold = DEFAULT_MULTIPART_COPY_THRESHOLD;
+
+    /**
+     * The part size, in bytes, for multipart copies. Since copied data never
+     * passes through the client, parts can be much larger than upload parts
+     * without costing any memory.
+     */
+    private long multipartCopyPartSize = DEFAULT_MULTIPART_COPY_PART_SIZE;
+
+    /**
+     * The maximum number of files a directory upload or download transfers at
+     * once. Each file is transferred as usual, so large files may still be
+     * split into parts which run in parallel on the thread pool.
+     */
+    private int maxConcurrentFileTransfers = DEFAULT_MAX_CONCURRENT_FILE_TRANSFERS;
+
+    /**
+     * Whether uploads tune their part size and the number of parts they keep
+     * in flight from the throughput and latency measured by earlier parts,
+     * instead of using the minimum part size and submitting every part to
+     * the thread pool at once.
+     */
+    private boolean adaptiveTuningEnabled = false;
+
+    /**
+     * The largest part size, in bytes, adaptive tuning may choose for
+     * uploads. The smallest is the minimum upload part size.
+     */
+    private long maximumUploadPartSize = DEFAULT_MAXIMUM_UPLOAD_PART_SIZE;
+
+    /** The fewest parts adaptive tuning keeps in flight per upload. */
+    private int minimumPartsInFlight = DEFAULT_MINIMUM_PARTS_IN_FLIGHT;
+
+    /**
+     * The most parts adaptive tuning keeps in flight per upload. The parts
+     * still run on the transfer manager's thread pool, so its size is the
+     * real limit on how many run at once.
+     */
+    private int maximumPartsInFlight = DEFAULT_MAXIMUM_PARTS_IN_FLIGHT;
+
     
     /**
      * Returns the minimum part size for upload parts. 
@@ -124,4 +209,224 @@ public class TransferManagerConfiguration {
     public void setMultipartUploadThreshold(int multipartUploadThreshold) {
         this.multipartUploadThreshold = multipartUploadThreshold;
     }
+
+    /**
+     * Returns the size, in bytes, of the byte ranges a download is split
+     * into. Objects larger than this are downloaded as several ranged GETs
+     * running in parallel, while smaller objects are downloaded over a single
+     * connection.
+     *
+     * @return The size of the byte ranges a download is split into.
+     */
+    public long getDownloadPartSize() {
+        return downloadPartSize;
+    }
+
+    /**
+     * Sets the size, in bytes, of the byte ranges a download is split into.
+     * Objects larger than this are downloaded as several ranged GETs running
+     * in parallel, while smaller objects are downloaded over a single
+     * connection.
+     *
+     * @param downloadPartSize
+     *            The size of the byte ranges a download is split into.
+     */
+    public void setDownloadPartSize(long downloadPartSize) {
+        this.downloadPartSize = downloadPartSize;
+    }
+
+    /**
+     * Returns the number of part buffers used when uploading a stream in
+     * parallel. The stream is read ahead of the part uploads by at most this
+     * many parts, so each stream upload uses at most this many times the
+     * part size in memory.
+     *
+     * @return The number of part buffers used when uploading a stream.
+     */
+    public int getStreamUploadBufferCount() {
+        return streamUploadBufferCount;
+    }
+
+    /**
+     * Sets the number of part buffers used when uploading a stream in
+     * parallel. The stream is read ahead of the part uploads by at most this
+     * many parts, so each stream upload uses at most this many times the
+     * part size in memory.
+     *
+     * @param streamUploadBufferCount
+     *            The number of part buffers used when uploading a stream.
+     */
+    public void setStreamUploadBufferCount(int streamUploadBufferCount) {
+        this.streamUploadBufferCount = streamUploadBufferCount;
+    }
+
+    /**
+     * Returns the size threshold, in bytes, for when to use multipart copies.
+     * Copies of objects over this size are split into parts which Amazon S3
+     * copies in parallel, while smaller objects are copied with a single
+     * request.
+     *
+     * @return The size threshold for when to use multipart copies.
+     */
+    public long getMultipartCopyThreshold() {
+        return multipartCopyThreshold;
+    }
+
+    /**
+     * Sets the size threshold, in bytes, for when to use multipart copies.
+     * Copies of objects over this size are split into parts which Amazon S3
+     * copies in parallel, while smaller objects are copied with a single
+     * request. Objects larger than 5GB can only be copied with a multipart
+     * copy.
+     *
+     * @param multipartCopyThreshold
+     *            The size threshold for when to use multipart copies.
+     */
+    public void setMultipartCopyThreshold(long multipartCopyThreshold) {
+        this.multipartCopyThreshold = multipartCopyThreshold;
+    }
+
+    /**
+     * Returns the part size, in bytes, for multipart copies.
+     *
+     * @return The part size for multipart copies.
+     */
+    public long getMultipartCopyPartSize() {
+        return multipartCopyPartSize;
+    }
+
+    /**
+     * Sets the part size, in bytes, for multipart copies. Since copied data
+     * never passes through the client, parts can be much larger than upload
+     * parts without costing any memory. The part size is increased as needed
+     * to keep the copy within the maximum number of parts.
+     *
+     * @param multipartCopyPartSize
+     *            The part size for multipart copies.
+     */
+    public void setMultipartCopyPartSize(long multipartCopyPartSize) {
+        this.multipartCopyPartSize = multipartCopyPartSize;
+    }
+
+    /**
+     * Returns the maximum number of files a directory upload or download
+     * transfers at once.
+     *
+     * @return The maximum number of files a directory transfer transfers at
+     *         once.
+     */
+    public int getMaxConcurrentFileTransfers() {
+        return maxConcurrentFileTransfers;
+    }
+
+    /**
+     * Sets the maximum number of files a directory upload or download
+     * transfers at once. Each file is transferred as usual, so large files
+     * may still be split into parts which run in parallel on the thread pool.
+     * Setting this higher than the number of threads in the pool only queues
+     * more work without increasing throughput.
+     *
+     * @param maxConcurrentFileTransfers
+     *            The maximum number of files a directory transfer transfers
+     *            at once.
+     */
+    public void setMaxConcurrentFileTransfers(int maxConcurrentFileTransfers) {
+        this.maxConcurrentFileTransfers = maxConcurrentFileTransfers;
+    }
+
+    /**
+     * Returns whether uploads tune their part size and the number of parts
+     * they keep in flight from the throughput and latency measured by earlier
+     * parts.
+     *
+     * @return True if adaptive tuning is enabled.
+     */
+    public boolean isAdaptiveTuningEnabled() {
+        return adaptiveTuningEnabled;
+    }
+
+    /**
+     * Sets whether uploads tune their part size and the number of parts they
+     * keep in flight from the throughput and latency measured by earlier
+     * parts. Measurements are shared by all the uploads of a transfer
+     * manager, so tuning improves as more data is uploaded.
+     * <p>
+     * Part sizes are chosen between the minimum upload part size and the
+     * maximum upload part size, so that each request's round trip is a small
+     * fraction of the time spent sending the part. The number of parts in
+     * flight per upload is adjusted between the minimum and maximum parts in
+     * flight, towards whichever gives the most combined throughput. Uploads
+     * of streams through part buffers keep the minimum part size, since their
+     * part size determines how much memory they use.
+     *
+     * @param adaptiveTuningEnabled
+     *            True to enable adaptive tuning.
+     */
+    public void setAdaptiveTuningEnabled(boolean adaptiveTuningEnabled) {
+        this.adaptiveTuningEnabled = adaptiveTuningEnabled;
+    }
+
+    /**
+     * Returns the largest part size, in bytes, adaptive tuning may choose for
+     * uploads.
+     *
+     * @return The largest part size adaptive tuning may choose.
+     */
+    public long getMaximumUploadPartSize() {
+        return maximumUploadPartSize;
+    }
+
+    /**
+     * Sets the largest part size, in bytes, adaptive tuning may choose for
+     * uploads. Parts are still made larger if needed to keep an upload within
+     * the maximum number of parts.
+     *
+     * @param maximumUploadPartSize
+     *            The largest part size adaptive tuning may choose.
+     */
+    public void setMaximumUploadPartSize(long maximumUploadPartSize) {
+        this.maximumUploadPartSize = maximumUploadPartSize;
+    }
+
+    /**
+     * Returns the fewest parts adaptive tuning keeps in flight per upload.
+     *
+     * @return The fewest parts adaptive tuning keeps in flight per upload.
+     */
+    public int getMinimumPartsInFlight() {
+        return minimumPartsInFlight;
+    }
+
+    /**
+     * Sets the fewest parts adaptive tuning keeps in flight per upload.
+     * Tuning starts from this number.
+     *
+     * @param minimumPartsInFlight
+     *            The fewest parts adaptive tuning keeps in flight per upload.
+     */
+    public void setMinimumPartsInFlight(int minimumPartsInFlight) {
+        this.minimumPartsInFlight = minimumPartsInFlight;
+    }
+
+    /**
+     * Returns the most parts adaptive tuning keeps in flight per upload.
+     *
+     * @return The most parts adaptive tuning keeps in flight per upload.
+     */
+    public int getMaximumPartsInFlight() {
+        return maximumPartsInFlight;
+    }
+
+    /**
+     * Sets the most parts adaptive tuning keeps in flight per upload. The
+     * parts still run on the transfer manager's thread pool, so raising this
+     * above the number of threads in the pool has no effect unless the pool
+     * is made larger too.
+     *
+     * @param maximumPartsInFlight
+     *            The most parts adaptive tuning keeps in flight per upload.
+     */
+    public void setMaximumPartsInFlight(int maximumPartsInFlight) {
+        this.maximumPartsInFlight = maximumPartsInFlight;
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
+
+/**
+ * Feeds an upload's parts to the thread pool, keeping no more of them in
+ * flight than the tuner currently allows. The limit is read again each time
+ * a part finishes, so it follows the tuner as it adapts.
+ * <p>
+ * The parts are created up front, so callers can track and cancel them
+ * before they're started; a part cancelled while it's still queued is
+ * skipped when its turn comes.
+ */
+class AdaptivePartQueue {
+
+    private final Executor executor;
+    private final AdaptiveTransferTuner tuner;
+    private final TransferManagerConfiguration configuration;
+    private final Queue<FutureTask<?>> parts = new LinkedList<FutureTask<?>>();
+    private int partsInFlight;
+
+    AdaptivePartQueue(Executor executor, AdaptiveTransferTuner tuner, TransferManagerConfiguration configuration) {
+        this.executor = executor;
+        this.tuner = tuner;
+        this.configuration = configuration;
+    }
+
+    synchronized void add(FutureTask<?> part) {
+        parts.add(part);
+    }
+
+    /**
+     * Starts as many queued parts as the tuner allows.
+     */
+    void start() {
+        while (true) {
+            final FutureTask<?> part;
+            synchronized (this) {
+                int maxPartsInFlight = tuner.getPartsInFlight(
+                        configuration.getMinimumPartsInFlight(), configuration.getMaximumPartsInFlight());
+                if (parts.isEmpty() || partsInFlight >= maxPartsInFlight) return;
+                part = parts.poll();
+                partsInFlight++;
+            }
+
+            try {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            part.run();
+                        } finally {
+                            partFinished();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                part.cancel(false);
+                synchronized (this) {
+                    partsInFlight--;
+                }
+            }
+        }
+    }
+
+    private void partFinished() {
+        synchronized (this) {
+            partsInFlight--;
+        }
+        start();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Tunes the part size and the number of parts in flight per upload from the
+ * throughput and latency measured by earlier requests. One tuner is shared
+ * by all the uploads of a transfer manager, since they share the same link.
+ * <p>
+ * Part sizes are chosen so that a request's round trip, measured from the
+ * requests that initiate multipart uploads, is a small fraction of the time
+ * it takes to send a part over one connection. The number of parts in flight
+ * is found by hill climbing: each measurement window compares the combined
+ * throughput of all parts with the previous window, keeps moving in the same
+ * direction while throughput improves, and turns back when it drops. It
+ * doubles at first, so fast links get up to speed quickly.
+ */
+public class AdaptiveTransferTuner {
+
+    private static final Log log = LogFactory.getLog(AdaptiveTransferTuner.class);
+
+    /** The weight given to each new sample in the moving averages. */
+    private static final double SMOOTHING = 0.25;
+
+    /**
+     * How many times longer than a round trip a part should take to send, so
+     * that the round trip is only around 5% of each part's time.
+     */
+    private static final double ROUND_TRIP_MULTIPLE = 20;
+
+    /** The shortest measurement window for the number of parts in flight. */
+    private static final long MINIMUM_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** Throughput changes smaller than this fraction are treated as noise. */
+    private static final double NOISE_THRESHOLD = 0.1;
+
+    /*
+     * Measurements
+     */
+    private double roundTripNanos;
+    private double bytesPerNano;
+
+    /*
+     * State for the search for the number of parts in flight
+     */
+    private int partsInFlight;
+    private int direction = 1;
+    private boolean isSlowStart = true;
+    private long windowStartNanos;
+    private long windowBytes;
+    private int windowParts;
+    private double lastWindowThroughput;
+
+    /**
+     * Records the duration of a request with no significant payload, as a
+     * measure of the round trip time to Amazon S3.
+     *
+     * @param nanos
+     *            The duration of the request, in nanoseconds.
+     */
+    public synchronized void roundTripCompleted(long nanos) {
+        roundTripNanos = average(roundTripNanos, nanos);
+    }
+
+    /**
+     * Records a successfully uploaded part.
+     *
+     * @param bytes
+     *            The size of the part.
+     * @param startNanos
+     *            The value of {@link System#nanoTime()} when the part was
+     *            started.
+     * @param endNanos
+     *            The value of {@link System#nanoTime()} when the part
+     *            finished.
+     */
+    public synchronized void partUploaded(long bytes, long startNanos, long endNanos) {
+        long elapsedNanos = Math.max(endNanos - startNanos, 1);
+        bytesPerNano = average(bytesPerNano, (double)bytes / elapsedNanos);
+
+        // Windows start with the first part in them, so idle time between
+        // uploads isn't counted against the throughput
+        if (windowParts == 0) windowStartNanos = startNanos;
+        windowBytes += bytes;
+        windowParts++;
+
+        long windowNanos = endNanos - windowStartNanos;
+        if (windowNanos < MINIMUM_WINDOW_NANOS || windowParts < partsInFlight) return;
+
+        double throughput = (double)windowBytes / windowNanos;
+        if (lastWindowThroughput == 0 || throughput > lastWindowThroughput * (1 + NOISE_THRESHOLD)) {
+            partsInFlight += direction * (isSlowStart ? partsInFlight : 1);
+        } else if (throughput < lastWindowThroughput * (1 - NOISE_THRESHOLD)) {
+            isSlowStart = false;
+            direction = -direction;
+            partsInFlight += direction;
+        } else {
+            isSlowStart = false;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Measured " + (long)(throughput * TimeUnit.SECONDS.toNanos(1)) + " bytes/s, "
+                    + "tuning parts in flight to " + partsInFlight);
+        }
+
+        lastWindowThroughput = throughput;
+        windowBytes = 0;
+        windowParts = 0;
+    }
+
+    /**
+     * Returns the part size that keeps the round trip a small fraction of
+     * each part's time at the measured throughput, within the specified
+     * bounds. Returns the minimum until there are measurements to go on.
+     *
+     * @param minimumPartSize
+     *            The smallest part size to return.
+     * @param maximumPartSize
+     *            The largest part size to return.
+     *
+     * @return The tuned part size.
+     */
+    public synchronized long getPartSize(long minimumPartSize, long maximumPartSize) {
+        long partSize = (long)(bytesPerNano * roundTripNanos * ROUND_TRIP_MULTIPLE);
+        return Math.max(minimumPartSize, Math.min(partSize, maximumPartSize));
+    }
+
+    /**
+     * Returns the number of parts each upload should have in flight, within
+     * the specified bounds.
+     *
+     * @param minimumPartsInFlight
+     *            The smallest number of parts in flight to return.
+     * @param maximumPartsInFlight
+     *            The largest number of parts in flight to return.
+     *
+     * @return The tuned number of parts in flight.
+     */
+    public synchronized int getPartsInFlight(int minimumPartsInFlight, int maximumPartsInFlight) {
+        maximumPartsInFlight = Math.max(maximumPartsInFlight, 1);
+        minimumPartsInFlight = Math.max(Math.min(minimumPartsInFlight, maximumPartsInFlight), 1);
+        partsInFlight = Math.max(minimumPartsInFlight, Math.min(partsInFlight, maximumPartsInFlight));
+        return partsInFlight;
+    }
+
+    private static double average(double average, double sample) {
+        if (average == 0) return sample;
+        return average + SMOOTHING * (sample - average);
+    }
+}
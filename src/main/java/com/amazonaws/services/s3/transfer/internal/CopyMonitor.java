@@ -0,0 +1,379 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import static com.amazonaws.services.s3.internal.Constants.MAXIMUM_UPLOAD_PARTS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.CopyObjectResult;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.CopyPartResult;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.ProgressEvent;
+import com.amazonaws.services.s3.model.StorageClass;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
+import com.amazonaws.services.s3.transfer.model.CopyResult;
+
+/**
+ * Manages a copy by sizing the source object and, for large objects, copying
+ * it as a multipart upload whose parts are copied by Amazon S3 in parallel.
+ * Each part is a byte range of the source, copied with a CopyPartRequest
+ * submitted to the transfer manager's thread pool; the last part to finish
+ * completes the multipart upload. Clients waiting on the result should call
+ * {@link CopyMonitor#getFuture()}.
+ */
+public class CopyMonitor implements Runnable, TransferMonitor {
+
+    private static final Log log = LogFactory.getLog(CopyMonitor.class);
+
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final TransferManagerConfiguration configuration;
+    private final CopyObjectRequest copyObjectRequest;
+    private final ProgressListenerChain progressListenerChain;
+    private final TransferProgressImpl transferProgress;
+    private final CopyImpl transfer;
+
+    /*
+     * State for tracking the copy's progress
+     */
+    private final List<Future<?>> futures = new ArrayList<Future<?>>();
+    private String multipartUploadId;
+    private PartETag[] partETags;
+    private int remainingParts;
+
+    /*
+     * State for clients wishing to poll for completion
+     */
+    private final TransferFuture<CopyResult> future = new TransferFuture<CopyResult>();
+    private boolean isCopyDone = false;
+
+    public Future<CopyResult> getFuture() {
+        return future;
+    }
+
+    public synchronized boolean isDone() {
+        return isCopyDone;
+    }
+
+    /**
+     * Constructs a new copy monitor, which immediately submits itself to the
+     * thread pool.
+     *
+     * @param manager
+     *            The {@link TransferManager} that owns this copy.
+     * @param transfer
+     *            The transfer being processed.
+     * @param threadPool
+     *            The {@link ExecutorService} to which we should submit new
+     *            tasks.
+     * @param copyObjectRequest
+     *            The original copyObject request.
+     * @param transferProgress
+     *            The progress of the transfer.
+     * @param progressListenerChain
+     *            A chain of listeners that wish to be notified of copy
+     *            progress.
+     */
+    public CopyMonitor(TransferManager manager, CopyImpl transfer, ExecutorService threadPool,
+            CopyObjectRequest copyObjectRequest, TransferProgressImpl transferProgress,
+            ProgressListenerChain progressListenerChain) {
+        this.s3 = manager.getAmazonS3Client();
+        this.configuration = manager.getConfiguration();
+
+        this.threadPool = threadPool;
+        this.copyObjectRequest = copyObjectRequest;
+        this.transferProgress = transferProgress;
+        this.progressListenerChain = progressListenerChain;
+        this.transfer = transfer;
+
+        threadPool.submit(this);
+    }
+
+    /**
+     * Sizes the source object and either copies it with a single request, or
+     * initiates a multipart upload and submits a task for each part.
+     */
+    public void run() {
+        try {
+            transfer.setState(TransferState.InProgress);
+            fireProgressEvent(ProgressEvent.STARTED_EVENT_CODE);
+
+            if (hasConstraints(copyObjectRequest)) {
+                copyInOneRequest(-1);
+                return;
+            }
+
+            ObjectMetadata metadata = s3.getObjectMetadata(new GetObjectMetadataRequest(
+                    copyObjectRequest.getSourceBucketName(), copyObjectRequest.getSourceKey(),
+                    copyObjectRequest.getSourceVersionId()));
+            long contentLength = metadata.getContentLength();
+            transferProgress.setTotalBytesToTransfer(contentLength);
+
+            if (contentLength <= configuration.getMultipartCopyThreshold()) {
+                copyInOneRequest(contentLength);
+                return;
+            }
+
+            long partSize = Math.max(configuration.getMultipartCopyPartSize(),
+                    (contentLength + MAXIMUM_UPLOAD_PARTS - 1) / MAXIMUM_UPLOAD_PARTS);
+            int partCount = (int)((contentLength + partSize - 1) / partSize);
+
+            synchronized (this) {
+                multipartUploadId = initiateMultipartUpload(metadata);
+                partETags = new PartETag[partCount];
+                remainingParts = partCount;
+
+                for (int i = 0; i < partCount; i++) {
+                    if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
+                    long firstByte = i * partSize;
+                    long lastByte = Math.min(firstByte + partSize, contentLength) - 1;
+                    futures.add(threadPool.submit(new CopyPartTask(
+                            createCopyPartRequest(metadata, i + 1, firstByte, lastByte))));
+                }
+            }
+        } catch (Throwable t) {
+            failed(t);
+        }
+    }
+
+    /**
+     * Returns true if the request specifies any constraints on the source
+     * object. Constrained requests are sent as a single copyObject call, so
+     * that Amazon S3 evaluates the constraints exactly as it would for a
+     * regular copy.
+     */
+    private static boolean hasConstraints(CopyObjectRequest request) {
+        return !request.getMatchingETagConstraints().isEmpty()
+            || !request.getNonmatchingETagConstraints().isEmpty()
+            || request.getModifiedSinceConstraint() != null
+            || request.getUnmodifiedSinceConstraint() != null;
+    }
+
+    /**
+     * Copies the object with a single copyObject call.
+     */
+    private void copyInOneRequest(long contentLength) {
+        CopyObjectResult copyObjectResult = s3.copyObject(copyObjectRequest);
+        if (copyObjectResult == null) {
+            throw new AmazonClientException("Unable to copy " + copyObjectRequest.getSourceBucketName() + "/"
+                    + copyObjectRequest.getSourceKey() + ": the request's constraints were not met");
+        }
+        if (contentLength >= 0) transferProgress.setBytesTransfered(contentLength);
+
+        CopyResult copyResult = createCopyResult();
+        copyResult.setETag(copyObjectResult.getETag());
+        copyResult.setVersionId(copyObjectResult.getVersionId());
+        complete(copyResult);
+    }
+
+    /**
+     * Initiates the multipart upload for the destination object. A multipart
+     * upload doesn't inherit the source's metadata the way a regular copy
+     * does, so unless the request supplies new metadata, the source's content
+     * headers and user metadata are carried over explicitly.
+     */
+    private String initiateMultipartUpload(ObjectMetadata sourceMetadata) {
+        ObjectMetadata newObjectMetadata = copyObjectRequest.getNewObjectMetadata();
+        if (newObjectMetadata == null) {
+            newObjectMetadata = new ObjectMetadata();
+            newObjectMetadata.setUserMetadata(sourceMetadata.getUserMetadata());
+            if (sourceMetadata.getContentType() != null) newObjectMetadata.setContentType(sourceMetadata.getContentType());
+            if (sourceMetadata.getContentEncoding() != null) newObjectMetadata.setContentEncoding(sourceMetadata.getContentEncoding());
+            if (sourceMetadata.getCacheControl() != null) newObjectMetadata.setCacheControl(sourceMetadata.getCacheControl());
+            if (sourceMetadata.getContentDisposition() != null) newObjectMetadata.setContentDisposition(sourceMetadata.getContentDisposition());
+        }
+
+        InitiateMultipartUploadRequest initiateMultipartUploadRequest =
+            new InitiateMultipartUploadRequest(copyObjectRequest.getDestinationBucketName(), copyObjectRequest.getDestinationKey())
+                .withCannedACL(copyObjectRequest.getCannedAccessControlList())
+                .withObjectMetadata(newObjectMetadata);
+
+        if (copyObjectRequest.getStorageClass() != null) {
+            initiateMultipartUploadRequest.setStorageClass(
+                    StorageClass.fromValue(copyObjectRequest.getStorageClass()));
+        }
+
+        String uploadId = s3.initiateMultipartUpload(initiateMultipartUploadRequest).getUploadId();
+        log.debug("Initiated new multipart upload for copy: " + uploadId);
+        return uploadId;
+    }
+
+    /**
+     * Creates the request for one part of the copy. Each part is pinned to
+     * the source's ETag, so the copy fails rather than mixing two versions if
+     * the source is overwritten while it's being copied.
+     */
+    private CopyPartRequest createCopyPartRequest(ObjectMetadata sourceMetadata, int partNumber,
+            long firstByte, long lastByte) {
+        return new CopyPartRequest()
+            .withSourceBucketName(copyObjectRequest.getSourceBucketName())
+            .withSourceKey(copyObjectRequest.getSourceKey())
+            .withSourceVersionId(copyObjectRequest.getSourceVersionId())
+            .withDestinationBucketName(copyObjectRequest.getDestinationBucketName())
+            .withDestinationKey(copyObjectRequest.getDestinationKey())
+            .withUploadId(multipartUploadId)
+            .withPartNumber(partNumber)
+            .withFirstByte(firstByte)
+            .withLastByte(lastByte)
+            .withMatchingETagConstraint(sourceMetadata.getETag());
+    }
+
+    /**
+     * Records a copied part, and completes the multipart upload once every
+     * part has been copied.
+     */
+    private void partCompleted(PartETag partETag) {
+        synchronized (this) {
+            if (isCopyDone) return;
+            partETags[partETag.getPartNumber() - 1] = partETag;
+            if (--remainingParts > 0) return;
+        }
+
+        CompleteMultipartUploadResult completeMultipartUploadResult = s3.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(copyObjectRequest.getDestinationBucketName(),
+                        copyObjectRequest.getDestinationKey(), multipartUploadId, Arrays.asList(partETags)));
+
+        CopyResult copyResult = createCopyResult();
+        copyResult.setETag(completeMultipartUploadResult.getETag());
+        copyResult.setVersionId(completeMultipartUploadResult.getVersionId());
+        complete(copyResult);
+    }
+
+    private CopyResult createCopyResult() {
+        CopyResult copyResult = new CopyResult();
+        copyResult.setSourceBucketName(copyObjectRequest.getSourceBucketName());
+        copyResult.setSourceKey(copyObjectRequest.getSourceKey());
+        copyResult.setDestinationBucketName(copyObjectRequest.getDestinationBucketName());
+        copyResult.setDestinationKey(copyObjectRequest.getDestinationKey());
+        return copyResult;
+    }
+
+    private void complete(CopyResult copyResult) {
+        synchronized (this) {
+            if (isCopyDone) return;
+            isCopyDone = true;
+        }
+
+        transfer.setState(TransferState.Completed);
+        fireProgressEvent(ProgressEvent.COMPLETED_EVENT_CODE);
+        future.set(copyResult);
+    }
+
+    /**
+     * Fails the copy with the specified error, cancelling any parts still in
+     * progress and aborting the multipart upload. Only the first error is
+     * reported.
+     */
+    private void failed(Throwable t) {
+        String uploadId;
+        synchronized (this) {
+            if (isCopyDone) return;
+            isCopyDone = true;
+
+            for (Future<?> f : futures) f.cancel(true);
+            uploadId = multipartUploadId;
+        }
+
+        if (uploadId != null) {
+            try {
+                s3.abortMultipartUpload(new AbortMultipartUploadRequest(
+                        copyObjectRequest.getDestinationBucketName(), copyObjectRequest.getDestinationKey(), uploadId));
+            } catch (Exception e) {
+                log.info("Unable to abort multipart upload, you may need to manually remove uploaded parts: " + e.getMessage(), e);
+            }
+        }
+
+        if (t instanceof CancellationException) {
+            transfer.setState(TransferState.Canceled);
+            fireProgressEvent(ProgressEvent.CANCELED_EVENT_CODE);
+            future.setException(new AmazonClientException("Copy canceled"));
+        } else {
+            transfer.setState(TransferState.Failed);
+            fireProgressEvent(ProgressEvent.FAILED_EVENT_CODE);
+            future.setException(t);
+        }
+    }
+
+    private void fireProgressEvent(int eventType) {
+        if (progressListenerChain == null) return;
+        ProgressEvent event = new ProgressEvent(0);
+        event.setEventCode(eventType);
+        progressListenerChain.progressChanged(event);
+    }
+
+    /**
+     * Reports copied bytes in chunks that fit in a progress event, since a
+     * part can be larger than 2 GB.
+     */
+    private void fireBytesTransferred(long bytes) {
+        if (progressListenerChain == null) return;
+        while (bytes > 0) {
+            int chunk = (int)Math.min(bytes, Integer.MAX_VALUE);
+            progressListenerChain.progressChanged(new ProgressEvent(chunk));
+            bytes -= chunk;
+        }
+    }
+
+    /**
+     * Copies one part and reports its completion back to the monitor.
+     */
+    private final class CopyPartTask implements Callable<PartETag> {
+        private final CopyPartRequest request;
+
+        CopyPartTask(CopyPartRequest request) {
+            this.request = request;
+        }
+
+        public PartETag call() {
+            try {
+                CopyPartResult result = s3.copyPart(request);
+                if (result == null) {
+                    throw new AmazonClientException("Unable to copy " + request.getSourceBucketName() + "/"
+                            + request.getSourceKey() + ": the object was modified while it was being copied");
+                }
+
+                PartETag partETag = new PartETag(request.getPartNumber(), result.getETag());
+                fireBytesTransferred(request.getLastByte() - request.getFirstByte() + 1);
+                partCompleted(partETag);
+                return partETag;
+            } catch (Throwable t) {
+                failed(t);
+                return null;
+            }
+        }
+    }
+}
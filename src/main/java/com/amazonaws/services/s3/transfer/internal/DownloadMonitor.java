@@ -0,0 +1,365 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
+import com.amazonaws.services.s3.internal.Constants;
+import com.amazonaws.services.s3.internal.ServiceUtils;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.ProgressEvent;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
+
+/**
+ * Manages a download by splitting the object into byte ranges, downloading
+ * the ranges in parallel on the transfer manager's thread pool, and writing
+ * each one straight into the destination file at its offset.
+ * <p>
+ * Rather than tying up a pool thread waiting on the parts, the monitor counts
+ * down completed parts and the last one to finish verifies and completes the
+ * download. Clients waiting on the result should call
+ * {@link DownloadMonitor#getFuture()}.
+ */
+public class DownloadMonitor implements Runnable, TransferMonitor {
+
+    private static final Log log = LogFactory.getLog(DownloadMonitor.class);
+
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final TransferManagerConfiguration configuration;
+    private final GetObjectRequest getObjectRequest;
+    private final File destinationFile;
+    private final ProgressListenerChain progressListenerChain;
+    private final TransferProgressImpl transferProgress;
+    private final DownloadImpl transfer;
+
+    /*
+     * State for tracking the download's progress
+     */
+    private final List<Future<?>> futures = new ArrayList<Future<?>>();
+    private ObjectMetadata objectMetadata;
+    private RandomAccessFile randomAccessFile;
+    private MessageDigest digest;
+    private int remainingParts;
+
+    /*
+     * State for clients wishing to poll for completion
+     */
+    private final TransferFuture<ObjectMetadata> future = new TransferFuture<ObjectMetadata>();
+    private boolean isDownloadDone = false;
+
+    public Future<ObjectMetadata> getFuture() {
+        return future;
+    }
+
+    public synchronized boolean isDone() {
+        return isDownloadDone;
+    }
+
+    /**
+     * Constructs a new download monitor, which immediately submits itself to
+     * the thread pool.
+     *
+     * @param manager
+     *            The {@link TransferManager} that owns this download.
+     * @param transfer
+     *            The transfer being processed.
+     * @param threadPool
+     *            The {@link ExecutorService} to which we should submit new
+     *            tasks.
+     * @param getObjectRequest
+     *            The original getObject request.
+     * @param destinationFile
+     *            The file the object is downloaded to.
+     * @param transferProgress
+     *            The progress of the transfer.
+     * @param progressListenerChain
+     *            A chain of listeners that wish to be notified of download
+     *            progress.
+     */
+    public DownloadMonitor(TransferManager manager, DownloadImpl transfer, ExecutorService threadPool,
+            GetObjectRequest getObjectRequest, File destinationFile,
+            TransferProgressImpl transferProgress, ProgressListenerChain progressListenerChain) {
+        this.s3 = manager.getAmazonS3Client();
+        this.configuration = manager.getConfiguration();
+
+        this.threadPool = threadPool;
+        this.getObjectRequest = getObjectRequest;
+        this.destinationFile = destinationFile;
+        this.transferProgress = transferProgress;
+        this.progressListenerChain = progressListenerChain;
+        this.transfer = transfer;
+
+        threadPool.submit(this);
+    }
+
+    /**
+     * Looks up the object's size and submits a task for each of its byte
+     * ranges.
+     */
+    public void run() {
+        try {
+            transfer.setState(TransferState.InProgress);
+            fireProgressEvent(ProgressEvent.STARTED_EVENT_CODE);
+
+            // The encryption client's object metadata describes the encrypted
+            // content, which is longer than the decrypted ranges it returns and
+            // doesn't hash to the ETag, so encrypted objects are downloaded in
+            // one request that the encryption client decrypts itself
+            if (!isRangeable(getObjectRequest) || s3 instanceof AmazonS3EncryptionClient) {
+                downloadInOneRequest();
+                return;
+            }
+
+            ObjectMetadata metadata = s3.getObjectMetadata(new GetObjectMetadataRequest(
+                    getObjectRequest.getBucketName(), getObjectRequest.getKey(), getObjectRequest.getVersionId()));
+            long contentLength = metadata.getContentLength();
+            transferProgress.setTotalBytesToTransfer(contentLength);
+
+            long partSize = Math.max(configuration.getDownloadPartSize(), Constants.MB);
+            int partCount = (int)((contentLength + partSize - 1) / partSize);
+
+            synchronized (this) {
+                objectMetadata = metadata;
+                transfer.setObjectMetadata(metadata);
+
+                randomAccessFile = new RandomAccessFile(destinationFile, "rw");
+                randomAccessFile.setLength(contentLength);
+                FileChannel channel = randomAccessFile.getChannel();
+
+                // With a single part the content arrives in order, so it can
+                // be hashed as it's written instead of re-read afterwards
+                if (partCount == 1 && !isMultipartUploadETag(metadata.getETag())) {
+                    digest = MessageDigest.getInstance("MD5");
+                }
+
+                remainingParts = partCount;
+                for (long start = 0; start < contentLength; start += partSize) {
+                    if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
+                    long end = Math.min(start + partSize, contentLength) - 1;
+                    final DownloadPartCallable part = new DownloadPartCallable(
+                            s3, createRangeRequest(metadata, start, end), channel, progressListenerChain, digest);
+                    futures.add(threadPool.submit(new Callable<Long>() {
+                        public Long call() throws Exception {
+                            try {
+                                Long bytes = part.call();
+                                partCompleted();
+                                return bytes;
+                            } catch (Throwable t) {
+                                failed(t);
+                                return null;
+                            }
+                        }
+                    }));
+                }
+            }
+
+            if (partCount == 0) complete();
+        } catch (Throwable t) {
+            failed(t);
+        }
+    }
+
+    /**
+     * Returns true if the request can be split into byte ranges. Requests that
+     * already specify a range or an object constraint are sent as-is.
+     */
+    private static boolean isRangeable(GetObjectRequest request) {
+        return request.getRange() == null
+            && request.getMatchingETagConstraints().isEmpty()
+            && request.getNonmatchingETagConstraints().isEmpty()
+            && request.getModifiedSinceConstraint() == null
+            && request.getUnmodifiedSinceConstraint() == null;
+    }
+
+    /**
+     * Downloads a request that can't be split into ranges, or an object from
+     * the encryption client, with a single getObject call.
+     */
+    private void downloadInOneRequest() {
+        ObjectMetadata metadata = s3.getObject(getObjectRequest, destinationFile);
+        if (metadata == null) {
+            throw new AmazonClientException("Unable to download " + getObjectRequest.getBucketName() + "/"
+                    + getObjectRequest.getKey() + ": the request's constraints were not met");
+        }
+        transferProgress.setTotalBytesToTransfer(metadata.getContentLength());
+        fireBytesTransferred(metadata.getContentLength());
+
+        synchronized (this) {
+            objectMetadata = metadata;
+            transfer.setObjectMetadata(metadata);
+        }
+        complete();
+    }
+
+    /**
+     * Creates the request for one byte range of the object. Each range is
+     * pinned to the ETag seen when the download started, so a concurrent
+     * overwrite fails the download instead of mixing two versions.
+     */
+    private GetObjectRequest createRangeRequest(ObjectMetadata metadata, long start, long end) {
+        GetObjectRequest request = new GetObjectRequest(
+                getObjectRequest.getBucketName(), getObjectRequest.getKey(), getObjectRequest.getVersionId());
+        request.setRange(start, end);
+        request.setResponseHeaders(getObjectRequest.getResponseHeaders());
+        request.withMatchingETagConstraint(metadata.getETag());
+        return request;
+    }
+
+    private void partCompleted() throws Exception {
+        synchronized (this) {
+            if (isDownloadDone || --remainingParts > 0) return;
+        }
+        complete();
+    }
+
+    /**
+     * Verifies the downloaded file against the object's ETag and marks the
+     * download as completed. The file is hashed without holding the monitor's
+     * lock, so that polling and failure handling aren't blocked meanwhile.
+     */
+    private void complete() {
+        RandomAccessFile file;
+        synchronized (this) {
+            if (isDownloadDone) return;
+            file = randomAccessFile;
+        }
+
+        try {
+            if (file != null && !isMultipartUploadETag(objectMetadata.getETag())) {
+                verifyIntegrity(file);
+            }
+
+            synchronized (this) {
+                // The download may have failed or been canceled while hashing
+                if (isDownloadDone) return;
+                if (file != null) file.close();
+                isDownloadDone = true;
+            }
+        } catch (Throwable t) {
+            failed(t);
+            return;
+        }
+
+        transfer.setState(TransferState.Completed);
+        fireProgressEvent(ProgressEvent.COMPLETED_EVENT_CODE);
+        future.set(objectMetadata);
+    }
+
+    /**
+     * Compares the MD5 of the downloaded content with the object's ETag. For
+     * single-part downloads the digest was computed while writing; otherwise
+     * the parts arrived out of order and the file is hashed once here.
+     */
+    private void verifyIntegrity(RandomAccessFile file) throws Exception {
+        byte[] clientSideHash;
+        if (digest != null) {
+            clientSideHash = digest.digest();
+        } else {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(128 * Constants.KB);
+            long position = 0;
+            int bytesRead;
+            while ((bytesRead = channel.read(buffer, position)) > 0) {
+                md5.update(buffer.array(), 0, bytesRead);
+                position += bytesRead;
+                buffer.clear();
+            }
+            clientSideHash = md5.digest();
+        }
+
+        byte[] serverSideHash = ServiceUtils.fromHex(objectMetadata.getETag());
+        if (!Arrays.equals(clientSideHash, serverSideHash)) {
+            throw new AmazonClientException("Unable to verify integrity of data download.  " +
+                    "Client calculated content hash didn't match hash calculated by Amazon S3.  " +
+                    "The data stored in '" + destinationFile.getAbsolutePath() + "' may be corrupt.");
+        }
+    }
+
+    /**
+     * Fails the download with the specified error, cancelling any parts still
+     * in progress. Only the first error is reported.
+     */
+    private void failed(Throwable t) {
+        synchronized (this) {
+            if (isDownloadDone) return;
+            isDownloadDone = true;
+
+            for (Future<?> f : futures) f.cancel(true);
+            if (randomAccessFile != null) {
+                try {randomAccessFile.close();} catch (Exception e) {
+                    log.warn("Unable to cleanly close file: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        if (t instanceof CancellationException) {
+            transfer.setState(TransferState.Canceled);
+            fireProgressEvent(ProgressEvent.CANCELED_EVENT_CODE);
+            future.setException(new AmazonClientException("Download canceled"));
+        } else {
+            transfer.setState(TransferState.Failed);
+            fireProgressEvent(ProgressEvent.FAILED_EVENT_CODE);
+            future.setException(t);
+        }
+    }
+
+    private static boolean isMultipartUploadETag(String eTag) {
+        return eTag.contains("-");
+    }
+
+    /**
+     * Reports bytes transferred through the listener chain rather than
+     * setting them on the progress directly, so that listeners aggregating
+     * several transfers see them too.
+     */
+    private void fireBytesTransferred(long bytes) {
+        if (progressListenerChain == null) return;
+        while (bytes > 0) {
+            int chunk = (int)Math.min(bytes, Integer.MAX_VALUE);
+            progressListenerChain.progressChanged(new ProgressEvent(chunk));
+            bytes -= chunk;
+        }
+    }
+
+    private void fireProgressEvent(int eventType) {
+        if (progressListenerChain == null) return;
+        ProgressEvent event = new ProgressEvent(0);
+        event.setEventCode(eventType);
+        progressListenerChain.progressChanged(event);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.Callable;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.Constants;
+import com.amazonaws.services.s3.internal.ProgressReportingInputStream;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ProgressListener;
+import com.amazonaws.services.s3.model.S3Object;
+
+/**
+ * Downloads one byte range of an object and writes it directly into the
+ * destination file at the range's offset, using positional writes so that
+ * several parts can share the same file channel.
+ */
+public class DownloadPartCallable implements Callable<Long> {
+
+    /** Size of the buffer used to copy data from the connection to disk */
+    private static final int BUFFER_SIZE = 128 * Constants.KB;
+
+    private final AmazonS3 s3;
+    private final GetObjectRequest request;
+    private final FileChannel channel;
+    private final ProgressListener progressListener;
+    private final MessageDigest digest;
+
+    /**
+     * @param s3
+     *            The client used to download the part.
+     * @param request
+     *            The ranged request for the part.
+     * @param channel
+     *            The destination file's channel.
+     * @param progressListener
+     *            Listener notified of the bytes downloaded.
+     * @param digest
+     *            Optional digest updated with the part's content as it's
+     *            written; only useful when the part covers the whole object.
+     */
+    public DownloadPartCallable(AmazonS3 s3, GetObjectRequest request, FileChannel channel,
+            ProgressListener progressListener, MessageDigest digest) {
+        this.s3 = s3;
+        this.request = request;
+        this.channel = channel;
+        this.progressListener = progressListener;
+        this.digest = digest;
+    }
+
+    /**
+     * Downloads the part and returns the number of bytes written.
+     */
+    public Long call() throws Exception {
+        S3Object s3Object = s3.getObject(request);
+        if (s3Object == null) {
+            throw new AmazonClientException("Unable to download " + request.getBucketName() + "/"
+                    + request.getKey() + ": the object was modified while it was being downloaded");
+        }
+
+        long start = request.getRange()[0];
+        long end = request.getRange()[1];
+        long position = start;
+
+        InputStream input = s3Object.getObjectContent();
+        if (progressListener != null) input = new ProgressReportingInputStream(input, progressListener);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = input.read(buffer)) > -1) {
+                if (digest != null) digest.update(buffer, 0, bytesRead);
+
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, bytesRead);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+            }
+        } finally {
+            try {input.close();} catch (Exception e) {}
+        }
+
+        if (position != end + 1) {
+            throw new AmazonClientException("Unable to download bytes " + start + "-" + end + " of "
+                    + request.getBucketName() + "/" + request.getKey() + ": received "
+                    + (position - start) + " bytes");
+        }
+        return position - start;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.ProgressEvent;
+import com.amazonaws.services.s3.model.ProgressListener;
+import com.amazonaws.services.s3.transfer.Transfer;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+
+/**
+ * Manages a transfer made up of many single-file transfers, such as a
+ * directory upload or download.
+ * <p>
+ * At most a fixed number of files are in flight at once; each time a file
+ * finishes, the next one is started, so no thread waits on the individual
+ * transfers. The bytes transferred for every file are forwarded to the
+ * combined transfer's listeners. A file that fails doesn't stop the others;
+ * once every file has finished, the combined transfer fails with the first
+ * error. Clients waiting on the result should call
+ * {@link MultipleFileTransferMonitor#getFuture()}.
+ *
+ * @param <T>
+ *            The type describing each file to transfer.
+ */
+public abstract class MultipleFileTransferMonitor<T> implements TransferMonitor {
+
+    private final List<T> items;
+    private final int maxTransfersInFlight;
+    private final ExecutorService threadPool;
+    private final ProgressListenerChain progressListenerChain;
+
+    /*
+     * State for tracking the transfer's progress
+     */
+    private int nextItem;
+    private int transfersInFlight;
+    private int transfersFinished;
+    private final List<Transfer> failedTransfers = new ArrayList<Transfer>();
+    private AmazonClientException startFailure;
+
+    /*
+     * State for clients wishing to poll for completion
+     */
+    private final TransferFuture<Integer> future = new TransferFuture<Integer>();
+    private boolean isTransferDone = false;
+
+    public Future<Integer> getFuture() {
+        return future;
+    }
+
+    public synchronized boolean isDone() {
+        return isTransferDone;
+    }
+
+    /**
+     * Constructs a new monitor for the specified files. No files are
+     * transferred until {@link #start()} is called.
+     *
+     * @param items
+     *            The files to transfer, in the order they should be started.
+     * @param maxTransfersInFlight
+     *            The maximum number of files to transfer at once.
+     * @param threadPool
+     *            The {@link ExecutorService} the file transfers run on.
+     * @param progressListenerChain
+     *            A chain of listeners that wish to be notified of the
+     *            combined progress.
+     */
+    public MultipleFileTransferMonitor(List<T> items, int maxTransfersInFlight,
+            ExecutorService threadPool, ProgressListenerChain progressListenerChain) {
+        this.items = items;
+        this.maxTransfersInFlight = Math.max(maxTransfersInFlight, 1);
+        this.threadPool = threadPool;
+        this.progressListenerChain = progressListenerChain;
+    }
+
+    /**
+     * Starts the transfer of a single file.
+     *
+     * @param item
+     *            The file to transfer.
+     * @param listener
+     *            The listener which must receive the file transfer's progress
+     *            events, from before the transfer is started.
+     *
+     * @return The new transfer.
+     */
+    protected abstract Transfer startTransfer(T item, ProgressListener listener);
+
+    /**
+     * Sets the state of the combined transfer.
+     */
+    protected abstract void setState(TransferState state);
+
+    /**
+     * Starts transferring the first batch of files.
+     */
+    public void start() {
+        setState(TransferState.InProgress);
+        fireProgressEvent(ProgressEvent.STARTED_EVENT_CODE);
+        startTransfers();
+    }
+
+    /**
+     * Starts as many files as the in-flight limit allows, or finishes the
+     * combined transfer once every file has finished.
+     */
+    private void startTransfers() {
+        while (true) {
+            T item;
+            synchronized (this) {
+                if (nextItem == items.size()) {
+                    if (transfersInFlight > 0 || isTransferDone) return;
+                    isTransferDone = true;
+                    break;
+                }
+                if (transfersInFlight >= maxTransfersInFlight) return;
+
+                item = items.get(nextItem);
+                items.set(nextItem++, null);
+                transfersInFlight++;
+            }
+
+            FileTransferListener listener = new FileTransferListener();
+            try {
+                listener.started(startTransfer(item, listener));
+            } catch (Exception e) {
+                synchronized (this) {
+                    transfersInFlight--;
+                    transfersFinished++;
+                    if (startFailure == null) {
+                        startFailure = (e instanceof AmazonClientException) ? (AmazonClientException)e
+                                : new AmazonClientException("Unable to start transfer: " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+
+        try {
+            threadPool.submit(new Runnable() {
+                public void run() {
+                    complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            setState(TransferState.Canceled);
+            fireProgressEvent(ProgressEvent.CANCELED_EVENT_CODE);
+            future.setException(new AmazonClientException("TransferManager has been shutdown", e));
+        }
+    }
+
+    private void transferFinished(FileTransferListener listener) {
+        synchronized (this) {
+            transfersInFlight--;
+            transfersFinished++;
+            if (listener.failed) failedTransfers.add(listener.transfer);
+        }
+        startTransfers();
+    }
+
+    /**
+     * Collects the first error, if any, from the failed files and completes
+     * the combined transfer. This runs on the thread pool rather than on the
+     * thread that finished the last file, since that thread may still be
+     * completing the file transfer's own result.
+     */
+    private void complete() {
+        AmazonClientException error = startFailure;
+        try {
+            for (Transfer transfer : failedTransfers) {
+                if (error != null) break;
+                error = transfer.waitForException();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = new AmazonClientException("Interrupted while waiting for the transfer to finish", e);
+        }
+
+        if (error == null) {
+            setState(TransferState.Completed);
+            fireProgressEvent(ProgressEvent.COMPLETED_EVENT_CODE);
+            future.set(transfersFinished);
+        } else {
+            setState(TransferState.Failed);
+            fireProgressEvent(ProgressEvent.FAILED_EVENT_CODE);
+            future.setException(error);
+        }
+    }
+
+    private void fireProgressEvent(int eventType) {
+        if (progressListenerChain == null) return;
+        ProgressEvent event = new ProgressEvent(0);
+        event.setEventCode(eventType);
+        progressListenerChain.progressChanged(event);
+    }
+
+    /**
+     * Forwards a file's progress to the combined transfer, and reports the
+     * file as finished once it has both been started and ended. Both are
+     * needed because a quick transfer can end before the call that started it
+     * returns.
+     */
+    private final class FileTransferListener implements ProgressListener {
+        private Transfer transfer;
+        private boolean ended;
+        private boolean failed;
+
+        public void progressChanged(ProgressEvent progressEvent) {
+            if (progressEvent.getBytesTransfered() != 0 && progressListenerChain != null) {
+                progressListenerChain.progressChanged(new ProgressEvent(progressEvent.getBytesTransfered()));
+            }
+
+            switch (progressEvent.getEventCode()) {
+            case ProgressEvent.COMPLETED_EVENT_CODE:
+                ended(false);
+                break;
+            case ProgressEvent.FAILED_EVENT_CODE:
+            case ProgressEvent.CANCELED_EVENT_CODE:
+                ended(true);
+                break;
+            }
+        }
+
+        void started(Transfer transfer) {
+            synchronized (this) {
+                this.transfer = transfer;
+                if (!ended) return;
+            }
+            transferFinished(this);
+        }
+
+        private void ended(boolean failed) {
+            synchronized (this) {
+                if (ended) return;
+                ended = true;
+                this.failed = failed;
+                if (transfer == null) return;
+            }
+            transferFinished(this);
+        }
+    }
+}
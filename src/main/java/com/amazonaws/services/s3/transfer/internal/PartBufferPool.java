@@ -0,0 +1,127 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.PartETag;
+
+/**
+ * Bounded pool of reusable part buffers for uploading a stream in parallel.
+ * <p>
+ * At most maxBuffers buffers are ever allocated, so the reader of the stream
+ * can't get more than that many parts ahead of the uploads. When every buffer
+ * is in flight, {@link #take()} waits for the oldest part upload to finish,
+ * running it on the calling thread if the thread pool hasn't started it yet.
+ * This keeps the reader from deadlocking when it occupies one of the pool's
+ * own threads.
+ */
+class PartBufferPool {
+    private final int bufferSize;
+    private final int maxBuffers;
+
+    /** Buffers that are allocated but not in use. Guarded by this. */
+    private final LinkedList<byte[]> freeBuffers = new LinkedList<byte[]>();
+
+    /** Part uploads holding a buffer, oldest first. Guarded by this. */
+    private final LinkedList<FutureTask<PartETag>> inFlight = new LinkedList<FutureTask<PartETag>>();
+
+    private int allocatedBuffers;
+
+    PartBufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+    }
+
+    /**
+     * Returns a free buffer, blocking until one of the in-flight parts is
+     * uploaded if all the buffers are in use. A failed part upload is
+     * rethrown here, so the reader stops as soon as the upload can't succeed.
+     */
+    byte[] take() throws InterruptedException {
+        while (true) {
+            FutureTask<PartETag> oldest;
+            synchronized (this) {
+                if (!freeBuffers.isEmpty()) return freeBuffers.removeFirst();
+                if (allocatedBuffers < maxBuffers) {
+                    allocatedBuffers++;
+                    return new byte[bufferSize];
+                }
+                oldest = inFlight.peek();
+            }
+
+            if (oldest == null) continue;
+            oldest.run();
+            try {
+                oldest.get();
+            } catch (ExecutionException e) {
+                Throwable t = e.getCause();
+                if (t instanceof AmazonClientException) throw (AmazonClientException)t;
+                throw new AmazonClientException("Unable to upload part: " + t.getMessage(), t);
+            }
+        }
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     */
+    synchronized void release(byte[] buffer) {
+        freeBuffers.add(buffer);
+    }
+
+    /**
+     * Submits the upload of a part held in the specified buffer. The buffer is
+     * returned to the pool once the upload finishes.
+     */
+    Future<PartETag> submit(Executor executor, Callable<PartETag> partUpload, byte[] buffer) {
+        PartUpload upload = new PartUpload(partUpload, buffer);
+        synchronized (this) {
+            inFlight.add(upload.future);
+        }
+        executor.execute(upload.future);
+        return upload.future;
+    }
+
+    /**
+     * Runs a part upload and then gives its buffer back to the pool.
+     */
+    private final class PartUpload implements Callable<PartETag> {
+        private final Callable<PartETag> partUpload;
+        private final byte[] buffer;
+        private final FutureTask<PartETag> future = new FutureTask<PartETag>(this);
+
+        PartUpload(Callable<PartETag> partUpload, byte[] buffer) {
+            this.partUpload = partUpload;
+            this.buffer = buffer;
+        }
+
+        public PartETag call() throws Exception {
+            try {
+                return partUpload.call();
+            } finally {
+                synchronized (PartBufferPool.this) {
+                    inFlight.remove(future);
+                    freeBuffers.add(buffer);
+                }
+            }
+        }
+    }
+}
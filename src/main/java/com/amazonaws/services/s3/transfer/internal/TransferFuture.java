@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Future for the result of a transfer whose work is spread across several
+ * tasks, completed explicitly by whichever task finishes the transfer.
+ *
+ * @param <T>
+ *            The type of the transfer's result.
+ */
+class TransferFuture<T> extends FutureTask<T> {
+
+    TransferFuture() {
+        super(new Callable<T>() {
+            public T call() {
+                return null;
+            }
+        });
+    }
+
+    @Override
+    protected void set(T v) {
+        super.set(v);
+    }
+
+    @Override
+    protected void setException(Throwable t) {
+        super.setException(t);
+    }
+}
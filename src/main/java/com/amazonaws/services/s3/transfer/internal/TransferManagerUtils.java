@@ -21,6 +21,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
 
@@ -53,21 +55,49 @@ public class TransferManagerUtils {
 	 * 
 	 * @param putObjectRequest
 	 *            The request to check.
-	 * @param isUsingEncryption
-	 *            True if the upload is an encrypted upload, otherwise false.
+	 * @param s3
+	 *            The client that will upload the parts.
 	 * 
 	 * @return True if this request can use parallel part uploads for faster
 	 *         uploads.
 	 */
-    public static boolean isUploadParallelizable(final PutObjectRequest putObjectRequest, final boolean isUsingEncryption) {
-    	// Each uploaded part in an encrypted upload depends on the encryption context
-    	// from the previous upload, so we cannot parallelize encrypted upload parts.
-    	if (isUsingEncryption) return false;
+    public static boolean isUploadParallelizable(final PutObjectRequest putObjectRequest, final AmazonS3 s3) {
+    	// Unless the encryption client derives each part's cipher state from the part's
+    	// position, each uploaded part in an encrypted upload depends on the encryption
+    	// context from the previous upload, so we cannot parallelize encrypted upload parts.
+    	if (s3 instanceof AmazonS3EncryptionClient
+    	        && !((AmazonS3EncryptionClient)s3).isParallelPartUploadSupported()) return false;
 
     	// Otherwise, if there's a file, we can process the uploads concurrently.
         return (getRequestFile(putObjectRequest) != null);
     }
 
+    /**
+     * Returns true if the specified upload request is backed by a stream that
+     * can be read into part buffers and uploaded in parallel. This applies to
+     * unencrypted stream uploads that are either over the multipart upload
+     * threshold or of unknown length.
+     *
+     * @param putObjectRequest
+     *            The request to check.
+     * @param configuration
+     *            Configuration settings controlling how transfer manager
+     *            processes requests.
+     * @param isUsingEncryption
+     *            True if the upload is an encrypted upload, otherwise false.
+     *
+     * @return True if this request's stream should be uploaded in parallel
+     *         parts.
+     */
+    public static boolean isStreamUploadParallelizable(final PutObjectRequest putObjectRequest,
+            final TransferManagerConfiguration configuration, final boolean isUsingEncryption) {
+        if (isUsingEncryption) return false;
+        if (getRequestFile(putObjectRequest) != null || putObjectRequest.getInputStream() == null) return false;
+
+        long contentLength = getContentLength(putObjectRequest);
+        return (contentLength < 0 || contentLength > configuration.getMultipartUploadThreshold());
+    }
+
     /**
      * Returns the size of the data in this request, otherwise -1 if the content
      * length is unknown.
@@ -83,7 +113,7 @@ public class TransferManagerUtils {
         if (file != null) return file.length();
 
         if (putObjectRequest.getInputStream() != null) {
-            if (putObjectRequest.getMetadata().getContentLength() > 0) {
+            if (putObjectRequest.getMetadata() != null && putObjectRequest.getMetadata().getContentLength() > 0) {
                 return putObjectRequest.getMetadata().getContentLength();
             }
         }
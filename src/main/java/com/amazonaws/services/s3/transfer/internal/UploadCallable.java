@@ -14,22 +14,36 @@
  */
 package com.amazonaws.services.s3.transfer.internal;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3EncryptionClient;
+import com.amazonaws.services.s3.internal.crypto.JceEncryptionConstants;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
 import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.ProgressEvent;
 import com.amazonaws.services.s3.model.PutObjectRequest;
@@ -51,13 +65,33 @@ public class UploadCallable implements Callable<UploadResult> {
     private final ProgressListenerChain progressListenerChain;
     private final List<Future<PartETag>> futures = new ArrayList<Future<PartETag>>();
 
+    /** Persisted state allowing the upload to be resumed, or null */
+    private final UploadCheckpoint checkpoint;
+
+    /** Measurements used to tune the upload, or null when tuning is disabled */
+    private final AdaptiveTransferTuner tuner;
+
     public UploadCallable(TransferManager transferManager, ExecutorService threadPool, PutObjectRequest putObjectRequest, ProgressListenerChain progressListenerChain) {
+        this(transferManager, threadPool, putObjectRequest, progressListenerChain, null, null);
+    }
+
+    public UploadCallable(TransferManager transferManager, ExecutorService threadPool, PutObjectRequest putObjectRequest,
+            ProgressListenerChain progressListenerChain, UploadCheckpoint checkpoint, AdaptiveTransferTuner tuner) {
         this.s3 = transferManager.getAmazonS3Client();
         this.configuration = transferManager.getConfiguration();
 
         this.threadPool = threadPool;
         this.putObjectRequest = putObjectRequest;
         this.progressListenerChain = progressListenerChain;
+
+        // Only unencrypted parallel file uploads can be resumed; the envelope
+        // key for an encrypted upload only lives in the client that started it
+        boolean isUsingEncryption = s3 instanceof AmazonS3EncryptionClient;
+        if (checkpoint != null && (isUsingEncryption || !TransferManagerUtils.isUploadParallelizable(putObjectRequest, s3))) {
+            throw new IllegalArgumentException("Only unencrypted file uploads can be checkpointed");
+        }
+        this.checkpoint = checkpoint;
+        this.tuner = tuner;
     }
 
     List<Future<PartETag>> getFutures() {
@@ -68,10 +102,18 @@ public class UploadCallable implements Callable<UploadResult> {
         return multipartUploadId;
     }
 
+    UploadCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
     public UploadResult call() throws Exception {
         fireProgressEvent(ProgressEvent.STARTED_EVENT_CODE);
 
-        if (TransferManagerUtils.shouldUseMultipartUpload(putObjectRequest, configuration)) {
+        boolean isUsingEncryption = s3 instanceof AmazonS3EncryptionClient;
+        if (TransferManagerUtils.isStreamUploadParallelizable(putObjectRequest, configuration, isUsingEncryption)) {
+            return uploadStreamInParts();
+        } else if (TransferManagerUtils.shouldUseMultipartUpload(putObjectRequest, configuration)
+                || (checkpoint != null && checkpoint.isInitiated())) {
             return uploadInParts();
         } else {
             return uploadInOneChunk();
@@ -102,15 +144,24 @@ public class UploadCallable implements Callable<UploadResult> {
         final String key        = putObjectRequest.getKey();
 
         boolean isUsingEncryption = s3 instanceof AmazonS3EncryptionClient;
-        long optimalPartSize = getOptimalPartSize(isUsingEncryption);
+        long optimalPartSize;
+        Map<Integer, String> uploadedParts = Collections.emptyMap();
+
+        if (checkpoint != null && checkpoint.isInitiated()) {
+            multipartUploadId = checkpoint.getUploadId();
+            optimalPartSize = checkpoint.getPartSize();
+            uploadedParts = reconcileUploadedParts(optimalPartSize);
+        } else {
+            optimalPartSize = getOptimalPartSize(isUsingEncryption, tuner);
+            multipartUploadId = initiateMultipartUpload(putObjectRequest);
+            if (checkpoint != null) checkpoint.initiated(multipartUploadId, optimalPartSize);
+        }
 
-        multipartUploadId = initiateMultipartUpload(putObjectRequest);
-        
         try {
             UploadPartRequestFactory requestFactory = new UploadPartRequestFactory(putObjectRequest, multipartUploadId, optimalPartSize);
 
-            if (TransferManagerUtils.isUploadParallelizable(putObjectRequest, isUsingEncryption)) {
-                uploadPartsInParallel(requestFactory);
+            if (TransferManagerUtils.isUploadParallelizable(putObjectRequest, s3)) {
+                uploadPartsInParallel(requestFactory, uploadedParts);
                 return null;
             } else {
                 return uploadPartsInSeries(requestFactory);
@@ -118,6 +169,11 @@ public class UploadCallable implements Callable<UploadResult> {
         } catch (Exception e) {
             fireProgressEvent(ProgressEvent.FAILED_EVENT_CODE);
 
+            if (checkpoint != null) {
+                log.info("Leaving multipart upload " + multipartUploadId + " in place so it can be resumed: " + e.getMessage());
+                throw e;
+            }
+
             try {
                 s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, multipartUploadId));
             } catch (Exception e2) {
@@ -134,13 +190,142 @@ public class UploadCallable implements Callable<UploadResult> {
     }
 
     /**
-     * Computes and returns the optimal part size for the upload.
+     * Uploads a stream in parts, reading it into a bounded set of reusable
+     * part buffers and uploading the filled buffers in parallel on the thread
+     * pool. Streams of unknown length that turn out to fit into a single part
+     * are sent with a single putObject call instead.
      */
-    private long getOptimalPartSize(boolean isUsingEncryption) {
+    private UploadResult uploadStreamInParts() throws Exception {
+        final String bucketName = putObjectRequest.getBucketName();
+        final String key        = putObjectRequest.getKey();
+        final InputStream input = putObjectRequest.getInputStream();
+
+        long contentLength = TransferManagerUtils.getContentLength(putObjectRequest);
+        long partSize = (contentLength < 0)
+            ? configuration.getMinimumUploadPartSize()
+            : getOptimalPartSize(false, null);
+        long remainingBytes = (contentLength < 0) ? Long.MAX_VALUE : contentLength;
+
+        PartBufferPool bufferPool = new PartBufferPool(
+                (int)partSize, Math.max(1, configuration.getStreamUploadBufferCount()));
+
+        try {
+            byte[] buffer = bufferPool.take();
+            int bytesRead = fill(input, buffer, (int)Math.min(partSize, remainingBytes));
+            remainingBytes -= bytesRead;
+            checkNotTruncated(contentLength, remainingBytes, bytesRead, partSize);
+
+            if (contentLength < 0 && bytesRead < partSize) {
+                return uploadBufferInOneChunk(buffer, bytesRead);
+            }
+
+            multipartUploadId = initiateMultipartUpload(putObjectRequest);
+
+            int partNumber = 1;
+            while (true) {
+                UploadPartRequest request = new UploadPartRequest()
+                    .withBucketName(bucketName)
+                    .withKey(key)
+                    .withUploadId(multipartUploadId)
+                    .withInputStream(new ByteArrayInputStream(buffer, 0, bytesRead))
+                    .withPartNumber(partNumber++)
+                    .withPartSize(bytesRead);
+                request.setProgressListener(putObjectRequest.getProgressListener());
+                futures.add(bufferPool.submit(threadPool, new UploadPartCallable(s3, request), buffer));
+
+                if (remainingBytes <= 0) break;
+                if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
+
+                // Blocks (helping with queued parts) once every buffer is in flight
+                buffer = bufferPool.take();
+                bytesRead = fill(input, buffer, (int)Math.min(partSize, remainingBytes));
+                remainingBytes -= bytesRead;
+                checkNotTruncated(contentLength, remainingBytes, bytesRead, partSize);
+                if (bytesRead == 0) {
+                    bufferPool.release(buffer);
+                    break;
+                }
+            }
+            return null;
+        } catch (Exception e) {
+            fireProgressEvent(ProgressEvent.FAILED_EVENT_CODE);
+
+            if (multipartUploadId != null) {
+                for (Future<PartETag> future : futures) future.cancel(true);
+                try {
+                    s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, multipartUploadId));
+                } catch (Exception e2) {
+                    log.info("Unable to abort multipart upload, you may need to manually remove uploaded parts: " + e2.getMessage(), e2);
+                }
+            }
+            throw e;
+        } finally {
+            try {input.close();} catch (Exception e) {
+                log.warn("Unable to cleanly close input stream: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Throws an exception if a stream with a declared content length ended
+     * before all of its content was read, which would otherwise complete the
+     * upload with a truncated object.
+     */
+    private void checkNotTruncated(long contentLength, long remainingBytes, int bytesRead, long partSize) {
+        if (contentLength >= 0 && remainingBytes > 0 && bytesRead < partSize) {
+            throw new AmazonClientException("Unable to upload " + putObjectRequest.getBucketName() + "/"
+                    + putObjectRequest.getKey() + ": the input stream ended after " + (contentLength - remainingBytes)
+                    + " of its declared " + contentLength + " bytes");
+        }
+    }
+
+    /**
+     * Uploads a stream that fit into one part buffer with a single request.
+     */
+    private UploadResult uploadBufferInOneChunk(byte[] buffer, int length) {
+        if (putObjectRequest.getMetadata() == null) putObjectRequest.setMetadata(new ObjectMetadata());
+        putObjectRequest.getMetadata().setContentLength(length);
+
+        putObjectRequest.setInputStream(new ByteArrayInputStream(buffer, 0, length));
+        PutObjectResult putObjectResult = s3.putObject(putObjectRequest);
+
+        UploadResult uploadResult = new UploadResult();
+        uploadResult.setBucketName(putObjectRequest.getBucketName());
+        uploadResult.setKey(putObjectRequest.getKey());
+        uploadResult.setETag(putObjectResult.getETag());
+        uploadResult.setVersionId(putObjectResult.getVersionId());
+        return uploadResult;
+    }
+
+    /**
+     * Reads from the stream until the specified number of bytes have been
+     * read into the buffer or the stream ends, and returns the number of bytes
+     * read.
+     */
+    private static int fill(InputStream input, byte[] buffer, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int bytesRead = input.read(buffer, offset, length - offset);
+            if (bytesRead == -1) break;
+            offset += bytesRead;
+        }
+        return offset;
+    }
+
+    /**
+     * Computes and returns the optimal part size for the upload, using the
+     * tuner's part size if one is given and it's larger.
+     */
+    private long getOptimalPartSize(boolean isUsingEncryption, AdaptiveTransferTuner tuner) {
         long optimalPartSize = TransferManagerUtils.calculateOptimalPartSize(putObjectRequest, configuration);
+        if (tuner != null) {
+            optimalPartSize = Math.max(optimalPartSize, tuner.getPartSize(
+                    configuration.getMinimumUploadPartSize(), configuration.getMaximumUploadPartSize()));
+        }
         if (isUsingEncryption) {
-        	// When using encryption, we want to make sure our parts line up correctly along cipher block boundaries 
-        	optimalPartSize += optimalPartSize % 32;
+        	// When using encryption, we want to make sure our parts line up correctly along cipher block boundaries
+        	long blockSize = JceEncryptionConstants.SYMMETRIC_CIPHER_BLOCK_SIZE;
+        	optimalPartSize = ((optimalPartSize + blockSize - 1) / blockSize) * blockSize;
         }
         log.debug("Calculated optimal part size: " + optimalPartSize);
         return optimalPartSize;
@@ -175,13 +360,90 @@ public class UploadCallable implements Callable<UploadResult> {
 
     /**
      * Submits a callable for each part to upload to our thread pool and records its corresponding Future.
+     * Parts that were already uploaded by a previous attempt are recorded as completed without being sent again.
+     * With adaptive tuning, the parts are fed to the thread pool a few at a time instead.
      */
-    private void uploadPartsInParallel(UploadPartRequestFactory requestFactory) {
+    private void uploadPartsInParallel(UploadPartRequestFactory requestFactory, Map<Integer, String> uploadedParts) {
+        AdaptivePartQueue partQueue = (tuner == null) ? null : new AdaptivePartQueue(threadPool, tuner, configuration);
+
         while (requestFactory.hasMoreRequests()) {
             if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
             UploadPartRequest request = requestFactory.getNextUploadPartRequest();
-            futures.add(threadPool.submit(new UploadPartCallable(s3, request)));
+
+            String eTag = uploadedParts.get(request.getPartNumber());
+            if (eTag != null) {
+                final PartETag partETag = new PartETag(request.getPartNumber(), eTag);
+                FutureTask<PartETag> uploadedPart = new FutureTask<PartETag>(new Callable<PartETag>() {
+                    public PartETag call() {
+                        return partETag;
+                    }
+                });
+                uploadedPart.run();
+                futures.add(uploadedPart);
+                if (progressListenerChain != null) {
+                    progressListenerChain.progressChanged(new ProgressEvent((int)request.getPartSize()));
+                }
+                continue;
+            }
+
+            if (partQueue == null) {
+                futures.add(threadPool.submit(new UploadPartCallable(s3, request, checkpoint)));
+            } else {
+                FutureTask<PartETag> part = new FutureTask<PartETag>(new UploadPartCallable(s3, request, checkpoint, tuner));
+                partQueue.add(part);
+                futures.add(part);
+            }
+        }
+
+        if (partQueue != null) partQueue.start();
+    }
+
+    /**
+     * Lists the parts Amazon S3 already has for the checkpointed upload, and
+     * returns the ETags of those that are complete, by part number. Amazon S3
+     * is treated as authoritative: parts recorded in the checkpoint but
+     * missing from the listing, or listed with the wrong size, are uploaded
+     * again. If the upload itself no longer exists (for example, because it
+     * was aborted), the upload fails: the checkpoint doesn't record the
+     * original request's metadata, ACL or storage class, so a new upload
+     * initiated from it wouldn't match the one that was started.
+     */
+    private Map<Integer, String> reconcileUploadedParts(long partSize) {
+        final String bucketName = putObjectRequest.getBucketName();
+        final String key        = putObjectRequest.getKey();
+        long contentLength = TransferManagerUtils.getContentLength(putObjectRequest);
+        int lastPartNumber = (int)((contentLength + partSize - 1) / partSize);
+
+        Map<Integer, String> uploadedParts = new TreeMap<Integer, String>();
+        PartListing partListing;
+        try {
+            partListing = s3.listParts(new ListPartsRequest(bucketName, key, multipartUploadId));
+        } catch (AmazonServiceException ase) {
+            if (ase.getStatusCode() != 404) throw ase;
+            throw new AmazonClientException("Unable to resume upload: multipart upload " + multipartUploadId
+                    + " no longer exists.  Start the upload again with the original request, since the checkpoint"
+                    + " doesn't record its metadata, ACL or storage class.", ase);
         }
+
+        while (true) {
+            for (PartSummary part : partListing.getParts()) {
+                int partNumber = part.getPartNumber();
+                long expectedSize = (partNumber < lastPartNumber)
+                    ? partSize
+                    : contentLength - (lastPartNumber - 1) * partSize;
+                if (partNumber <= lastPartNumber && part.getSize() == expectedSize) {
+                    uploadedParts.put(partNumber, part.getETag());
+                }
+            }
+            if (!partListing.isTruncated()) break;
+            partListing = s3.listParts(new ListPartsRequest(bucketName, key, multipartUploadId)
+                .withPartNumberMarker(partListing.getNextPartNumberMarker()));
+        }
+
+        log.debug("Resuming multipart upload " + multipartUploadId + " with "
+                + uploadedParts.size() + " of " + lastPartNumber + " parts already uploaded");
+        checkpoint.setPartETags(uploadedParts);
+        return uploadedParts;
     }
 
     /**
@@ -199,7 +461,9 @@ public class UploadCallable implements Callable<UploadResult> {
                     StorageClass.fromValue(putObjectRequest.getStorageClass()));
         }
 
+        long startNanos = System.nanoTime();
         String uploadId = s3.initiateMultipartUpload(initiateMultipartUploadRequest).getUploadId();
+        if (tuner != null) tuner.roundTripCompleted(System.nanoTime() - startNanos);
         log.debug("Initiated new multipart upload: " + uploadId);
 
         return uploadId;
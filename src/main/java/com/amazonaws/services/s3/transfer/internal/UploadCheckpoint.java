@@ -0,0 +1,251 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.PartETag;
+
+/**
+ * The persisted state of a multipart file upload, which allows the upload to
+ * be resumed by another process if this one dies before it completes.
+ * <p>
+ * The checkpoint is a small properties file recording the bucket, key and
+ * source file of the upload, the size and modification time the file had
+ * when the upload started, the multipart upload ID and part size, and the
+ * ETag of every part that has been uploaded. It's rewritten after each part
+ * completes, by writing a temporary file next to it and renaming it into
+ * place, so a crash never leaves a partially written checkpoint behind.
+ */
+public class UploadCheckpoint {
+
+    private static final String BUCKET_NAME = "bucketName";
+    private static final String KEY = "key";
+    private static final String FILE = "file";
+    private static final String FILE_LENGTH = "fileLength";
+    private static final String FILE_LAST_MODIFIED = "fileLastModified";
+    private static final String UPLOAD_ID = "uploadId";
+    private static final String PART_SIZE = "partSize";
+    private static final String PART_PREFIX = "part.";
+
+    private final File checkpointFile;
+    private final String bucketName;
+    private final String key;
+    private final File file;
+    private final long fileLength;
+    private final long fileLastModified;
+    private String uploadId;
+    private long partSize;
+
+    /** The ETags of the uploaded parts, by part number */
+    private final Map<Integer, String> partETags = new TreeMap<Integer, String>();
+
+    /**
+     * Creates a checkpoint for a new upload of the specified file. Nothing is
+     * written until the multipart upload has been initiated.
+     */
+    public UploadCheckpoint(File checkpointFile, String bucketName, String key, File file) {
+        this.checkpointFile = checkpointFile;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.file = file;
+        this.fileLength = file.length();
+        this.fileLastModified = file.lastModified();
+    }
+
+    private UploadCheckpoint(File checkpointFile, Properties properties) {
+        this.checkpointFile = checkpointFile;
+        this.bucketName = getRequiredProperty(checkpointFile, properties, BUCKET_NAME);
+        this.key = getRequiredProperty(checkpointFile, properties, KEY);
+        this.file = new File(getRequiredProperty(checkpointFile, properties, FILE));
+        this.fileLength = Long.parseLong(getRequiredProperty(checkpointFile, properties, FILE_LENGTH));
+        this.fileLastModified = Long.parseLong(getRequiredProperty(checkpointFile, properties, FILE_LAST_MODIFIED));
+        this.uploadId = getRequiredProperty(checkpointFile, properties, UPLOAD_ID);
+        this.partSize = Long.parseLong(getRequiredProperty(checkpointFile, properties, PART_SIZE));
+
+        for (Object property : properties.keySet()) {
+            String name = (String)property;
+            if (name.startsWith(PART_PREFIX)) {
+                int partNumber = Integer.parseInt(name.substring(PART_PREFIX.length()));
+                partETags.put(partNumber, properties.getProperty(name));
+            }
+        }
+    }
+
+    /**
+     * Loads a checkpoint previously written by an interrupted upload.
+     *
+     * @param checkpointFile
+     *            The checkpoint to load.
+     *
+     * @return The loaded checkpoint.
+     *
+     * @throws AmazonClientException
+     *             If the checkpoint can't be read, or if the file being
+     *             uploaded has changed since the upload started.
+     */
+    public static UploadCheckpoint load(File checkpointFile) {
+        Properties properties = new Properties();
+        InputStream input = null;
+        try {
+            input = new FileInputStream(checkpointFile);
+            properties.load(input);
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to read upload checkpoint "
+                    + checkpointFile + ": " + e.getMessage(), e);
+        } finally {
+            try {if (input != null) input.close();} catch (Exception e) {}
+        }
+
+        UploadCheckpoint checkpoint;
+        try {
+            checkpoint = new UploadCheckpoint(checkpointFile, properties);
+        } catch (NumberFormatException e) {
+            throw new AmazonClientException("Invalid upload checkpoint " + checkpointFile, e);
+        }
+
+        File file = checkpoint.getFile();
+        if (file.length() != checkpoint.fileLength || file.lastModified() != checkpoint.fileLastModified) {
+            throw new AmazonClientException("Unable to resume upload: " + file
+                    + " has changed since the upload was started");
+        }
+        return checkpoint;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized String getUploadId() {
+        return uploadId;
+    }
+
+    public synchronized long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Returns true if this checkpoint belongs to an upload that has already
+     * been initiated.
+     */
+    public synchronized boolean isInitiated() {
+        return uploadId != null;
+    }
+
+    /**
+     * Returns a copy of the recorded part ETags, by part number.
+     */
+    public synchronized Map<Integer, String> getPartETags() {
+        return new TreeMap<Integer, String>(partETags);
+    }
+
+    /**
+     * Records the newly initiated multipart upload and writes the checkpoint.
+     */
+    public synchronized void initiated(String uploadId, long partSize) {
+        this.uploadId = uploadId;
+        this.partSize = partSize;
+        this.partETags.clear();
+        save();
+    }
+
+    /**
+     * Replaces the recorded parts, after reconciling them with Amazon S3, and
+     * writes the checkpoint.
+     */
+    public synchronized void setPartETags(Map<Integer, String> partETags) {
+        this.partETags.clear();
+        this.partETags.putAll(partETags);
+        save();
+    }
+
+    /**
+     * Records an uploaded part and writes the checkpoint.
+     */
+    public synchronized void partUploaded(PartETag partETag) {
+        partETags.put(partETag.getPartNumber(), partETag.getETag());
+        save();
+    }
+
+    /**
+     * Deletes the checkpoint once the upload has completed.
+     */
+    public synchronized void delete() {
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            throw new AmazonClientException("Unable to delete upload checkpoint " + checkpointFile);
+        }
+    }
+
+    private void save() {
+        Properties properties = new Properties();
+        properties.setProperty(BUCKET_NAME, bucketName);
+        properties.setProperty(KEY, key);
+        properties.setProperty(FILE, file.getAbsolutePath());
+        properties.setProperty(FILE_LENGTH, Long.toString(fileLength));
+        properties.setProperty(FILE_LAST_MODIFIED, Long.toString(fileLastModified));
+        properties.setProperty(UPLOAD_ID, uploadId);
+        properties.setProperty(PART_SIZE, Long.toString(partSize));
+        for (Map.Entry<Integer, String> entry : partETags.entrySet()) {
+            properties.setProperty(PART_PREFIX + entry.getKey(), entry.getValue());
+        }
+
+        File tempFile = new File(checkpointFile.getAbsolutePath() + ".tmp");
+        OutputStream output = null;
+        try {
+            output = new FileOutputStream(tempFile);
+            properties.store(output, "Amazon S3 multipart upload checkpoint");
+            output.close();
+            output = null;
+
+            // File.renameTo won't replace an existing file on all platforms
+            if (!tempFile.renameTo(checkpointFile)) {
+                checkpointFile.delete();
+                if (!tempFile.renameTo(checkpointFile)) {
+                    throw new IOException("Unable to rename " + tempFile + " to " + checkpointFile);
+                }
+            }
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to write upload checkpoint "
+                    + checkpointFile + ": " + e.getMessage(), e);
+        } finally {
+            try {if (output != null) output.close();} catch (Exception e) {}
+        }
+    }
+
+    private static String getRequiredProperty(File checkpointFile, Properties properties, String name) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            throw new AmazonClientException("Invalid upload checkpoint " + checkpointFile + ": missing " + name);
+        }
+        return value;
+    }
+}
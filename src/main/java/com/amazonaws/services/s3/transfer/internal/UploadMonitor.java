@@ -230,6 +230,15 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
                 .completeMultipartUpload(new CompleteMultipartUploadRequest(putObjectRequest.getBucketName(),
                         putObjectRequest.getKey(), uploadId, collectPartETags()));
     
+        UploadCheckpoint checkpoint = mulipartUploadCallable.getCheckpoint();
+        if (checkpoint != null) {
+            try {
+                checkpoint.delete();
+            } catch (AmazonClientException e) {
+                log.warn(e.getMessage());
+            }
+        }
+
         uploadComplete();
     
         UploadResult uploadResult = new UploadResult();
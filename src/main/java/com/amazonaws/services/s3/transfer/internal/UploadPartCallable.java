@@ -23,13 +23,30 @@ import com.amazonaws.services.s3.model.UploadPartRequest;
 public class UploadPartCallable implements Callable<PartETag> {
     private final AmazonS3 s3;
     private final UploadPartRequest request;
+    private final UploadCheckpoint checkpoint;
+    private final AdaptiveTransferTuner tuner;
 
     public UploadPartCallable(AmazonS3 s3, UploadPartRequest request) {
+        this(s3, request, null);
+    }
+
+    public UploadPartCallable(AmazonS3 s3, UploadPartRequest request, UploadCheckpoint checkpoint) {
+        this(s3, request, checkpoint, null);
+    }
+
+    public UploadPartCallable(AmazonS3 s3, UploadPartRequest request, UploadCheckpoint checkpoint,
+            AdaptiveTransferTuner tuner) {
         this.s3 = s3;
         this.request = request;
+        this.checkpoint = checkpoint;
+        this.tuner = tuner;
     }
 
     public PartETag call() throws Exception {
-        return s3.uploadPart(request).getPartETag();
+        long startNanos = System.nanoTime();
+        PartETag partETag = s3.uploadPart(request).getPartETag();
+        if (tuner != null) tuner.partUploaded(request.getPartSize(), startNanos, System.nanoTime());
+        if (checkpoint != null) checkpoint.partUploaded(partETag);
+        return partETag;
     }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.model;
+
+import com.amazonaws.services.s3.transfer.TransferManager;
+
+/**
+ * Contains information returned by Amazon S3 for a completed copy.
+ * <p>
+ * See {@link TransferManager} for more information about creating transfers.
+ *
+ * @see TransferManager#copy(String, String, String, String)
+ * @see TransferManager#copy(com.amazonaws.services.s3.model.CopyObjectRequest)
+ */
+public class CopyResult {
+
+    /** The name of the bucket containing the source object. */
+    private String sourceBucketName;
+
+    /** The key of the source object. */
+    private String sourceKey;
+
+    /** The name of the bucket containing the copied object. */
+    private String destinationBucketName;
+
+    /** The key by which the copied object is stored. */
+    private String destinationKey;
+
+    /**
+     * The entity tag identifying the new object. An entity tag is an opaque
+     * string that changes if and only if an object's data changes.
+     */
+    private String eTag;
+
+    /**
+     * The version ID of the new object, only present if versioning has been
+     * enabled for the bucket.
+     */
+    private String versionId;
+
+    /**
+     * Returns the name of the bucket containing the source object.
+     *
+     * @return The name of the bucket containing the source object.
+     */
+    public String getSourceBucketName() {
+        return sourceBucketName;
+    }
+
+    /**
+     * Sets the name of the bucket containing the source object.
+     *
+     * @param sourceBucketName
+     *            The name of the bucket containing the source object.
+     */
+    public void setSourceBucketName(String sourceBucketName) {
+        this.sourceBucketName = sourceBucketName;
+    }
+
+    /**
+     * Returns the key of the source object.
+     *
+     * @return The key of the source object.
+     */
+    public String getSourceKey() {
+        return sourceKey;
+    }
+
+    /**
+     * Sets the key of the source object.
+     *
+     * @param sourceKey
+     *            The key of the source object.
+     */
+    public void setSourceKey(String sourceKey) {
+        this.sourceKey = sourceKey;
+    }
+
+    /**
+     * Returns the name of the bucket containing the copied object.
+     *
+     * @return The name of the bucket containing the copied object.
+     */
+    public String getDestinationBucketName() {
+        return destinationBucketName;
+    }
+
+    /**
+     * Sets the name of the bucket containing the copied object.
+     *
+     * @param destinationBucketName
+     *            The name of the bucket containing the copied object.
+     */
+    public void setDestinationBucketName(String destinationBucketName) {
+        this.destinationBucketName = destinationBucketName;
+    }
+
+    /**
+     * Returns the key by which the copied object is stored.
+     *
+     * @return The key by which the copied object is stored.
+     */
+    public String getDestinationKey() {
+        return destinationKey;
+    }
+
+    /**
+     * Sets the key by which the copied object is stored.
+     *
+     * @param destinationKey
+     *            The key by which the copied object is stored.
+     */
+    public void setDestinationKey(String destinationKey) {
+        this.destinationKey = destinationKey;
+    }
+
+    /**
+     * Returns the entity tag identifying the copied object.
+     *
+     * @return The entity tag identifying the copied object.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Sets the entity tag identifying the copied object.
+     *
+     * @param eTag
+     *            The entity tag identifying the copied object.
+     */
+    public void setETag(String eTag) {
+        this.eTag = eTag;
+    }
+
+    /**
+     * Returns the version ID of the copied object, if versioning is enabled
+     * for the bucket.
+     *
+     * @return The version ID of the copied object, if versioning is enabled
+     *         for the bucket.
+     */
+    public String getVersionId() {
+        return versionId;
+    }
+
+    /**
+     * Sets the version ID of the copied object, if versioning is enabled for
+     * the bucket.
+     *
+     * @param versionId
+     *            The version ID of the copied object, if versioning is
+     *            enabled for the bucket.
+     */
+    public void setVersionId(String versionId) {
+        this.versionId = versionId;
+    }
+}
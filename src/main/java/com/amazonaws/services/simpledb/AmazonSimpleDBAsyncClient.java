@@ -14,7 +14,6 @@
  */
 package com.amazonaws.services.simpledb;
             
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -22,9 +21,11 @@ import java.util.concurrent.Future;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Request;
 import com.amazonaws.auth.AWSCredentials;
 
 import com.amazonaws.services.simpledb.model.*;
+import com.amazonaws.services.simpledb.model.transform.*;
 
 
 /**
@@ -176,11 +177,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public Future<SelectResult> selectAsync(final SelectRequest selectRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<SelectResult>() {
-            public SelectResult call() throws Exception {
-                return select(selectRequest);
-		    }
-		});
+        Request<SelectRequest> request = new SelectRequestMarshaller().marshall(selectRequest);
+        return invokeAsync(request, new SelectResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -255,12 +253,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public Future<Void> putAttributesAsync(final PutAttributesRequest putAttributesRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                putAttributes(putAttributesRequest);
-                return null;
-		    }
-		});
+        Request<PutAttributesRequest> request = new PutAttributesRequestMarshaller().marshall(putAttributesRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -311,12 +305,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public Future<Void> batchDeleteAttributesAsync(final BatchDeleteAttributesRequest batchDeleteAttributesRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                batchDeleteAttributes(batchDeleteAttributesRequest);
-                return null;
-		    }
-		});
+        Request<BatchDeleteAttributesRequest> request = new BatchDeleteAttributesRequestMarshaller().marshall(batchDeleteAttributesRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -348,12 +338,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public Future<Void> deleteDomainAsync(final DeleteDomainRequest deleteDomainRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                deleteDomain(deleteDomainRequest);
-                return null;
-		    }
-		});
+        Request<DeleteDomainRequest> request = new DeleteDomainRequestMarshaller().marshall(deleteDomainRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -393,12 +379,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public Future<Void> createDomainAsync(final CreateDomainRequest createDomainRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                createDomain(createDomainRequest);
-                return null;
-		    }
-		});
+        Request<CreateDomainRequest> request = new CreateDomainRequestMarshaller().marshall(createDomainRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -440,12 +422,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public Future<Void> deleteAttributesAsync(final DeleteAttributesRequest deleteAttributesRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                deleteAttributes(deleteAttributesRequest);
-                return null;
-		    }
-		});
+        Request<DeleteAttributesRequest> request = new DeleteAttributesRequestMarshaller().marshall(deleteAttributesRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -476,11 +454,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public Future<ListDomainsResult> listDomainsAsync(final ListDomainsRequest listDomainsRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<ListDomainsResult>() {
-            public ListDomainsResult call() throws Exception {
-                return listDomains(listDomainsRequest);
-		    }
-		});
+        Request<ListDomainsRequest> request = new ListDomainsRequestMarshaller().marshall(listDomainsRequest);
+        return invokeAsync(request, new ListDomainsResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -516,11 +491,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public Future<GetAttributesResult> getAttributesAsync(final GetAttributesRequest getAttributesRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<GetAttributesResult>() {
-            public GetAttributesResult call() throws Exception {
-                return getAttributes(getAttributesRequest);
-		    }
-		});
+        Request<GetAttributesRequest> request = new GetAttributesRequestMarshaller().marshall(getAttributesRequest);
+        return invokeAsync(request, new GetAttributesResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -615,12 +587,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public Future<Void> batchPutAttributesAsync(final BatchPutAttributesRequest batchPutAttributesRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                batchPutAttributes(batchPutAttributesRequest);
-                return null;
-		    }
-		});
+        Request<BatchPutAttributesRequest> request = new BatchPutAttributesRequestMarshaller().marshall(batchPutAttributesRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -646,11 +614,8 @@ public class AmazonSimpleDBAsyncClient extends AmazonSimpleDBClient
      */
     public Future<DomainMetadataResult> domainMetadataAsync(final DomainMetadataRequest domainMetadataRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<DomainMetadataResult>() {
-            public DomainMetadataResult call() throws Exception {
-                return domainMetadata(domainMetadataRequest);
-		    }
-		});
+        Request<DomainMetadataRequest> request = new DomainMetadataRequestMarshaller().marshall(domainMetadataRequest);
+        return invokeAsync(request, new DomainMetadataResultStaxUnmarshaller(), executorService);
     }
     
 }
@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 import com.amazonaws.*;
 import com.amazonaws.auth.AWS3Signer;
@@ -713,6 +715,31 @@ public class AmazonSimpleDBClient extends AmazonWebServiceClient implements Amaz
     }
 
     private <X, Y extends AmazonWebServiceRequest> X invoke(Request<Y> request, Unmarshaller<X, StaxUnmarshallerContext> unmarshaller) {
+        prepareRequest(request);
+
+        StaxResponseHandler<X> responseHandler = new com.amazonaws.services.simpledb.internal.SimpleDBStaxResponseHandler<X>(unmarshaller);
+        DefaultErrorResponseHandler errorResponseHandler = new DefaultErrorResponseHandler(exceptionUnmarshallers);
+
+        ExecutionContext executionContext = createExecutionContext();
+        return (X)client.execute(request, responseHandler, errorResponseHandler, executionContext);
+    }
+
+    /**
+     * Invokes the specified request without blocking the calling thread. Each
+     * attempt runs on the specified executor, and retry back-off pauses don't
+     * hold one of its threads.
+     */
+    protected <X, Y extends AmazonWebServiceRequest> Future<X> invokeAsync(Request<Y> request, Unmarshaller<X, StaxUnmarshallerContext> unmarshaller, Executor executor) {
+        prepareRequest(request);
+
+        StaxResponseHandler<X> responseHandler = new com.amazonaws.services.simpledb.internal.SimpleDBStaxResponseHandler<X>(unmarshaller);
+        DefaultErrorResponseHandler errorResponseHandler = new DefaultErrorResponseHandler(exceptionUnmarshallers);
+
+        ExecutionContext executionContext = createExecutionContext();
+        return client.executeAsync(request, responseHandler, errorResponseHandler, executionContext, executor);
+    }
+
+    private <Y extends AmazonWebServiceRequest> void prepareRequest(Request<Y> request) {
         request.setEndpoint(endpoint);
         for (Entry<String, String> entry : request.getOriginalRequest().copyPrivateRequestParameters().entrySet()) {
             request.addParameter(entry.getKey(), entry.getValue());
@@ -730,13 +757,6 @@ public class AmazonSimpleDBClient extends AmazonWebServiceClient implements Amaz
         } else {
     	    signer.sign(request, awsCredentials);
         }
-
-        
-        StaxResponseHandler<X> responseHandler = new com.amazonaws.services.simpledb.internal.SimpleDBStaxResponseHandler<X>(unmarshaller);
-        DefaultErrorResponseHandler errorResponseHandler = new DefaultErrorResponseHandler(exceptionUnmarshallers);
-
-        ExecutionContext executionContext = createExecutionContext();
-        return (X)client.execute(request, responseHandler, errorResponseHandler, executionContext);
     }
 }
-        
\ No newline at end of file
+        
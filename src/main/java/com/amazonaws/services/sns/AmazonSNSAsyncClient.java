@@ -14,7 +14,6 @@
  */
 package com.amazonaws.services.sns;
             
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -22,9 +21,11 @@ import java.util.concurrent.Future;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Request;
 import com.amazonaws.auth.AWSCredentials;
 
 import com.amazonaws.services.sns.model.*;
+import com.amazonaws.services.sns.model.transform.*;
 
 
 /**
@@ -146,11 +147,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<ConfirmSubscriptionResult> confirmSubscriptionAsync(final ConfirmSubscriptionRequest confirmSubscriptionRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<ConfirmSubscriptionResult>() {
-            public ConfirmSubscriptionResult call() throws Exception {
-                return confirmSubscription(confirmSubscriptionRequest);
-		    }
-		});
+        Request<ConfirmSubscriptionRequest> request = new ConfirmSubscriptionRequestMarshaller().marshall(confirmSubscriptionRequest);
+        return invokeAsync(request, new ConfirmSubscriptionResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -176,11 +174,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<GetTopicAttributesResult> getTopicAttributesAsync(final GetTopicAttributesRequest getTopicAttributesRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<GetTopicAttributesResult>() {
-            public GetTopicAttributesResult call() throws Exception {
-                return getTopicAttributes(getTopicAttributesRequest);
-		    }
-		});
+        Request<GetTopicAttributesRequest> request = new GetTopicAttributesRequestMarshaller().marshall(getTopicAttributesRequest);
+        return invokeAsync(request, new GetTopicAttributesResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -208,11 +203,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<SubscribeResult> subscribeAsync(final SubscribeRequest subscribeRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<SubscribeResult>() {
-            public SubscribeResult call() throws Exception {
-                return subscribe(subscribeRequest);
-		    }
-		});
+        Request<SubscribeRequest> request = new SubscribeRequestMarshaller().marshall(subscribeRequest);
+        return invokeAsync(request, new SubscribeResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -237,12 +229,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<Void> setTopicAttributesAsync(final SetTopicAttributesRequest setTopicAttributesRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                setTopicAttributes(setTopicAttributesRequest);
-                return null;
-		    }
-		});
+        Request<SetTopicAttributesRequest> request = new SetTopicAttributesRequestMarshaller().marshall(setTopicAttributesRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -269,12 +257,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<Void> deleteTopicAsync(final DeleteTopicRequest deleteTopicRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                deleteTopic(deleteTopicRequest);
-                return null;
-		    }
-		});
+        Request<DeleteTopicRequest> request = new DeleteTopicRequestMarshaller().marshall(deleteTopicRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -299,12 +283,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<Void> removePermissionAsync(final RemovePermissionRequest removePermissionRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                removePermission(removePermissionRequest);
-                return null;
-		    }
-		});
+        Request<RemovePermissionRequest> request = new RemovePermissionRequestMarshaller().marshall(removePermissionRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -332,11 +312,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<ListSubscriptionsResult> listSubscriptionsAsync(final ListSubscriptionsRequest listSubscriptionsRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<ListSubscriptionsResult>() {
-            public ListSubscriptionsResult call() throws Exception {
-                return listSubscriptions(listSubscriptionsRequest);
-		    }
-		});
+        Request<ListSubscriptionsRequest> request = new ListSubscriptionsRequestMarshaller().marshall(listSubscriptionsRequest);
+        return invokeAsync(request, new ListSubscriptionsResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -362,12 +339,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<Void> addPermissionAsync(final AddPermissionRequest addPermissionRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                addPermission(addPermissionRequest);
-                return null;
-		    }
-		});
+        Request<AddPermissionRequest> request = new AddPermissionRequestMarshaller().marshall(addPermissionRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -395,11 +368,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<CreateTopicResult> createTopicAsync(final CreateTopicRequest createTopicRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<CreateTopicResult>() {
-            public CreateTopicResult call() throws Exception {
-                return createTopic(createTopicRequest);
-		    }
-		});
+        Request<CreateTopicRequest> request = new CreateTopicRequestMarshaller().marshall(createTopicRequest);
+        return invokeAsync(request, new CreateTopicResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -426,11 +396,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<ListTopicsResult> listTopicsAsync(final ListTopicsRequest listTopicsRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<ListTopicsResult>() {
-            public ListTopicsResult call() throws Exception {
-                return listTopics(listTopicsRequest);
-		    }
-		});
+        Request<ListTopicsRequest> request = new ListTopicsRequestMarshaller().marshall(listTopicsRequest);
+        return invokeAsync(request, new ListTopicsResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -461,12 +428,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<Void> unsubscribeAsync(final UnsubscribeRequest unsubscribeRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                unsubscribe(unsubscribeRequest);
-                return null;
-		    }
-		});
+        Request<UnsubscribeRequest> request = new UnsubscribeRequestMarshaller().marshall(unsubscribeRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -495,11 +458,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<ListSubscriptionsByTopicResult> listSubscriptionsByTopicAsync(final ListSubscriptionsByTopicRequest listSubscriptionsByTopicRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<ListSubscriptionsByTopicResult>() {
-            public ListSubscriptionsByTopicResult call() throws Exception {
-                return listSubscriptionsByTopic(listSubscriptionsByTopicRequest);
-		    }
-		});
+        Request<ListSubscriptionsByTopicRequest> request = new ListSubscriptionsByTopicRequestMarshaller().marshall(listSubscriptionsByTopicRequest);
+        return invokeAsync(request, new ListSubscriptionsByTopicResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -527,11 +487,8 @@ public class AmazonSNSAsyncClient extends AmazonSNSClient
      */
     public Future<PublishResult> publishAsync(final PublishRequest publishRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<PublishResult>() {
-            public PublishResult call() throws Exception {
-                return publish(publishRequest);
-		    }
-		});
+        Request<PublishRequest> request = new PublishRequestMarshaller().marshall(publishRequest);
+        return invokeAsync(request, new PublishResultStaxUnmarshaller(), executorService);
     }
     
 }
@@ -14,7 +14,6 @@
  */
 package com.amazonaws.services.sqs;
             
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -22,9 +21,11 @@ import java.util.concurrent.Future;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Request;
 import com.amazonaws.auth.AWSCredentials;
 
 import com.amazonaws.services.sqs.model.*;
+import com.amazonaws.services.sqs.model.transform.*;
 
 
 /**
@@ -162,11 +163,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<ListQueuesResult> listQueuesAsync(final ListQueuesRequest listQueuesRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<ListQueuesResult>() {
-            public ListQueuesResult call() throws Exception {
-                return listQueues(listQueuesRequest);
-		    }
-		});
+        Request<ListQueuesRequest> request = new ListQueuesRequestMarshaller().marshall(listQueuesRequest);
+        return invokeAsync(request, new ListQueuesResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -191,12 +189,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<Void> setQueueAttributesAsync(final SetQueueAttributesRequest setQueueAttributesRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                setQueueAttributes(setQueueAttributesRequest);
-                return null;
-		    }
-		});
+        Request<SetQueueAttributesRequest> request = new SetQueueAttributesRequestMarshaller().marshall(setQueueAttributesRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -250,12 +244,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<Void> changeMessageVisibilityAsync(final ChangeMessageVisibilityRequest changeMessageVisibilityRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                changeMessageVisibility(changeMessageVisibilityRequest);
-                return null;
-		    }
-		});
+        Request<ChangeMessageVisibilityRequest> request = new ChangeMessageVisibilityRequestMarshaller().marshall(changeMessageVisibilityRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -290,11 +280,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<CreateQueueResult> createQueueAsync(final CreateQueueRequest createQueueRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<CreateQueueResult>() {
-            public CreateQueueResult call() throws Exception {
-                return createQueue(createQueueRequest);
-		    }
-		});
+        Request<CreateQueueRequest> request = new CreateQueueRequestMarshaller().marshall(createQueueRequest);
+        return invokeAsync(request, new CreateQueueResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -320,12 +307,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<Void> removePermissionAsync(final RemovePermissionRequest removePermissionRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                removePermission(removePermissionRequest);
-                return null;
-		    }
-		});
+        Request<RemovePermissionRequest> request = new RemovePermissionRequestMarshaller().marshall(removePermissionRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -351,11 +334,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<GetQueueAttributesResult> getQueueAttributesAsync(final GetQueueAttributesRequest getQueueAttributesRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<GetQueueAttributesResult>() {
-            public GetQueueAttributesResult call() throws Exception {
-                return getQueueAttributes(getQueueAttributesRequest);
-		    }
-		});
+        Request<GetQueueAttributesRequest> request = new GetQueueAttributesRequestMarshaller().marshall(getQueueAttributesRequest);
+        return invokeAsync(request, new GetQueueAttributesResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -386,12 +366,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<Void> addPermissionAsync(final AddPermissionRequest addPermissionRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                addPermission(addPermissionRequest);
-                return null;
-		    }
-		});
+        Request<AddPermissionRequest> request = new AddPermissionRequestMarshaller().marshall(addPermissionRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -417,12 +393,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<Void> deleteQueueAsync(final DeleteQueueRequest deleteQueueRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                deleteQueue(deleteQueueRequest);
-                return null;
-		    }
-		});
+        Request<DeleteQueueRequest> request = new DeleteQueueRequestMarshaller().marshall(deleteQueueRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -449,12 +421,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<Void> deleteMessageAsync(final DeleteMessageRequest deleteMessageRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<Void>() {
-            public Void call() throws Exception {
-                deleteMessage(deleteMessageRequest);
-                return null;
-		    }
-		});
+        Request<DeleteMessageRequest> request = new DeleteMessageRequestMarshaller().marshall(deleteMessageRequest);
+        return invokeAsync(request, null, executorService);
     }
     
     /**
@@ -478,11 +446,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<SendMessageResult> sendMessageAsync(final SendMessageRequest sendMessageRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<SendMessageResult>() {
-            public SendMessageResult call() throws Exception {
-                return sendMessage(sendMessageRequest);
-		    }
-		});
+        Request<SendMessageRequest> request = new SendMessageRequestMarshaller().marshall(sendMessageRequest);
+        return invokeAsync(request, new SendMessageResultStaxUnmarshaller(), executorService);
     }
     
     /**
@@ -513,11 +478,8 @@ public class AmazonSQSAsyncClient extends AmazonSQSClient
      */
     public Future<ReceiveMessageResult> receiveMessageAsync(final ReceiveMessageRequest receiveMessageRequest) 
             throws AmazonServiceException, AmazonClientException {
-        return executorService.submit(new Callable<ReceiveMessageResult>() {
-            public ReceiveMessageResult call() throws Exception {
-                return receiveMessage(receiveMessageRequest);
-		    }
-		});
+        Request<ReceiveMessageRequest> request = new ReceiveMessageRequestMarshaller().marshall(receiveMessageRequest);
+        return invokeAsync(request, new ReceiveMessageResultStaxUnmarshaller(), executorService);
     }
     
 }
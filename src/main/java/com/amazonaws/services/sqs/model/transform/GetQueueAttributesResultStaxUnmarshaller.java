@@ -18,7 +18,7 @@ package com.amazonaws.services.sqs.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.sqs.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,10 +43,10 @@ public class GetQueueAttributesResultStaxUnmarshaller implements Unmarshaller<Ge
                 = new MapEntry<String, String>();
 
             while (true) {
-                XMLEvent xmlEvent = context.nextEvent();
-                if (xmlEvent.isEndDocument()) return entry;
+                int xmlEvent = context.nextEvent();
+                if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return entry;
 
-                if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+                if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                     if (context.testExpression("Name", targetDepth)) {
                         entry.setKey(StringStaxUnmarshaller.getInstance().unmarshall(context));
                         continue;
@@ -55,7 +55,7 @@ public class GetQueueAttributesResultStaxUnmarshaller implements Unmarshaller<Ge
                         entry.setValue(StringStaxUnmarshaller.getInstance().unmarshall(context));
                         continue;
                     }
-                } else if (xmlEvent.isEndElement()) {
+                } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                     if (context.getCurrentDepth() < originalDepth) return entry;
                 }
             }
@@ -79,16 +79,16 @@ public class GetQueueAttributesResultStaxUnmarshaller implements Unmarshaller<Ge
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return getQueueAttributesResult;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return getQueueAttributesResult;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("Attribute", targetDepth)) {
                     Entry<String, String> entry = AttributesMapEntryUnmarshaller.getInstance().unmarshall(context);
                     getQueueAttributesResult.getAttributes().put(entry.getKey(), entry.getValue());
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return getQueueAttributesResult;
                 }
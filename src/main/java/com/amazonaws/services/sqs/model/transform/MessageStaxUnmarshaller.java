@@ -18,7 +18,7 @@ package com.amazonaws.services.sqs.model.transform;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamConstants;
 
 import com.amazonaws.services.sqs.model.*;
 import com.amazonaws.transform.Unmarshaller;
@@ -43,10 +43,10 @@ public class MessageStaxUnmarshaller implements Unmarshaller<Message, StaxUnmars
                 = new MapEntry<String, String>();
 
             while (true) {
-                XMLEvent xmlEvent = context.nextEvent();
-                if (xmlEvent.isEndDocument()) return entry;
+                int xmlEvent = context.nextEvent();
+                if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return entry;
 
-                if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+                if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                     if (context.testExpression("Name", targetDepth)) {
                         entry.setKey(StringStaxUnmarshaller.getInstance().unmarshall(context));
                         continue;
@@ -55,7 +55,7 @@ public class MessageStaxUnmarshaller implements Unmarshaller<Message, StaxUnmars
                         entry.setValue(StringStaxUnmarshaller.getInstance().unmarshall(context));
                         continue;
                     }
-                } else if (xmlEvent.isEndElement()) {
+                } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                     if (context.getCurrentDepth() < originalDepth) return entry;
                 }
             }
@@ -79,10 +79,10 @@ public class MessageStaxUnmarshaller implements Unmarshaller<Message, StaxUnmars
         
 
         while (true) {
-            XMLEvent xmlEvent = context.nextEvent();
-            if (xmlEvent.isEndDocument()) return message;
+            int xmlEvent = context.nextEvent();
+            if (xmlEvent == XMLStreamConstants.END_DOCUMENT) return message;
 
-            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+            if (xmlEvent == XMLStreamConstants.ATTRIBUTE || xmlEvent == XMLStreamConstants.START_ELEMENT) {
                 if (context.testExpression("MessageId", targetDepth)) {
                     message.setMessageId(StringStaxUnmarshaller.getInstance().unmarshall(context));
                     continue;
@@ -104,7 +104,7 @@ public class MessageStaxUnmarshaller implements Unmarshaller<Message, StaxUnmars
                     message.getAttributes().put(entry.getKey(), entry.getValue());
                     continue;
                 }
-            } else if (xmlEvent.isEndElement()) {
+            } else if (xmlEvent == XMLStreamConstants.END_ELEMENT) {
                 if (context.getCurrentDepth() < originalDepth) {
                     return message;
                 }
@@ -16,16 +16,14 @@ package com.amazonaws.transform;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Contains the unmarshalling state for the parsing of an XML response. The
@@ -34,22 +32,78 @@ import javax.xml.stream.events.XMLEvent;
  * response. It also tracks the current position and element depth of the
  * document being parsed and provides utilties for accessing the next XML event
  * from the parser, reading element text, handling attribute XML events, etc.
+ * <p>
+ * The context reads the document through the cursor based StAX API, so no
+ * event objects are allocated while parsing. Events are reported as the event
+ * type constants from {@link XMLStreamConstants}. The attributes of an
+ * element are reported as {@link XMLStreamConstants#ATTRIBUTE} events
+ * following the element's start event.
  */
 public class StaxUnmarshallerContext {
 
-    private XMLEvent currentEvent;
-    private final XMLEventReader eventReader;
+    private final XMLStreamReader streamReader;
 
+    /** The type of the event at the current document position. */
+    private int currentEventType = -1;
+
+    /** True once the first event of the document has been returned. */
+    private boolean started;
+
+    /**
+     * True if reading an element's text has already moved the stream reader
+     * onto the next event to return (the element's end).
+     */
+    private boolean readerAhead;
+
+    /**
+     * The text of the current element, if it was read ahead of time to
+     * collect metadata, and hasn't yet been returned by {@link #readText()}.
+     */
+    private String bufferedText;
+
+    /** Names and values of the last start element's attributes. */
+    private String[] attributeNames = new String[4];
+    private String[] attributeValues = new String[4];
+
+    /** The number of attributes of the last start element. */
+    private int attributeCount;
+
+    /** The index of the next attribute to report as an event. */
+    private int nextAttribute;
+
+    /**
+     * @deprecated The current document position is tracked internally and
+     *             exposed through {@link #getCurrentDepth()} and
+     *             {@link #testExpression(String, int)}. This stack is no
+     *             longer updated while parsing and is always empty.
+     */
+    @Deprecated
     public final Stack<String> stack = new Stack<String>();
-    private String stackString = "";
+
+    /** Local names of the elements enclosing the current document position. */
+    private String[] path = new String[16];
+
+    /** The number of elements in the current path. */
+    private int depth;
+
+    /**
+     * The local name of the attribute at the current document position, or
+     * null if the current position is not an attribute.
+     */
+    private String currentAttribute;
+
+    /** The value of the attribute at the current document position. */
+    private String currentAttributeValue;
+
+    /** Compiled path expressions, shared by all contexts. */
+    private static final Map<String, PathExpression> compiledExpressions =
+        new ConcurrentHashMap<String, PathExpression>();
 
     private Map<String, String> metadata = new HashMap<String, String>();
     private List<MetadataExpression> metadataExpressions = new ArrayList<MetadataExpression>();
 
-    private Iterator<?> attributeIterator;
-
-    public StaxUnmarshallerContext(XMLEventReader eventReader) {
-        this.eventReader = eventReader;
+    public StaxUnmarshallerContext(XMLStreamReader streamReader) {
+        this.streamReader = streamReader;
     }
 
     /**
@@ -59,20 +113,27 @@ public class StaxUnmarshallerContext {
      * @throws XMLStreamException
      */
     public String readText() throws XMLStreamException {
-        if (currentEvent.isAttribute()) {
-            Attribute attribute = (Attribute)currentEvent;
-            return attribute.getValue();
+        if (currentEventType == XMLStreamConstants.ATTRIBUTE) {
+            return currentAttributeValue;
         }
 
-        XMLEvent event = eventReader.peek();
-        if (event.getEventType() == XMLStreamConstants.CHARACTERS) {
-            eventReader.nextEvent();
-            return event.asCharacters().getData();
-        } else if (event.getEventType() == XMLStreamConstants.END_ELEMENT) {
-            return "";
-        } else {
-            throw new RuntimeException("Encountered unexpected event: " + event.toString());
+        if (bufferedText != null) {
+            String text = bufferedText;
+            bufferedText = null;
+            return text;
         }
+
+        if (currentEventType == XMLStreamConstants.START_ELEMENT) {
+            if (readerAhead) return "";
+
+            // Leaves the reader on the element's end, which is reported by
+            // the next call to nextEvent
+            String text = streamReader.getElementText();
+            readerAhead = true;
+            return text;
+        }
+
+        throw new RuntimeException("Encountered unexpected event: " + currentEventType);
     }
 
     /**
@@ -83,7 +144,7 @@ public class StaxUnmarshallerContext {
      *         document being parsed.
      */
     public int getCurrentDepth() {
-        return stack.size();
+        return depth;
     }
 
     /**
@@ -97,7 +158,7 @@ public class StaxUnmarshallerContext {
      */
     public boolean testExpression(String expression) {
         if (expression.equals(".")) return true;
-        return stackString.endsWith(expression);
+        return getPathString().endsWith(expression);
     }
 
     /**
@@ -115,19 +176,7 @@ public class StaxUnmarshallerContext {
      *         the XML document, starting from the specified depth.
      */
     public boolean testExpression(String expression, int startingStackDepth) {
-        if (expression.equals(".")) return true;
-
-        int index = -1;
-        while ((index = expression.indexOf("/", index + 1)) > -1) {
-            // Don't consider attributes a new depth level
-            if (expression.charAt(index + 1) != '@') {
-                startingStackDepth++;
-            }
-        }
-
-
-        return (startingStackDepth == getCurrentDepth()
-                && stackString.endsWith("/" + expression));
+        return compile(expression).matches(this, startingStackDepth);
     }
 
     /**
@@ -139,41 +188,47 @@ public class StaxUnmarshallerContext {
      *         yet).
      */
     public boolean isStartOfDocument() throws XMLStreamException {
-        return eventReader.peek().isStartDocument();
+        return !started && streamReader.getEventType() == XMLStreamConstants.START_DOCUMENT;
     }
 
     /**
-     * Returns the next XML event for the document being parsed.
+     * Returns the type of the next XML event for the document being parsed.
      *
-     * @return The next XML event for the document being parsed.
+     * @return The type of the next XML event for the document being parsed,
+     *         as one of the event type constants from
+     *         {@link XMLStreamConstants}.
      *
      * @throws XMLStreamException
      */
-    public XMLEvent nextEvent() throws XMLStreamException {
-        if (attributeIterator != null && attributeIterator.hasNext()) {
-            currentEvent = (XMLEvent)attributeIterator.next();
-        } else {
-            currentEvent = eventReader.nextEvent();
+    public int nextEvent() throws XMLStreamException {
+        bufferedText = null;
+
+        if (nextAttribute < attributeCount) {
+            currentEventType = XMLStreamConstants.ATTRIBUTE;
+            currentAttribute = attributeNames[nextAttribute];
+            currentAttributeValue = attributeValues[nextAttribute];
+            nextAttribute++;
+            return currentEventType;
         }
 
-        if (currentEvent.isStartElement()) {
-            attributeIterator = currentEvent.asStartElement().getAttributes();
+        if (!started) {
+            started = true;
+            currentEventType = streamReader.getEventType();
+        } else if (readerAhead) {
+            readerAhead = false;
+            currentEventType = streamReader.getEventType();
+        } else {
+            currentEventType = streamReader.next();
         }
 
-        updateContext(currentEvent);
+        updateContext(currentEventType);
 
-        if (eventReader.hasNext()) {
-            XMLEvent nextEvent = eventReader.peek();
-            if (nextEvent != null && nextEvent.isCharacters()) {
-                for (MetadataExpression metadataExpression : metadataExpressions) {
-                    if (testExpression(metadataExpression.expression, metadataExpression.targetDepth)) {
-                        metadata.put(metadataExpression.key, nextEvent.asCharacters().getData());
-                    }
-                }
-            }
+        if (currentEventType == XMLStreamConstants.START_ELEMENT) {
+            captureAttributes();
+            if (!metadataExpressions.isEmpty()) collectMetadata();
         }
 
-        return currentEvent;
+        return currentEventType;
     }
 
     /**
@@ -194,7 +249,8 @@ public class StaxUnmarshallerContext {
      *
      * @param expression
      *            The expression an element must match in order for it's data to
-     *            be pulled out and stored in the metadata map.
+     *            be pulled out and stored in the metadata map. The matching
+     *            element must contain only text, not other elements.
      * @param targetDepth
      *            The depth in the XML document where the expression match must
      *            start.
@@ -215,37 +271,188 @@ public class StaxUnmarshallerContext {
      * unmarshaller context is looking for.
      */
     private class MetadataExpression {
-        public String expression;
+        public PathExpression expression;
         public int targetDepth;
         public String key;
 
         public MetadataExpression(String expression, int targetDepth, String key) {
-            this.expression = expression;
+            this.expression = compile(expression);
             this.targetDepth = targetDepth;
             this.key = key;
         }
     }
 
-    private void updateContext(XMLEvent event) {
-        if (event == null) return;
+    /**
+     * Returns the compiled form of the specified psuedo-xpath expression,
+     * compiling and caching it if this is the first time it's been seen.
+     * Unmarshallers test a fixed set of expressions, so the cache stays small.
+     */
+    private static PathExpression compile(String expression) {
+        PathExpression compiled = compiledExpressions.get(expression);
+        if (compiled == null) {
+            compiled = new PathExpression(expression);
+            compiledExpressions.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * A psuedo-xpath expression (ex: "productCodes/item" or "item/@type"),
+     * split into its path segments so that it can be tested against the
+     * current document position without building any strings.
+     */
+    private static class PathExpression {
+        /** True for the "." expression, which matches any position. */
+        private final boolean matchesAll;
+
+        /** The element names in the expression. */
+        private final String[] elements;
+
+        /** The attribute name the expression ends with, if any. */
+        private final String attribute;
+
+        /**
+         * The number of element levels below the starting depth at which the
+         * expression matches. Attributes don't count as a new depth level.
+         */
+        private final int depthOffset;
+
+        PathExpression(String expression) {
+            matchesAll = expression.equals(".");
+
+            String[] segments = expression.split("/", -1);
+            String lastSegment = segments[segments.length - 1];
+            if (lastSegment.startsWith("@")) {
+                attribute = lastSegment.substring(1);
+                elements = new String[segments.length - 1];
+            } else {
+                attribute = null;
+                elements = new String[segments.length];
+            }
+            System.arraycopy(segments, 0, elements, 0, elements.length);
+
+            int offset = 0;
+            int index = -1;
+            while ((index = expression.indexOf("/", index + 1)) > -1) {
+                if (index + 1 >= expression.length() || expression.charAt(index + 1) != '@') {
+                    offset++;
+                }
+            }
+            depthOffset = offset;
+        }
+
+        boolean matches(StaxUnmarshallerContext context, int startingStackDepth) {
+            if (matchesAll) return true;
+            if (startingStackDepth + depthOffset != context.depth) return false;
+
+            if (attribute == null) {
+                if (context.currentAttribute != null) return false;
+            } else if (!attribute.equals(context.currentAttribute)) {
+                return false;
+            }
+
+            if (elements.length > context.depth) return false;
+            int start = context.depth - elements.length;
+            for (int i = 0; i < elements.length; i++) {
+                if (!elements[i].equals(context.path[start + i])) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Builds the string form (ex: "/foo/bar/@baz") of the current document
+     * position. Only used by the rarely called suffix matching method.
+     */
+    private String getPathString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            builder.append('/').append(path[i]);
+        }
+        if (currentAttribute != null) {
+            builder.append("/@").append(currentAttribute);
+        }
+        return builder.toString();
+    }
 
-        if (event.isEndElement()) {
-            stack.pop();
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
+    private void updateContext(int eventType) {
+        if (eventType == XMLStreamConstants.END_ELEMENT) {
+            path[--depth] = null;
+            currentAttribute = null;
+        } else if (eventType == XMLStreamConstants.START_ELEMENT) {
+            String name = streamReader.getLocalName();
+            if (depth == path.length) {
+                String[] newPath = new String[path.length * 2];
+                System.arraycopy(path, 0, newPath, 0, depth);
+                path = newPath;
             }
-        } else if (event.isStartElement()) {
-            stack.push(event.asStartElement().getName().getLocalPart());
-            stackString += "/" + event.asStartElement().getName().getLocalPart();
-        } else if (event.isAttribute()) {
-            Attribute attribute = (Attribute)event;
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
+            path[depth++] = name;
+            currentAttribute = null;
+        }
+    }
+
+    /**
+     * Copies the attributes of the current start element, so they can be
+     * reported as attribute events even after the reader has moved on.
+     */
+    private void captureAttributes() {
+        attributeCount = streamReader.getAttributeCount();
+        nextAttribute = 0;
+        if (attributeCount > attributeNames.length) {
+            attributeNames = new String[attributeCount];
+            attributeValues = new String[attributeCount];
+        }
+        for (int i = 0; i < attributeCount; i++) {
+            attributeNames[i] = streamReader.getAttributeLocalName(i);
+            attributeValues[i] = streamReader.getAttributeValue(i);
+        }
+    }
+
+    /**
+     * Stores the text of the current start element in the metadata map if it
+     * matches any registered metadata expression. The text is kept so that an
+     * unmarshaller can still read it. An element that turns out to contain
+     * other elements is skipped, so metadata can never fail a response.
+     */
+    private void collectMetadata() throws XMLStreamException {
+        boolean textRead = false;
+        for (MetadataExpression metadataExpression : metadataExpressions) {
+            if (metadataExpression.expression.matches(this, metadataExpression.targetDepth)) {
+                if (!textRead) {
+                    bufferedText = readTextOnlyElement();
+                    textRead = true;
+                }
+                if (bufferedText != null) metadata.put(metadataExpression.key, bufferedText);
+            }
+        }
+    }
+
+    /**
+     * Reads the text of the current start element, like getElementText, but
+     * stops at the first event that isn't text instead of throwing. Either
+     * way the reader is left on that event, to be reported by the next call
+     * to nextEvent.
+     *
+     * @return The element's text, or null if the element contains other
+     *         elements.
+     */
+    private String readTextOnlyElement() throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int eventType = streamReader.next();
+        while (true) {
+            if (eventType == XMLStreamConstants.CHARACTERS
+                    || eventType == XMLStreamConstants.CDATA
+                    || eventType == XMLStreamConstants.SPACE
+                    || eventType == XMLStreamConstants.ENTITY_REFERENCE) {
+                text.append(streamReader.getText());
+            } else if (eventType != XMLStreamConstants.COMMENT
+                    && eventType != XMLStreamConstants.PROCESSING_INSTRUCTION) {
+                break;
             }
-            stackString += "/@" + attribute.getName().getLocalPart();
+            eventType = streamReader.next();
         }
+        readerAhead = true;
+        return (eventType == XMLStreamConstants.END_ELEMENT) ? text.toString() : null;
     }
 
 }
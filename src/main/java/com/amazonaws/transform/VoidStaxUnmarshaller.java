@@ -14,13 +14,15 @@
  */
 package com.amazonaws.transform;
 
+import javax.xml.stream.XMLStreamConstants;
+
 /**
  * Simple StAX unmarshaller that iterates through the XML events but always
  * returns null.
  */
 public class VoidStaxUnmarshaller<T> implements Unmarshaller<T, StaxUnmarshallerContext> {
     public T unmarshall(StaxUnmarshallerContext context) throws Exception {
-        while (context.nextEvent().isEndDocument() == false);
+        while (context.nextEvent() != XMLStreamConstants.END_DOCUMENT);
         return null;
     }
 }
@@ -26,25 +26,81 @@ import java.util.SimpleTimeZone;
 /**
  * Utilities for parsing and formatting dates.
  * <p>
- * Note that this class doesn't use static methods because of the
- * synchronization issues with SimpleDateFormat. This lets synchronization be
- * done on a per-object level, instead of on a per-class level.
+ * Dates in the formats AWS services actually send and expect (UTC ISO 8601
+ * timestamps and RFC 822 dates in GMT) are parsed and formatted directly,
+ * without locking or SimpleDateFormat. Anything else, such as dates outside
+ * of the years 1583 to 9999, or RFC 822 dates using a different time zone, is
+ * handed to a SimpleDateFormat owned by the calling thread, so the results
+ * are the same as they've always been. Instances of this class can be freely
+ * shared between threads.
  */
 public class DateUtils {
-    
-    /** ISO 8601 parser */
-    protected final SimpleDateFormat iso8601DateParser = 
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /** The first day formatted and parsed directly: 1583-01-01 */
+    private static final long MIN_FAST_PATH_DAY = daysFromCivil(1583, 1, 1);
+
+    /** The day after the last day formatted and parsed directly: 10000-01-01 */
+    private static final long MAX_FAST_PATH_DAY = daysFromCivil(10000, 1, 1);
+
+    private static final String[] MONTH_NAMES = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun",
+        "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    /** Day names, starting with the day of the week of 1970-01-01 */
+    private static final String[] DAY_NAMES = {
+        "Thu", "Fri", "Sat", "Sun", "Mon", "Tue", "Wed"
+    };
+
+    /** ISO 8601 format used for anything outside of the fast path */
+    private static final ThreadLocal<SimpleDateFormat> iso8601DateFormat =
+        new GmtDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", null);
+
+    /** Alternate ISO 8601 format without fractional seconds */
+    private static final ThreadLocal<SimpleDateFormat> alternateIso8601DateFormat =
+        new GmtDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", null);
+
+    /** RFC 822 format used for anything outside of the fast path */
+    private static final ThreadLocal<SimpleDateFormat> rfc822DateFormat =
+        new GmtDateFormat("EEE, dd MMM yyyy HH:mm:ss z", Locale.US);
+
+    /**
+     * The most recently formatted RFC 822 date. Most RFC 822 dates we format
+     * are the current time for a Date header, so requests sent within the
+     * same second can all share one string.
+     */
+    private static volatile FormattedSecond lastRfc822Date;
+
+    /**
+     * ISO 8601 parser
+     *
+     * @deprecated No longer used by this class; kept for subclasses.
+     */
+    @Deprecated
+    protected final SimpleDateFormat iso8601DateParser =
         new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-    
-    /** Alternate ISO 8601 parser without fractional seconds */
+
+    /**
+     * Alternate ISO 8601 parser without fractional seconds
+     *
+     * @deprecated No longer used by this class; kept for subclasses.
+     */
+    @Deprecated
     protected final SimpleDateFormat alternateIo8601DateParser =
         new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
 
-    /** RFC 822 parser */
-    protected final SimpleDateFormat rfc822DateParser = 
+    /**
+     * RFC 822 parser
+     *
+     * @deprecated No longer used by this class; kept for subclasses.
+     */
+    @Deprecated
+    protected final SimpleDateFormat rfc822DateParser =
         new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z", Locale.US);
 
-    
+
     /**
      * Constructs a new DateUtils object, ready to parse/format dates.
      */
@@ -67,16 +123,15 @@ public class DateUtils {
      *             If the date string could not be parsed.
      */
     public Date parseIso8601Date(String dateString) throws ParseException {
+        Date date = parseIso8601DateFast(dateString);
+        if (date != null) return date;
+
         try {
-            synchronized (iso8601DateParser) {
-                return iso8601DateParser.parse(dateString);
-            }
+            return iso8601DateFormat.get().parse(dateString);
         } catch (ParseException e) {
             // If the first ISO 8601 parser didn't work, try the alternate
             // version which doesn't include fractional seconds
-            synchronized (alternateIo8601DateParser) {
-                return alternateIo8601DateParser.parse(dateString);
-            }
+            return alternateIso8601DateFormat.get().parse(dateString);
         }
     }
 
@@ -89,9 +144,21 @@ public class DateUtils {
      * @return The ISO 8601 string representing the specified date.
      */
     public String formatIso8601Date(Date date) {
-        synchronized (iso8601DateParser) {
-            return iso8601DateParser.format(date);
+        long time = date.getTime();
+        long day = floorDiv(time, MILLIS_PER_DAY);
+        if (day < MIN_FAST_PATH_DAY || day >= MAX_FAST_PATH_DAY) {
+            return iso8601DateFormat.get().format(date);
         }
+
+        int millisOfDay = (int)(time - day * MILLIS_PER_DAY);
+        char[] buffer = new char[24];
+        appendDate(buffer, 0, day);
+        buffer[10] = 'T';
+        appendTime(buffer, 11, millisOfDay);
+        buffer[19] = '.';
+        appendDigits(buffer, 20, millisOfDay % 1000, 3);
+        buffer[23] = 'Z';
+        return new String(buffer);
     }
 
     /**
@@ -107,9 +174,10 @@ public class DateUtils {
      *             If the date string could not be parsed.
      */
     public Date parseRfc822Date(String dateString) throws ParseException {
-        synchronized (rfc822DateParser) {
-            return rfc822DateParser.parse(dateString);
-        }
+        Date date = parseRfc822DateFast(dateString);
+        if (date != null) return date;
+
+        return rfc822DateFormat.get().parse(dateString);
     }
 
     /**
@@ -121,8 +189,238 @@ public class DateUtils {
      * @return The RFC 822 string representing the specified date.
      */
     public String formatRfc822Date(Date date) {
-        synchronized (rfc822DateParser) {
-            return rfc822DateParser.format(date);
+        long time = date.getTime();
+        long second = floorDiv(time, 1000);
+        FormattedSecond last = lastRfc822Date;
+        if (last != null && last.second == second) return last.formatted;
+
+        long day = floorDiv(time, MILLIS_PER_DAY);
+        if (day < MIN_FAST_PATH_DAY || day >= MAX_FAST_PATH_DAY) {
+            return rfc822DateFormat.get().format(date);
+        }
+
+        // EEE, dd MMM yyyy HH:mm:ss GMT
+        char[] buffer = new char[29];
+        DAY_NAMES[(int)floorMod(day, 7)].getChars(0, 3, buffer, 0);
+        buffer[3] = ',';
+        buffer[4] = ' ';
+        int[] civil = civilFromDays(day);
+        appendDigits(buffer, 5, civil[2], 2);
+        buffer[7] = ' ';
+        MONTH_NAMES[civil[1] - 1].getChars(0, 3, buffer, 8);
+        buffer[11] = ' ';
+        appendDigits(buffer, 12, civil[0], 4);
+        buffer[16] = ' ';
+        appendTime(buffer, 17, (int)(time - day * MILLIS_PER_DAY));
+        buffer[25] = ' ';
+        buffer[26] = 'G';
+        buffer[27] = 'M';
+        buffer[28] = 'T';
+
+        String formatted = new String(buffer);
+        lastRfc822Date = new FormattedSecond(second, formatted);
+        return formatted;
+    }
+
+    /**
+     * Parses ISO 8601 dates of the form yyyy-MM-ddTHH:mm:ss.SSSZ or
+     * yyyy-MM-ddTHH:mm:ssZ, returning null for anything else.
+     */
+    private static Date parseIso8601DateFast(String s) {
+        int length = s.length();
+        if (length != 24 && length != 20) return null;
+        if (s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T'
+                || s.charAt(length - 1) != 'Z') {
+            return null;
+        }
+
+        int millis = 0;
+        if (length == 24) {
+            if (s.charAt(19) != '.') return null;
+            millis = parseDigits(s, 20, 3);
+            if (millis < 0) return null;
+        }
+
+        long time = parseDateTime(s, parseDigits(s, 0, 4), parseDigits(s, 5, 2),
+                parseDigits(s, 8, 2), 11);
+        if (time == Long.MIN_VALUE) return null;
+        return new Date(time + millis);
+    }
+
+    /**
+     * Parses RFC 822 dates of the form EEE, dd MMM yyyy HH:mm:ss GMT,
+     * returning null for anything else.
+     */
+    private static Date parseRfc822DateFast(String s) {
+        if (s.length() != 29) return null;
+        if (indexOf(DAY_NAMES, s, 0) < 0) return null;
+        if (s.charAt(3) != ',' || s.charAt(4) != ' ' || s.charAt(7) != ' '
+                || s.charAt(11) != ' ' || s.charAt(16) != ' '
+                || !s.endsWith(" GMT")) {
+            return null;
+        }
+
+        int month = indexOf(MONTH_NAMES, s, 8) + 1;
+        long time = parseDateTime(s, parseDigits(s, 12, 4), month,
+                parseDigits(s, 5, 2), 17);
+        if (time == Long.MIN_VALUE) return null;
+        return new Date(time);
+    }
+
+    /**
+     * Combines the specified date with the HH:mm:ss time at the specified
+     * offset into milliseconds since the epoch. Returns Long.MIN_VALUE if any
+     * field is missing or out of range, so that the caller can fall back to
+     * SimpleDateFormat, which is lenient about such dates.
+     */
+    private static long parseDateTime(String s, int year, int month, int day, int offset) {
+        if (s.charAt(offset + 2) != ':' || s.charAt(offset + 5) != ':') {
+            return Long.MIN_VALUE;
+        }
+        int hour = parseDigits(s, offset, 2);
+        int minute = parseDigits(s, offset + 3, 2);
+        int second = parseDigits(s, offset + 6, 2);
+
+        if (year < 1583 || month < 1 || month > 12 || day < 1
+                || day > daysInMonth(year, month) || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+
+        long days = daysFromCivil(year, month, day);
+        return days * MILLIS_PER_DAY
+                + ((hour * 60L + minute) * 60L + second) * 1000L;
+    }
+
+    /**
+     * Returns the value of the specified number of decimal digits at the
+     * specified offset, or -1 if any of the characters isn't a digit.
+     */
+    private static int parseDigits(String s, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int indexOf(String[] names, String s, int offset) {
+        for (int i = 0; i < names.length; i++) {
+            if (s.startsWith(names[i], offset)) return i;
+        }
+        return -1;
+    }
+
+    /** Writes the specified day as yyyy-MM-dd */
+    private static void appendDate(char[] buffer, int offset, long day) {
+        int[] civil = civilFromDays(day);
+        appendDigits(buffer, offset, civil[0], 4);
+        buffer[offset + 4] = '-';
+        appendDigits(buffer, offset + 5, civil[1], 2);
+        buffer[offset + 7] = '-';
+        appendDigits(buffer, offset + 8, civil[2], 2);
+    }
+
+    /** Writes the specified time of day as HH:mm:ss */
+    private static void appendTime(char[] buffer, int offset, int millisOfDay) {
+        int secondOfDay = millisOfDay / 1000;
+        appendDigits(buffer, offset, secondOfDay / 3600, 2);
+        buffer[offset + 2] = ':';
+        appendDigits(buffer, offset + 3, secondOfDay / 60 % 60, 2);
+        buffer[offset + 5] = ':';
+        appendDigits(buffer, offset + 6, secondOfDay % 60, 2);
+    }
+
+    private static void appendDigits(char[] buffer, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            buffer[i] = (char)('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    /**
+     * Returns the number of days between 1970-01-01 and the specified date in
+     * the proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = (month <= 2) ? year - 1 : year;
+        long era = floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Returns the year, month and day of month of the specified number of days
+     * since 1970-01-01 in the proleptic Gregorian calendar.
+     */
+    private static int[] civilFromDays(long days) {
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+                - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int)(dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int)(mp < 10 ? mp + 3 : mp - 9);
+        int year = (int)(yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        return new int[] {year, month, day};
+    }
+
+    private static long floorDiv(long x, long y) {
+        long quotient = x / y;
+        if ((x % y != 0) && ((x < 0) != (y < 0))) quotient--;
+        return quotient;
+    }
+
+    private static long floorMod(long x, long y) {
+        return x - floorDiv(x, y) * y;
+    }
+
+    /**
+     * Per-thread SimpleDateFormat in the GMT time zone.
+     */
+    private static final class GmtDateFormat extends ThreadLocal<SimpleDateFormat> {
+        private final String pattern;
+        private final Locale locale;
+
+        GmtDateFormat(String pattern, Locale locale) {
+            this.pattern = pattern;
+            this.locale = locale;
+        }
+
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = (locale == null)
+                    ? new SimpleDateFormat(pattern)
+                    : new SimpleDateFormat(pattern, locale);
+            format.setTimeZone(new SimpleTimeZone(0, "GMT"));
+            return format;
+        }
+    }
+
+    /**
+     * A formatted date and the second since the epoch it represents.
+     */
+    private static final class FormattedSecond {
+        private final long second;
+        private final String formatted;
+
+        FormattedSecond(long second, String formatted) {
+            this.second = second;
+            this.formatted = formatted;
         }
     }
 
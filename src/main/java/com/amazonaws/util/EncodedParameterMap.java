@@ -0,0 +1,194 @@
+/*
+ * Copyright 2010-2011 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Map of request parameters, kept sorted by parameter name, that remembers the
+ * URL encoded form of each parameter once it has been computed.
+ * <p>
+ * Query style requests encode their parameters at least twice: once when the
+ * request is signed and once more when the parameters are written to the
+ * request body or URI. Keeping the parameters in this map means each name and
+ * value is only encoded once, and only parameters that change (such as the
+ * timestamp and signature when a request is retried) are encoded again.
+ * <p>
+ * This class is only intended for internal use inside the AWS client
+ * libraries.
+ */
+public class EncodedParameterMap extends AbstractMap<String, String> {
+
+    /** The parameters in this map, sorted by parameter name */
+    private final TreeMap<String, Parameter> parameters = new TreeMap<String, Parameter>();
+
+    /** View of the parameters in this map as map entries */
+    private final Set<Map.Entry<String, String>> entrySet = new EntrySet();
+
+    @Override
+    public String put(String key, String value) {
+        Parameter parameter = parameters.get(key);
+        if (parameter == null) {
+            parameters.put(key, new Parameter(key, value));
+            return null;
+        }
+        return parameter.setValue(value);
+    }
+
+    @Override
+    public String get(Object key) {
+        Parameter parameter = parameters.get(key);
+        return (parameter == null) ? null : parameter.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return parameters.containsKey(key);
+    }
+
+    @Override
+    public String remove(Object key) {
+        Parameter parameter = parameters.remove(key);
+        return (parameter == null) ? null : parameter.value;
+    }
+
+    @Override
+    public int size() {
+        return parameters.size();
+    }
+
+    @Override
+    public void clear() {
+        parameters.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * Returns the parameters in this map as a URL encoded query string, sorted
+     * by parameter name. Names and values are encoded as described in
+     * {@link HttpUtils#urlEncode(String, boolean)}, which is the form used in
+     * AWS signature calculations. Parameters with a null value are written as
+     * just the encoded parameter name.
+     *
+     * @return The encoded query string for the parameters in this map, or an
+     *         empty string if this map is empty.
+     */
+    public String getEncodedQueryString() {
+        if (parameters.isEmpty()) return "";
+
+        StringBuilder builder = new StringBuilder(parameters.size() * 32);
+        for (Parameter parameter : parameters.values()) {
+            if (builder.length() > 0) builder.append('&');
+            builder.append(parameter.getEncoded());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A single parameter in this map, along with its encoded form.
+     */
+    private static final class Parameter implements Map.Entry<String, String> {
+        private final String key;
+        private String value;
+
+        /** The encoded name=value pair, or null if not yet encoded */
+        private String encoded;
+
+        Parameter(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public String setValue(String value) {
+            String previousValue = this.value;
+            this.value = value;
+            this.encoded = null;
+            return previousValue;
+        }
+
+        String getEncoded() {
+            if (encoded == null) {
+                String encodedKey = HttpUtils.urlEncode(key, false);
+                encoded = (value == null) ? encodedKey
+                        : encodedKey + "=" + HttpUtils.urlEncode(value, false);
+            }
+            return encoded;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry)) return false;
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>)obj;
+            return eq(key, other.getKey()) && eq(value, other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode())
+                    ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+
+        private static boolean eq(Object a, Object b) {
+            return (a == null) ? b == null : a.equals(b);
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            final Iterator<Parameter> iterator = parameters.values().iterator();
+            return new Iterator<Map.Entry<String, String>>() {
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                public Map.Entry<String, String> next() {
+                    return iterator.next();
+                }
+
+                public void remove() {
+                    iterator.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return parameters.size();
+        }
+    }
+}
@@ -16,25 +16,87 @@ package com.amazonaws.util;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
-import java.net.URLEncoder;
+import java.util.Map;
 
 public class HttpUtils {
 
     private static final String DEFAULT_ENCODING = "UTF-8";
 
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * URL encodes the specified value as described in RFC 3986: everything
+     * except letters, digits and the characters '-', '_', '.' and '~' is
+     * percent encoded using the UTF-8 bytes of the value. This is the encoding
+     * AWS uses when calculating request signatures.
+     *
+     * @param value
+     *            The value to encode.
+     * @param path
+     *            True if the value is a resource path, in which case any '/'
+     *            characters are left as they are.
+     *
+     * @return The encoded value, or the original value if it doesn't contain
+     *         any characters that need encoding.
+     */
     public static String urlEncode(String value, boolean path) {
-        try {
-            String encoded = URLEncoder.encode(value, DEFAULT_ENCODING)
-                    .replace("+", "%20").replace("*", "%2A")
-                    .replace("%7E", "~");
-            if (path) {
-                encoded = encoded.replace("%2F", "/");
-            }
+        int length = value.length();
+        int start = 0;
+        while (start < length && isUnreserved(value.charAt(start), path)) {
+            start++;
+        }
+        if (start == length) return value;
 
-            return encoded;
+        byte[] bytes;
+        try {
+            bytes = value.getBytes(DEFAULT_ENCODING);
         } catch (UnsupportedEncodingException ex) {
             throw new RuntimeException(ex);
         }
+
+        // Everything before start is ASCII, so it's one byte per character
+        StringBuilder builder = new StringBuilder(bytes.length + 16);
+        builder.append(value, 0, start);
+        for (int i = start; i < bytes.length; i++) {
+            int b = bytes[i] & 0xFF;
+            if (isUnreserved((char)b, path)) {
+                builder.append((char)b);
+            } else {
+                builder.append('%');
+                builder.append(HEX_DIGITS[b >> 4]);
+                builder.append(HEX_DIGITS[b & 0x0F]);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the URL encoded query string for the specified parameters,
+     * sorted by parameter name, as used in AWS signature calculations and
+     * when sending query parameters. If the parameters are held in an
+     * {@link EncodedParameterMap}, any previously encoded parameters are
+     * reused.
+     *
+     * @param parameters
+     *            The parameters to encode.
+     *
+     * @return The encoded query string, or an empty string if there are no
+     *         parameters.
+     */
+    public static String encodeParameters(Map<String, String> parameters) {
+        if (parameters instanceof EncodedParameterMap) {
+            return ((EncodedParameterMap)parameters).getEncodedQueryString();
+        }
+
+        EncodedParameterMap sorted = new EncodedParameterMap();
+        sorted.putAll(parameters);
+        return sorted.getEncodedQueryString();
+    }
+
+    private static boolean isUnreserved(char c, boolean path) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9') || c == '-' || c == '_'
+                || c == '.' || c == '~' || (path && c == '/');
     }
 
     /**
@@ -14,10 +14,8 @@
  */
 package com.amazonaws.util;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.amazonaws.ResponseMetadata;
 
@@ -25,24 +23,25 @@ import com.amazonaws.ResponseMetadata;
  * Cache of response metadata for recently executed requests for diagnostic
  * purposes. This cache has a max size and as entries are added, the oldest
  * entry is aged out once the max size has been reached.
+ * <p>
+ * Entries are kept in a fixed size ring buffer, so adding an entry is a single
+ * atomic increment and array write, without any locking. Lookups scan the
+ * buffer from the newest entry to the oldest. A cache created with a max size
+ * of zero or less is disabled; it stores nothing and always returns null.
  */
 public class ResponseMetadataCache {
-    private final int maxEntries;
-    private Map<Integer, ResponseMetadata> map;
-    private List<Object> objectList;
+    private final AtomicReferenceArray<Entry> entries;
+    private final AtomicLong nextIndex = new AtomicLong();
 
     /**
      * Creates a new cache that will contain, at most the specified number of
      * entries.
      *
      * @param maxEntries
-     *            The maximum size of this cache.
+     *            The maximum size of this cache, or zero to disable the cache.
      */
     public ResponseMetadataCache(int maxEntries) {
-        this.maxEntries = maxEntries;
-
-        objectList = new ArrayList<Object>(maxEntries);
-        map = new HashMap<Integer, ResponseMetadata>();
+        this.entries = (maxEntries > 0) ? new AtomicReferenceArray<Entry>(maxEntries) : null;
     }
 
     /**
@@ -54,11 +53,11 @@ public class ResponseMetadataCache {
      * @param metadata
      *            The metadata for this entry.
      */
-    public synchronized void add(Object obj, ResponseMetadata metadata) {
-        if (obj == null) return;
+    public void add(Object obj, ResponseMetadata metadata) {
+        if (obj == null || entries == null) return;
 
-        if (map.size() >= maxEntries) evictOldest();
-        store(System.identityHashCode(obj), metadata);
+        int slot = (int)(nextIndex.getAndIncrement() % entries.length());
+        entries.set(slot, new Entry(System.identityHashCode(obj), metadata));
     }
 
     /**
@@ -72,19 +71,29 @@ public class ResponseMetadataCache {
      *         otherwise null if no metadata is associated with that object.
      */
     public ResponseMetadata get(Object obj) {
+        if (obj == null || entries == null) return null;
+
         // System.identityHashCode isn't guaranteed to be unique
         // on all platforms, but should be reasonable enough to use
         // for a few requests at a time.  We can always easily move
         // to our own unique IDs if needed.
-        return map.get(System.identityHashCode(obj));
+        int id = System.identityHashCode(obj);
+        int size = entries.length();
+        long newest = nextIndex.get() - 1;
+        for (long i = newest; i > newest - size && i >= 0; i--) {
+            Entry entry = entries.get((int)(i % size));
+            if (entry != null && entry.id == id) return entry.metadata;
+        }
+        return null;
     }
 
-    private void evictOldest() {
-        map.remove(objectList.remove(0));
-    }
+    private static final class Entry {
+        private final int id;
+        private final ResponseMetadata metadata;
 
-    private void store(int id, ResponseMetadata metadata) {
-        map.put(id, metadata);
-        objectList.add(id);
+        Entry(int id, ResponseMetadata metadata) {
+            this.id = id;
+            this.metadata = metadata;
+        }
     }
 }